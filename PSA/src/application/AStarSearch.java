@@ -0,0 +1,53 @@
+package application;
+
+// Goal-directed point-to-point search. Stations are queued by distance so far
+// plus the landmark lower bound to the target, which is consistent, so the
+// first time the target is settled its distance is optimal.
+final class AStarSearch {
+
+	private AStarSearch() {
+	}
+
+	// Returns the workspace of the calling thread; the target is settled if and only if it is reachable
+	static SearchWorkspace run(RouteGraph graph, int source, int target, RouteMetric metric,
+			LandmarkIndex landmarks) {
+		double[] weights = graph.getWeights(metric);
+		boolean positiveOnly = metric.requiresPositiveWeight();
+		SearchWorkspace workspace = SearchWorkspace.acquire(graph.getStationCount());
+		IndexedHeap heap = workspace.heap;
+
+		// An infinite bound at the source already proves the target unreachable
+		double sourceBound = landmarks.lowerBound(source, target);
+		if (sourceBound == Double.POSITIVE_INFINITY)
+			return workspace;
+
+		workspace.reach(source, 0.0, -1, -1);
+		heap.insertOrDecrease(source, sourceBound);
+
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			workspace.settle(current);
+
+			if (current == target)
+				break;
+
+			double currentDistance = workspace.getDistance(current);
+			for (int edge = graph.edgeStart(current), end = graph.edgeEnd(current); edge < end; edge++) {
+				double weight = weights[edge];
+				if (positiveOnly && weight <= 0)
+					continue;
+
+				int neighbor = graph.getTarget(edge);
+				double newDistance = currentDistance + weight;
+				if (newDistance < workspace.getDistance(neighbor) && !workspace.isSettled(neighbor)) {
+					double bound = landmarks.lowerBound(neighbor, target);
+					if (bound == Double.POSITIVE_INFINITY)
+						continue;
+					workspace.reach(neighbor, newDistance, current, edge);
+					heap.insertOrDecrease(neighbor, newDistance + bound);
+				}
+			}
+		}
+		return workspace;
+	}
+}
@@ -0,0 +1,118 @@
+package application;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Point-to-point Dijkstra that grows one search forward from the source and
+// one backward from the target over the reverse index, stopping once the two
+// frontiers prove that no shorter meeting point can exist.
+final class BidirectionalDijkstra {
+
+	private BidirectionalDijkstra() {
+	}
+
+	// Returns the forward workspace with the complete source-to-target path spliced
+	// in, so callers read it exactly like a DijkstraSearch result. The target is
+	// settled in the returned workspace if and only if it is reachable.
+	static SearchWorkspace run(RouteGraph graph, int source, int target, RouteMetric metric) {
+		return run(graph, source, target, graph.getWeights(metric), metric.requiresPositiveWeight());
+	}
+
+	// Same search over any per-edge weight column, e.g. a blended one from RouteGraph.getWeights(CompositeMetric)
+	static SearchWorkspace run(RouteGraph graph, int source, int target, double[] weights, boolean positiveOnly) {
+		int stationCount = graph.getStationCount();
+		SearchWorkspace forward = SearchWorkspace.acquire(stationCount);
+		SearchWorkspace backward = SearchWorkspace.acquireBackward(stationCount);
+		IndexedHeap forwardHeap = forward.heap;
+		IndexedHeap backwardHeap = backward.heap;
+
+		forward.reach(source, 0.0, -1, -1);
+		forwardHeap.insertOrDecrease(source, 0.0);
+		backward.reach(target, 0.0, -1, -1);
+		backwardHeap.insertOrDecrease(target, 0.0);
+
+		// Length of the best path seen so far and the station where its halves meet
+		double best = source == target ? 0.0 : Double.POSITIVE_INFINITY;
+		int meeting = source == target ? source : -1;
+
+		while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+			// Any undiscovered path is at least as long as the two frontier minima combined
+			if (forwardHeap.peekKey() + backwardHeap.peekKey() >= best)
+				break;
+
+			if (forwardHeap.peekKey() <= backwardHeap.peekKey()) {
+				int current = forwardHeap.poll();
+				forward.settle(current);
+				double currentDistance = forward.getDistance(current);
+
+				for (int edge = graph.edgeStart(current), end = graph.edgeEnd(current); edge < end; edge++) {
+					double weight = weights[edge];
+					if (positiveOnly && weight <= 0)
+						continue;
+
+					int neighbor = graph.getTarget(edge);
+					double newDistance = currentDistance + weight;
+					if (newDistance < forward.getDistance(neighbor) && !forward.isSettled(neighbor)) {
+						forward.reach(neighbor, newDistance, current, edge);
+						forwardHeap.insertOrDecrease(neighbor, newDistance);
+					}
+
+					double candidate = newDistance + backward.getDistance(neighbor);
+					if (candidate < best) {
+						best = candidate;
+						meeting = neighbor;
+					}
+				}
+			} else {
+				int current = backwardHeap.poll();
+				backward.settle(current);
+				double currentDistance = backward.getDistance(current);
+
+				int end = graph.reverseEdgeEnd(current);
+				for (int slot = graph.reverseEdgeStart(current); slot < end; slot++) {
+					int edge = graph.getReverseEdge(slot);
+					double weight = weights[edge];
+					if (positiveOnly && weight <= 0)
+						continue;
+
+					// In the backward tree the "previous" station is the next hop towards the target
+					int neighbor = graph.getReverseSource(slot);
+					double newDistance = currentDistance + weight;
+					if (newDistance < backward.getDistance(neighbor) && !backward.isSettled(neighbor)) {
+						backward.reach(neighbor, newDistance, current, edge);
+						backwardHeap.insertOrDecrease(neighbor, newDistance);
+					}
+
+					double candidate = newDistance + forward.getDistance(neighbor);
+					if (candidate < best) {
+						best = candidate;
+						meeting = neighbor;
+					}
+				}
+			}
+		}
+
+		forward.addSettledCount(backward.getSettledCount());
+		if (meeting == -1) {
+			return forward;
+		}
+
+		// Splice the backward half onto the forward tree, walking from the meeting point to the target.
+		// With zero-weight cycles the backward half can pass a station of the forward branch again;
+		// that station keeps its forward predecessor, which cuts the loop instead of closing it.
+		Set<Integer> forwardBranch = new HashSet<>();
+		for (int at = meeting; at != -1; at = forward.getPrevious(at)) {
+			forwardBranch.add(at);
+		}
+		for (int at = meeting; at != target;) {
+			int next = backward.getPrevious(at);
+			int edge = backward.getPreviousEdge(at);
+			if (!forwardBranch.contains(next)) {
+				forward.reach(next, forward.getDistance(at) + weights[edge], at, edge);
+			}
+			at = next;
+		}
+		forward.settle(target);
+		return forward;
+	}
+}
@@ -0,0 +1,242 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// A GraphPartition customized for one metric: for every cell on every level, the
+// shortest distance inside the cell from each of its entry stations to each of its
+// exit stations (the cell's boundary clique). Level 1 cliques are searched on the
+// snapshot's edges, higher levels on the cliques one level down, so customization is
+// a series of small independent searches that run in parallel per level.
+//
+// Queries are multi-level Dijkstra: a station whose cell on some level contains
+// neither end of the query is crossed with that cell's clique instead of being
+// searched through. A weight change only customizes the cells containing the route
+// again, which is what makes this preferable to Contraction Hierarchies under traffic updates.
+final class CellOverlay {
+	private final GraphPartition partition;
+	private final RouteGraph graph;
+	private final RouteMetric metric;
+	private final double[] weights;
+	private final boolean positiveOnly;
+	// cliques[level - 1] holds every cell's entries x exits matrix in row-major order,
+	// starting at cliqueOffsets[level - 1][cell]
+	private final int[][] cliqueOffsets;
+	private final double[][] cliques;
+
+	private CellOverlay(GraphPartition partition, RouteGraph graph, RouteMetric metric, int[][] cliqueOffsets,
+			double[][] cliques) {
+		this.partition = partition;
+		this.graph = graph;
+		this.metric = metric;
+		this.weights = graph.getWeights(metric);
+		this.positiveOnly = metric.requiresPositiveWeight();
+		this.cliqueOffsets = cliqueOffsets;
+		this.cliques = cliques;
+	}
+
+	// Computes every clique of the partition for the snapshot's weights, bottom-up
+	static CellOverlay customize(GraphPartition partition, RouteGraph graph, RouteMetric metric) {
+		int levelCount = partition.getLevelCount();
+		int[][] cliqueOffsets = new int[levelCount][];
+		double[][] cliques = new double[levelCount][];
+		for (int level = 1; level <= levelCount; level++) {
+			int cellCount = partition.getCellCount(level);
+			int[] offsets = new int[cellCount + 1];
+			for (int cell = 0; cell < cellCount; cell++) {
+				int entries = partition.entryEnd(level, cell) - partition.entryStart(level, cell);
+				int exits = partition.exitEnd(level, cell) - partition.exitStart(level, cell);
+				offsets[cell + 1] = Math.addExact(offsets[cell], Math.multiplyExact(entries, exits));
+			}
+			cliqueOffsets[level - 1] = offsets;
+			cliques[level - 1] = new double[offsets[cellCount]];
+		}
+
+		CellOverlay overlay = new CellOverlay(partition, graph, metric, cliqueOffsets, cliques);
+		for (int level = 1; level <= levelCount; level++) {
+			int current = level;
+			IntStream.range(0, partition.getCellCount(level)).parallel()
+					.forEach(cell -> overlay.customizeCell(current, cell, false));
+		}
+		return overlay;
+	}
+
+	// Overlay for a weight-only copy of the snapshot in which one edge changed. Only the
+	// cells that contain the edge are customized again, from the lowest one upwards;
+	// the cliques of every other cell are shared with this overlay.
+	CellOverlay recustomize(RouteGraph newGraph, int edge, int from) {
+		double[][] newCliques = cliques.clone();
+		if (newGraph.getWeights(metric)[edge] == weights[edge]) {
+			return new CellOverlay(partition, newGraph, metric, cliqueOffsets, newCliques);
+		}
+		int lowest = partition.getCutLevel(edge) + 1;
+		for (int level = lowest; level <= partition.getLevelCount(); level++) {
+			newCliques[level - 1] = cliques[level - 1].clone();
+		}
+		CellOverlay overlay = new CellOverlay(partition, newGraph, metric, cliqueOffsets, newCliques);
+		for (int level = lowest; level <= partition.getLevelCount(); level++) {
+			overlay.customizeCell(level, partition.getCell(level, from), true);
+		}
+		return overlay;
+	}
+
+	// One search per entry of the cell, confined to the cell and using the level below
+	private void customizeCell(int level, int cell, boolean parallel) {
+		int entryStart = partition.entryStart(level, cell);
+		int exitStart = partition.exitStart(level, cell);
+		int exitCount = partition.exitEnd(level, cell) - exitStart;
+		double[] clique = cliques[level - 1];
+		int offset = cliqueOffsets[level - 1][cell];
+		IntStream entries = IntStream.range(0, partition.entryEnd(level, cell) - entryStart);
+		if (parallel) {
+			entries = entries.parallel();
+		}
+		entries.forEach(entry -> {
+			SearchWorkspace search = search(partition.getEntryStation(level, entryStart + entry), -1, level - 1, level,
+					cell);
+			int row = offset + entry * exitCount;
+			for (int exit = 0; exit < exitCount; exit++) {
+				clique[row + exit] = search.getDistance(partition.getExitStation(level, exitStart + exit));
+			}
+		});
+	}
+
+	// Answers a query with a multi-level search. The returned workspace holds the
+	// unpacked path in the snapshot's own edges, read the same way as a DijkstraSearch
+	// result; the target is settled only if reachable.
+	SearchWorkspace query(RouteGraph graph, int source, int target) {
+		SearchWorkspace search = search(source, target, partition.getLevelCount(), 0, 0);
+		if (!search.isSettled(target)) {
+			return search;
+		}
+		int settled = search.getSettledCount();
+		List<Integer> edges = new ArrayList<>();
+		unpack(collectHops(search, source, target), edges);
+		edges = DijkstraSearch.removeLoops(graph, source, edges);
+
+		SearchWorkspace result = SearchWorkspace.acquire(graph.getStationCount());
+		double[] edgeWeights = graph.getWeights(metric);
+		result.reach(source, 0.0, -1, -1);
+		int at = source;
+		for (int edge : edges) {
+			int next = graph.getTarget(edge);
+			result.reach(next, result.getDistance(at) + edgeWeights[edge], at, edge);
+			at = next;
+		}
+		result.settle(target);
+		result.addSettledCount(settled - 1);
+		return result;
+	}
+
+	// Dijkstra from source that crosses foreign cells by their cliques. Levels above
+	// topLevel are not used, and with restrictLevel > 0 only stations inside restrictCell
+	// on that level are visited. Without a target (-1) it runs until the heap is empty.
+	// A clique hop is recorded with previous edge -1 - level.
+	private SearchWorkspace search(int source, int target, int topLevel, int restrictLevel, int restrictCell) {
+		SearchWorkspace workspace = SearchWorkspace.acquire(graph.getStationCount());
+		IndexedHeap heap = workspace.heap;
+		workspace.reach(source, 0.0, -1, -1);
+		heap.insertOrDecrease(source, 0.0);
+
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			workspace.settle(current);
+			if (current == target)
+				break;
+
+			double currentDistance = workspace.getDistance(current);
+			int level = queryLevel(current, source, target, topLevel);
+			if (level > 0) {
+				int entry = partition.getEntryIndex(level, current);
+				if (entry >= 0) {
+					int cell = partition.getCell(level, current);
+					int exitStart = partition.exitStart(level, cell);
+					int exitCount = partition.exitEnd(level, cell) - exitStart;
+					double[] clique = cliques[level - 1];
+					int row = cliqueOffsets[level - 1][cell] + entry * exitCount;
+					for (int exit = 0; exit < exitCount; exit++) {
+						relax(workspace, current, partition.getExitStation(level, exitStart + exit), -1 - level,
+								currentDistance + clique[row + exit]);
+					}
+				}
+			}
+			for (int edge = graph.edgeStart(current), end = graph.edgeEnd(current); edge < end; edge++) {
+				// Edges that stay inside the cell are covered by its clique
+				if (partition.getCutLevel(edge) < level)
+					continue;
+				double weight = weights[edge];
+				if (positiveOnly && weight <= 0)
+					continue;
+				int next = graph.getTarget(edge);
+				if (restrictLevel > 0 && partition.getCell(restrictLevel, next) != restrictCell)
+					continue;
+				relax(workspace, current, next, edge, currentDistance + weight);
+			}
+		}
+		return workspace;
+	}
+
+	private static void relax(SearchWorkspace workspace, int from, int to, int edge, double newDistance) {
+		if (newDistance < workspace.getDistance(to) && !workspace.isSettled(to)) {
+			workspace.reach(to, newDistance, from, edge);
+			workspace.heap.insertOrDecrease(to, newDistance);
+		}
+	}
+
+	// Highest level on which the station's cell contains neither the source nor the target
+	private int queryLevel(int station, int source, int target, int topLevel) {
+		for (int level = topLevel; level > 0; level--) {
+			int cell = partition.getCell(level, station);
+			if (cell != partition.getCell(level, source) && (target < 0 || cell != partition.getCell(level, target)))
+				return level;
+		}
+		return 0;
+	}
+
+	// The path's hops as { from, to, edge or -1 - level }, in travel order
+	private static List<int[]> collectHops(SearchWorkspace search, int source, int target) {
+		List<int[]> hops = new ArrayList<>();
+		for (int at = target; at != source; at = search.getPrevious(at)) {
+			hops.add(new int[] { search.getPrevious(at), at, search.getPreviousEdge(at) });
+		}
+		Collections.reverse(hops);
+		return hops;
+	}
+
+	// Expands clique hops by searching the cell again one level down, until only snapshot edges remain
+	private void unpack(List<int[]> hops, List<Integer> edges) {
+		for (int[] hop : hops) {
+			if (hop[2] >= 0) {
+				edges.add(hop[2]);
+				continue;
+			}
+			int level = -1 - hop[2];
+			int cell = partition.getCell(level, hop[0]);
+			SearchWorkspace inner = search(hop[0], hop[1], level - 1, level, cell);
+			unpack(collectHops(inner, hop[0], hop[1]), edges);
+		}
+	}
+
+	public RouteMetric getMetric() {
+		return metric;
+	}
+
+	public GraphPartition getPartition() {
+		return partition;
+	}
+
+	public int getCliqueSize() {
+		int size = 0;
+		for (double[] clique : cliques) {
+			size += clique.length;
+		}
+		return size;
+	}
+
+	// True if the overlay was customized for exactly this snapshot
+	public boolean matches(RouteGraph graph) {
+		return graph.getFingerprint() == this.graph.getFingerprint() && partition.matches(graph);
+	}
+}
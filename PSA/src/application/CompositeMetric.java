@@ -0,0 +1,85 @@
+package application;
+
+// A blend of the three route metrics, minimised as
+// distanceWeight * distance + costWeight * cost + trafficWeight * leastTrafficTime.
+// Weights are in "points per km / per $ / per hour", so e.g. (0.1, 1, 0.5) reads
+// "mostly cheap, but an hour of traffic is worth 50 cents".
+//
+// The presets have their blended edge columns precomputed once per snapshot;
+// any other blend is computed for the query that uses it.
+public final class CompositeMetric {
+	public static final CompositeMetric BALANCED = new CompositeMetric(1.0, 1.0, 1.0, true);
+	public static final CompositeMetric CHEAP_BUT_QUICK = new CompositeMetric(0.1, 1.0, 0.5, true);
+	public static final CompositeMetric QUICK_BUT_CHEAP = new CompositeMetric(0.1, 0.5, 1.0, true);
+	public static final CompositeMetric SHORT_BUT_QUICK = new CompositeMetric(1.0, 0.1, 0.5, true);
+
+	private static final CompositeMetric[] PRESETS = { BALANCED, CHEAP_BUT_QUICK, QUICK_BUT_CHEAP,
+			SHORT_BUT_QUICK };
+
+	private final double distanceWeight;
+	private final double costWeight;
+	private final double trafficWeight;
+	private final boolean preset;
+
+	private CompositeMetric(double distanceWeight, double costWeight, double trafficWeight, boolean preset) {
+		this.distanceWeight = distanceWeight;
+		this.costWeight = costWeight;
+		this.trafficWeight = trafficWeight;
+		this.preset = preset;
+	}
+
+	// Any non-negative weights, at least one of them positive. Weights equal to a
+	// preset give the preset, so they share its precomputed columns.
+	public static CompositeMetric of(double distanceWeight, double costWeight, double trafficWeight) {
+		if (!(distanceWeight >= 0 && costWeight >= 0 && trafficWeight >= 0)
+				|| Double.isInfinite(distanceWeight + costWeight + trafficWeight)
+				|| distanceWeight + costWeight + trafficWeight == 0)
+			throw new IllegalArgumentException("Composite metric weights must be finite, non-negative and not all zero: "
+					+ distanceWeight + ", " + costWeight + ", " + trafficWeight);
+		for (CompositeMetric preset : PRESETS) {
+			if (preset.distanceWeight == distanceWeight && preset.costWeight == costWeight
+					&& preset.trafficWeight == trafficWeight)
+				return preset;
+		}
+		return new CompositeMetric(distanceWeight, costWeight, trafficWeight, false);
+	}
+
+	static CompositeMetric[] getPresets() {
+		return PRESETS.clone();
+	}
+
+	public double getDistanceWeight() {
+		return distanceWeight;
+	}
+
+	public double getCostWeight() {
+		return costWeight;
+	}
+
+	public double getTrafficWeight() {
+		return trafficWeight;
+	}
+
+	boolean isPreset() {
+		return preset;
+	}
+
+	// Like RouteMetric.DISTANCE, a blend that counts distance skips edges without a positive distance
+	boolean requiresPositiveDistance() {
+		return distanceWeight > 0;
+	}
+
+	public double valueOf(double distance, double cost, double trafficTime) {
+		return distanceWeight * distance + costWeight * cost + trafficWeight * trafficTime;
+	}
+
+	public double valueOf(RouteResult route) {
+		return valueOf(route.getDistance(), route.getCost(), route.getTrafficTime());
+	}
+
+	@Override
+	public String toString() {
+		return "CompositeMetric{" + "distanceWeight=" + distanceWeight + ", costWeight=" + costWeight
+				+ ", trafficWeight=" + trafficWeight + '}';
+	}
+}
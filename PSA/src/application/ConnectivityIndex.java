@@ -0,0 +1,404 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Strongly connected components of one vehicle type's routes, kept in a
+// topological order of the component graph, plus weakly connected components.
+// That is enough to refuse most impossible queries in O(1) before any search:
+// stations in different weak components never reach each other, and nothing
+// reaches a component that comes earlier in the topological order.
+//
+// Built once with an iterative Tarjan pass. addEdge then keeps it exact: an edge
+// inside a component or along the order changes nothing, and an edge against the
+// order is handled like Pearce-Kelly, re-ordering (and merging, if it closes a
+// cycle) only the components between its two ends.
+final class ConnectivityIndex {
+	private final String vehicleType;
+	private final Map<String, Integer> ids = new HashMap<>();
+	private final List<String> names = new ArrayList<>();
+	private int[][] outEdges = new int[16][];
+	private int[] outDegree = new int[16];
+	private int[][] inEdges = new int[16][];
+	private int[] inDegree = new int[16];
+	// Weak components as a union-find forest over stations
+	private int[] parent = new int[16];
+
+	// Component of every station; per component its stations and topological rank.
+	// Merged components are left behind with no members.
+	private int[] component = new int[16];
+	private int[][] members = new int[16][];
+	private int[] memberCount = new int[16];
+	private int[] rank = new int[16];
+	private int componentCount;
+	private int liveComponents;
+	private int weakComponents;
+	// New stations go before or after everything, depending on their first edge
+	private int lowestRank;
+	private int highestRank;
+
+	// Scratch marks for the re-ordering searches
+	private int[] forwardMark = new int[16];
+	private int[] backwardMark = new int[16];
+	private int generation;
+
+	private ConnectivityIndex(String vehicleType) {
+		this.vehicleType = vehicleType;
+	}
+
+	// Index over every route of the vehicle type in the route map
+	static ConnectivityIndex build(Map<String, Map<String, List<Route>>> graph, String vehicleType) {
+		ConnectivityIndex index = new ConnectivityIndex(vehicleType);
+		for (Map.Entry<String, Map<String, List<Route>>> entry : graph.entrySet()) {
+			List<Route> routes = entry.getValue().get(vehicleType);
+			if (routes == null)
+				continue;
+			int from = index.station(entry.getKey());
+			for (Route route : routes) {
+				int to = index.station(route.getDestination());
+				if (index.link(from, to))
+					index.union(from, to);
+			}
+		}
+		index.computeComponents();
+		return index;
+	}
+
+	public String getVehicleType() {
+		return vehicleType;
+	}
+
+	// Records a new route from -> to and updates the components
+	synchronized void addEdge(String from, String to) {
+		Integer known = ids.get(from);
+		int source = known == null ? newStation(from, --lowestRank) : known;
+		known = ids.get(to);
+		int target = known == null ? newStation(to, ++highestRank) : known;
+		if (!link(source, target))
+			return;
+		union(source, target);
+
+		int sourceComponent = component[source];
+		int targetComponent = component[target];
+		if (sourceComponent != targetComponent && rank[sourceComponent] > rank[targetComponent])
+			reorder(sourceComponent, targetComponent);
+	}
+
+	// False only if no route of this vehicle type can lead from -> to. True does not
+	// promise a route unless both stations share a strongly connected component.
+	synchronized boolean mayReach(String from, String to) {
+		if (from.equals(to))
+			return true;
+		Integer source = ids.get(from);
+		Integer target = ids.get(to);
+		if (source == null || target == null || find(source) != find(target))
+			return false;
+		return rank[component[source]] <= rank[component[target]];
+	}
+
+	// True if from and to can reach each other
+	synchronized boolean sameComponent(String from, String to) {
+		Integer source = ids.get(from);
+		Integer target = ids.get(to);
+		return source != null && target != null && component[source] == component[target];
+	}
+
+	synchronized int getStationCount() {
+		return names.size();
+	}
+
+	synchronized int getComponentCount() {
+		return liveComponents;
+	}
+
+	synchronized int getWeakComponentCount() {
+		return weakComponents;
+	}
+
+	// Strongly connected components, largest first, each with its stations sorted by name
+	synchronized List<List<String>> getComponents() {
+		List<List<String>> components = new ArrayList<>();
+		for (int c = 0; c < componentCount; c++) {
+			if (memberCount[c] == 0)
+				continue;
+			List<String> stations = new ArrayList<>();
+			for (int i = 0; i < memberCount[c]; i++) {
+				stations.add(names.get(members[c][i]));
+			}
+			stations.sort(null);
+			components.add(stations);
+		}
+		components.sort(Comparator.comparingInt((List<String> stations) -> -stations.size())
+				.thenComparing(stations -> stations.get(0)));
+		return components;
+	}
+
+	// Summary for data-quality checks: counts, and every station outside the largest component
+	synchronized String report() {
+		List<List<String>> components = getComponents();
+		StringBuilder report = new StringBuilder("Connectivity for ").append(vehicleType).append(": ")
+				.append(names.size()).append(" stations, ").append(liveComponents)
+				.append(" strongly connected components, ").append(weakComponents)
+				.append(" weakly connected components");
+		if (!components.isEmpty())
+			report.append(", largest component has ").append(components.get(0).size()).append(" stations");
+		for (int i = 1; i < components.size(); i++) {
+			report.append("\n- Component ").append(i + 1).append(": ").append(components.get(i));
+		}
+		return report.toString();
+	}
+
+	private int station(String name) {
+		Integer id = ids.get(name);
+		return id != null ? id : newStation(name, 0);
+	}
+
+	private int newStation(String name, int stationRank) {
+		int id = names.size();
+		ids.put(name, id);
+		names.add(name);
+		if (id == parent.length) {
+			int capacity = id * 2;
+			outEdges = Arrays.copyOf(outEdges, capacity);
+			outDegree = Arrays.copyOf(outDegree, capacity);
+			inEdges = Arrays.copyOf(inEdges, capacity);
+			inDegree = Arrays.copyOf(inDegree, capacity);
+			parent = Arrays.copyOf(parent, capacity);
+			component = Arrays.copyOf(component, capacity);
+		}
+		outEdges[id] = new int[2];
+		inEdges[id] = new int[2];
+		parent[id] = id;
+		weakComponents++;
+		component[id] = newComponent(stationRank);
+		addMember(component[id], id);
+		return id;
+	}
+
+	private int newComponent(int componentRank) {
+		int id = componentCount++;
+		if (id == rank.length) {
+			int capacity = id * 2;
+			members = Arrays.copyOf(members, capacity);
+			memberCount = Arrays.copyOf(memberCount, capacity);
+			rank = Arrays.copyOf(rank, capacity);
+			forwardMark = Arrays.copyOf(forwardMark, capacity);
+			backwardMark = Arrays.copyOf(backwardMark, capacity);
+		}
+		members[id] = new int[1];
+		memberCount[id] = 0;
+		rank[id] = componentRank;
+		liveComponents++;
+		return id;
+	}
+
+	private void addMember(int c, int station) {
+		if (memberCount[c] == members[c].length)
+			members[c] = Arrays.copyOf(members[c], memberCount[c] * 2);
+		members[c][memberCount[c]++] = station;
+	}
+
+	// Adds the adjacency entries; false if the edge was already known
+	private boolean link(int from, int to) {
+		for (int i = 0; i < outDegree[from]; i++) {
+			if (outEdges[from][i] == to)
+				return false;
+		}
+		if (outDegree[from] == outEdges[from].length)
+			outEdges[from] = Arrays.copyOf(outEdges[from], outDegree[from] * 2);
+		outEdges[from][outDegree[from]++] = to;
+		if (inDegree[to] == inEdges[to].length)
+			inEdges[to] = Arrays.copyOf(inEdges[to], inDegree[to] * 2);
+		inEdges[to][inDegree[to]++] = from;
+		return true;
+	}
+
+	private int find(int station) {
+		while (parent[station] != station) {
+			parent[station] = parent[parent[station]];
+			station = parent[station];
+		}
+		return station;
+	}
+
+	private void union(int a, int b) {
+		int rootA = find(a);
+		int rootB = find(b);
+		if (rootA != rootB) {
+			parent[rootA] = rootB;
+			weakComponents--;
+		}
+	}
+
+	// Iterative Tarjan. Components complete sinks first, so ranks count down from there.
+	private void computeComponents() {
+		int stationCount = names.size();
+		componentCount = 0;
+		liveComponents = 0;
+		int[] index = new int[stationCount];
+		int[] low = new int[stationCount];
+		int[] edgePosition = new int[stationCount];
+		boolean[] onStack = new boolean[stationCount];
+		int[] componentStack = new int[stationCount];
+		int[] callStack = new int[stationCount];
+		Arrays.fill(index, -1);
+		int[] order = new int[stationCount];
+		int counter = 0;
+		int componentTop = 0;
+		int finished = 0;
+
+		for (int root = 0; root < stationCount; root++) {
+			if (index[root] != -1)
+				continue;
+			int callTop = 0;
+			callStack[callTop++] = root;
+			index[root] = low[root] = counter++;
+			componentStack[componentTop++] = root;
+			onStack[root] = true;
+			while (callTop > 0) {
+				int station = callStack[callTop - 1];
+				if (edgePosition[station] < outDegree[station]) {
+					int next = outEdges[station][edgePosition[station]++];
+					if (index[next] == -1) {
+						index[next] = low[next] = counter++;
+						componentStack[componentTop++] = next;
+						onStack[next] = true;
+						callStack[callTop++] = next;
+					} else if (onStack[next]) {
+						low[station] = Math.min(low[station], index[next]);
+					}
+					continue;
+				}
+				callTop--;
+				if (callTop > 0) {
+					int caller = callStack[callTop - 1];
+					low[caller] = Math.min(low[caller], low[station]);
+				}
+				if (low[station] == index[station]) {
+					int c = newComponent(0);
+					order[finished++] = c;
+					int member;
+					do {
+						member = componentStack[--componentTop];
+						onStack[member] = false;
+						component[member] = c;
+						addMember(c, member);
+					} while (member != station);
+				}
+			}
+		}
+		for (int i = 0; i < finished; i++) {
+			rank[order[i]] = finished - 1 - i;
+		}
+		lowestRank = 0;
+		highestRank = finished - 1;
+	}
+
+	// Pearce-Kelly step for a new edge from -> to with rank[from] > rank[to]. Only
+	// components ranked between the two can be affected: those reachable from "to"
+	// move after those that reach "from", and if "from" is reachable the ones on
+	// both sides form a cycle and merge.
+	private void reorder(int from, int to) {
+		int lower = rank[to];
+		int upper = rank[from];
+		if (++generation == 0) {
+			Arrays.fill(forwardMark, 0);
+			Arrays.fill(backwardMark, 0);
+			generation = 1;
+		}
+		List<Integer> forward = collect(to, upper, true);
+		List<Integer> backward = collect(from, lower, false);
+
+		// Ranks of every touched component, handed out again in the new order
+		int[] ranks = new int[forward.size() + backward.size()];
+		int next = 0;
+		for (int c : backward) {
+			ranks[next++] = rank[c];
+		}
+		for (int c : forward) {
+			if (backwardMark[c] != generation)
+				ranks[next++] = rank[c];
+		}
+		ranks = Arrays.copyOf(ranks, next);
+		Arrays.sort(ranks);
+
+		Comparator<Integer> byRank = Comparator.comparingInt(c -> rank[c]);
+		List<Integer> onlyBackward = new ArrayList<>();
+		List<Integer> onlyForward = new ArrayList<>();
+		List<Integer> cycle = new ArrayList<>();
+		for (int c : backward) {
+			(forwardMark[c] == generation ? cycle : onlyBackward).add(c);
+		}
+		for (int c : forward) {
+			if (backwardMark[c] != generation)
+				onlyForward.add(c);
+		}
+		onlyBackward.sort(byRank);
+		onlyForward.sort(byRank);
+
+		// The backward side takes the lowest ranks and the forward side the highest, so
+		// each side only moves away from the components outside the window. A merged
+		// component sits in between; merging frees the ranks left over.
+		for (int i = 0; i < onlyBackward.size(); i++) {
+			rank[onlyBackward.get(i)] = ranks[i];
+		}
+		int firstForward = ranks.length - onlyForward.size();
+		for (int i = 0; i < onlyForward.size(); i++) {
+			rank[onlyForward.get(i)] = ranks[firstForward + i];
+		}
+		if (!cycle.isEmpty())
+			rank[merge(cycle)] = ranks[onlyBackward.size()];
+	}
+
+	// Components reachable from start (forward) or reaching start (backward) without
+	// leaving the rank window that the new edge can affect
+	private List<Integer> collect(int start, int bound, boolean forward) {
+		int[] mark = forward ? forwardMark : backwardMark;
+		List<Integer> found = new ArrayList<>();
+		mark[start] = generation;
+		found.add(start);
+		for (int i = 0; i < found.size(); i++) {
+			int c = found.get(i);
+			for (int m = 0; m < memberCount[c]; m++) {
+				int station = members[c][m];
+				int[] edges = forward ? outEdges[station] : inEdges[station];
+				int degree = forward ? outDegree[station] : inDegree[station];
+				for (int e = 0; e < degree; e++) {
+					int other = component[edges[e]];
+					if (mark[other] == generation)
+						continue;
+					if (forward ? rank[other] > bound : rank[other] < bound)
+						continue;
+					mark[other] = generation;
+					found.add(other);
+				}
+			}
+		}
+		return found;
+	}
+
+	// Folds the components into the largest one and returns it
+	private int merge(List<Integer> cycle) {
+		int into = cycle.get(0);
+		for (int c : cycle) {
+			if (memberCount[c] > memberCount[into])
+				into = c;
+		}
+		for (int c : cycle) {
+			if (c == into)
+				continue;
+			for (int m = 0; m < memberCount[c]; m++) {
+				component[members[c][m]] = into;
+				addMember(into, members[c][m]);
+			}
+			members[c] = new int[0];
+			memberCount[c] = 0;
+			liveComponents--;
+		}
+		return into;
+	}
+}
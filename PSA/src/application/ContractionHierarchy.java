@@ -0,0 +1,563 @@
+package application;
+
+import java.io.*;
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Contraction Hierarchy for one vehicle type and metric. Stations are contracted
+// in priority order; every contraction adds shortcut edges that preserve the
+// distances between the stations that remain. Queries then only climb towards
+// higher-ranked stations from both ends, which settles a tiny part of the network.
+final class ContractionHierarchy {
+	private static final int FILE_MAGIC = 0x43484831; // "CHH1"
+	// Witness searches give up after this many stations and add the shortcut instead
+	private static final int WITNESS_SETTLE_LIMIT = 250;
+	// Priority estimates only need a rough shortcut count, so their witness searches stop sooner
+	private static final int ESTIMATE_SETTLE_LIMIT = 40;
+
+	private final String vehicleType;
+	private final RouteMetric metric;
+	private final long fingerprint;
+	private final int[] rank;
+	// Upward edges, grouped by their lower-ranked tail
+	private final int[] upOffsets;
+	private final int[] upTargets;
+	private final double[] upWeights;
+	private final int[] upVia;
+	// Downward edges, grouped by their lower-ranked head and stored as incoming edges
+	private final int[] downOffsets;
+	private final int[] downSources;
+	private final double[] downWeights;
+	private final int[] downVia;
+
+	private ContractionHierarchy(String vehicleType, RouteMetric metric, long fingerprint, int[] rank,
+			int[] upOffsets, int[] upTargets, double[] upWeights, int[] upVia, int[] downOffsets, int[] downSources,
+			double[] downWeights, int[] downVia) {
+		this.vehicleType = vehicleType;
+		this.metric = metric;
+		this.fingerprint = fingerprint;
+		this.rank = rank;
+		this.upOffsets = upOffsets;
+		this.upTargets = upTargets;
+		this.upWeights = upWeights;
+		this.upVia = upVia;
+		this.downOffsets = downOffsets;
+		this.downSources = downSources;
+		this.downWeights = downWeights;
+		this.downVia = downVia;
+	}
+
+	// Growable adjacency list used while contracting. "via" is the contracted
+	// middle station of a shortcut, or -(edge + 1) for an original snapshot edge.
+	private static final class EdgeList {
+		int[] nodes = new int[4];
+		double[] weights = new double[4];
+		int[] via = new int[4];
+		int size;
+
+		// Adds the edge, or lowers the weight of an existing edge to the same station
+		void upsert(int node, double weight, int middle) {
+			for (int i = 0; i < size; i++) {
+				if (nodes[i] == node) {
+					if (weight < weights[i]) {
+						weights[i] = weight;
+						via[i] = middle;
+					}
+					return;
+				}
+			}
+			if (size == nodes.length) {
+				nodes = Arrays.copyOf(nodes, size * 2);
+				weights = Arrays.copyOf(weights, size * 2);
+				via = Arrays.copyOf(via, size * 2);
+			}
+			nodes[size] = node;
+			weights[size] = weight;
+			via[size] = middle;
+			size++;
+		}
+
+		void remove(int node) {
+			for (int i = 0; i < size; i++) {
+				if (nodes[i] == node) {
+					size--;
+					nodes[i] = nodes[size];
+					weights[i] = weights[size];
+					via[i] = via[size];
+					return;
+				}
+			}
+		}
+	}
+
+	private static final class Shortcut {
+		final int from;
+		final int to;
+		final double weight;
+
+		Shortcut(int from, int to, double weight) {
+			this.from = from;
+			this.to = to;
+			this.weight = weight;
+		}
+	}
+
+	// Contracts every station of the snapshot. Batches of stations that are local
+	// priority minima (so no two are adjacent) are contracted in parallel.
+	static ContractionHierarchy build(RouteGraph graph, RouteMetric metric) {
+		int stationCount = graph.getStationCount();
+		double[] weights = graph.getWeights(metric);
+		boolean positiveOnly = metric.requiresPositiveWeight();
+
+		EdgeList[] out = new EdgeList[stationCount];
+		EdgeList[] in = new EdgeList[stationCount];
+		for (int node = 0; node < stationCount; node++) {
+			out[node] = new EdgeList();
+			in[node] = new EdgeList();
+		}
+		for (int node = 0; node < stationCount; node++) {
+			for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+				int target = graph.getTarget(edge);
+				if ((positiveOnly && weights[edge] <= 0) || target == node)
+					continue;
+				out[node].upsert(target, weights[edge], -(edge + 1));
+				in[target].upsert(node, weights[edge], -(edge + 1));
+			}
+		}
+
+		boolean[] contracted = new boolean[stationCount];
+		int[] deletedNeighbors = new int[stationCount];
+		int[] level = new int[stationCount];
+		double[] priority = new double[stationCount];
+		IntStream.range(0, stationCount).parallel()
+				.forEach(node -> priority[node] = priorityOf(node, out, in, contracted, deletedNeighbors, level));
+
+		int[] rank = new int[stationCount];
+		EdgeList[] up = new EdgeList[stationCount];
+		EdgeList[] down = new EdgeList[stationCount];
+		int[] remaining = IntStream.range(0, stationCount).toArray();
+		int remainingCount = stationCount;
+		int nextRank = 0;
+
+		while (remainingCount > 0) {
+			int[] batch = selectBatch(remaining, remainingCount, out, in, priority);
+
+			// Mark the whole batch first so witness searches never route through it
+			for (int node : batch) {
+				contracted[node] = true;
+				rank[node] = nextRank++;
+			}
+
+			List<List<Shortcut>> shortcuts = new ArrayList<>(batch.length);
+			for (int i = 0; i < batch.length; i++) {
+				shortcuts.add(null);
+			}
+			IntStream.range(0, batch.length).parallel()
+					.forEach(i -> shortcuts.set(i, findShortcuts(batch[i], out, in, contracted, WITNESS_SETTLE_LIMIT)));
+
+			Set<Integer> touched = new HashSet<>();
+			for (int i = 0; i < batch.length; i++) {
+				int node = batch[i];
+				up[node] = out[node];
+				down[node] = in[node];
+				for (int j = 0; j < out[node].size; j++) {
+					int neighbor = out[node].nodes[j];
+					in[neighbor].remove(node);
+					touched.add(neighbor);
+				}
+				for (int j = 0; j < in[node].size; j++) {
+					int neighbor = in[node].nodes[j];
+					out[neighbor].remove(node);
+					touched.add(neighbor);
+				}
+				for (Shortcut shortcut : shortcuts.get(i)) {
+					out[shortcut.from].upsert(shortcut.to, shortcut.weight, node);
+					in[shortcut.to].upsert(shortcut.from, shortcut.weight, node);
+				}
+			}
+			for (int node : batch) {
+				for (int j = 0; j < up[node].size; j++) {
+					bumpNeighbor(up[node].nodes[j], node, deletedNeighbors, level);
+				}
+				for (int j = 0; j < down[node].size; j++) {
+					bumpNeighbor(down[node].nodes[j], node, deletedNeighbors, level);
+				}
+			}
+
+			// Only the neighbours of contracted stations can have changed priority
+			touched.parallelStream().forEach(
+					node -> priority[node] = priorityOf(node, out, in, contracted, deletedNeighbors, level));
+
+			int kept = 0;
+			for (int i = 0; i < remainingCount; i++) {
+				if (!contracted[remaining[i]])
+					remaining[kept++] = remaining[i];
+			}
+			remainingCount = kept;
+		}
+
+		int[] upOffsets = new int[stationCount + 1];
+		int[] downOffsets = new int[stationCount + 1];
+		for (int node = 0; node < stationCount; node++) {
+			upOffsets[node + 1] = upOffsets[node] + up[node].size;
+			downOffsets[node + 1] = downOffsets[node] + down[node].size;
+		}
+		int[] upTargets = new int[upOffsets[stationCount]];
+		double[] upWeights = new double[upTargets.length];
+		int[] upVia = new int[upTargets.length];
+		int[] downSources = new int[downOffsets[stationCount]];
+		double[] downWeights = new double[downSources.length];
+		int[] downVia = new int[downSources.length];
+		for (int node = 0; node < stationCount; node++) {
+			System.arraycopy(up[node].nodes, 0, upTargets, upOffsets[node], up[node].size);
+			System.arraycopy(up[node].weights, 0, upWeights, upOffsets[node], up[node].size);
+			System.arraycopy(up[node].via, 0, upVia, upOffsets[node], up[node].size);
+			System.arraycopy(down[node].nodes, 0, downSources, downOffsets[node], down[node].size);
+			System.arraycopy(down[node].weights, 0, downWeights, downOffsets[node], down[node].size);
+			System.arraycopy(down[node].via, 0, downVia, downOffsets[node], down[node].size);
+		}
+
+		return new ContractionHierarchy(graph.getVehicleType(), metric, graph.getFingerprint(), rank, upOffsets,
+				upTargets, upWeights, upVia, downOffsets, downSources, downWeights, downVia);
+	}
+
+	private static void bumpNeighbor(int neighbor, int contractedNode, int[] deletedNeighbors, int[] level) {
+		deletedNeighbors[neighbor]++;
+		level[neighbor] = Math.max(level[neighbor], level[contractedNode] + 1);
+	}
+
+	// Stations whose priority is lower than that of every remaining neighbour
+	private static int[] selectBatch(int[] remaining, int remainingCount, EdgeList[] out, EdgeList[] in,
+			double[] priority) {
+		int[] batch = new int[remainingCount];
+		int size = 0;
+		for (int i = 0; i < remainingCount; i++) {
+			int node = remaining[i];
+			if (isLocalMinimum(node, out[node], priority) && isLocalMinimum(node, in[node], priority))
+				batch[size++] = node;
+		}
+		return Arrays.copyOf(batch, size);
+	}
+
+	private static boolean isLocalMinimum(int node, EdgeList neighbors, double[] priority) {
+		for (int j = 0; j < neighbors.size; j++) {
+			int neighbor = neighbors.nodes[j];
+			if (priority[neighbor] < priority[node] || (priority[neighbor] == priority[node] && neighbor < node))
+				return false;
+		}
+		return true;
+	}
+
+	// Edge difference plus the contracted-neighbour and depth terms keep the hierarchy shallow and even
+	private static double priorityOf(int node, EdgeList[] out, EdgeList[] in, boolean[] contracted,
+			int[] deletedNeighbors, int[] level) {
+		int shortcuts = findShortcuts(node, out, in, contracted, ESTIMATE_SETTLE_LIMIT).size();
+		int edgeDifference = shortcuts - out[node].size - in[node].size;
+		return 2 * edgeDifference + deletedNeighbors[node] + level[node];
+	}
+
+	// Runs a witness search from every incoming neighbour and returns the shortcuts
+	// needed to bypass the node. The node itself is always excluded from the searches.
+	private static List<Shortcut> findShortcuts(int node, EdgeList[] out, EdgeList[] in, boolean[] contracted,
+			int settleLimit) {
+		List<Shortcut> shortcuts = new ArrayList<>();
+		EdgeList incoming = in[node];
+		EdgeList outgoing = out[node];
+		for (int i = 0; i < incoming.size; i++) {
+			int from = incoming.nodes[i];
+
+			double limit = 0.0;
+			for (int j = 0; j < outgoing.size; j++) {
+				limit = Math.max(limit, incoming.weights[i] + outgoing.weights[j]);
+			}
+			SearchWorkspace witness = witnessSearch(from, node, limit, outgoing, out, contracted, settleLimit);
+
+			for (int j = 0; j < outgoing.size; j++) {
+				int to = outgoing.nodes[j];
+				if (to == from)
+					continue;
+				double viaNode = incoming.weights[i] + outgoing.weights[j];
+				if (witness.getDistance(to) > viaNode)
+					shortcuts.add(new Shortcut(from, to, viaNode));
+			}
+		}
+		return shortcuts;
+	}
+
+	// Bounded Dijkstra over the remaining graph that avoids the station being
+	// contracted. It stops early once every station in targets is settled.
+	private static SearchWorkspace witnessSearch(int source, int excluded, double limit, EdgeList targets,
+			EdgeList[] out, boolean[] contracted, int settleLimit) {
+		SearchWorkspace workspace = SearchWorkspace.acquire(out.length);
+		IndexedHeap heap = workspace.heap;
+		workspace.reach(source, 0.0, -1, -1);
+		heap.insertOrDecrease(source, 0.0);
+		int targetsLeft = targets.size;
+
+		while (!heap.isEmpty() && heap.peekKey() <= limit && workspace.getSettledCount() < settleLimit) {
+			int current = heap.poll();
+			workspace.settle(current);
+			for (int j = 0; j < targets.size; j++) {
+				if (targets.nodes[j] == current) {
+					targetsLeft--;
+					break;
+				}
+			}
+			if (targetsLeft == 0)
+				break;
+			double currentDistance = workspace.getDistance(current);
+			EdgeList edges = out[current];
+			for (int j = 0; j < edges.size; j++) {
+				int neighbor = edges.nodes[j];
+				if (neighbor == excluded || contracted[neighbor])
+					continue;
+				double newDistance = currentDistance + edges.weights[j];
+				if (newDistance < workspace.getDistance(neighbor) && !workspace.isSettled(neighbor)) {
+					workspace.reach(neighbor, newDistance, current, -1);
+					heap.insertOrDecrease(neighbor, newDistance);
+				}
+			}
+		}
+		return workspace;
+	}
+
+	// Answers a query with an upward search from each end. The returned forward
+	// workspace holds the unpacked path in the snapshot's own edges, read the same
+	// way as a DijkstraSearch result; the target is settled only if reachable.
+	SearchWorkspace query(RouteGraph graph, int source, int target) {
+		int stationCount = graph.getStationCount();
+		SearchWorkspace forward = SearchWorkspace.acquire(stationCount);
+		SearchWorkspace backward = SearchWorkspace.acquireBackward(stationCount);
+		IndexedHeap forwardHeap = forward.heap;
+		IndexedHeap backwardHeap = backward.heap;
+
+		forward.reach(source, 0.0, -1, -1);
+		forwardHeap.insertOrDecrease(source, 0.0);
+		backward.reach(target, 0.0, -1, -1);
+		backwardHeap.insertOrDecrease(target, 0.0);
+		double best = source == target ? 0.0 : Double.POSITIVE_INFINITY;
+		int meeting = source == target ? source : -1;
+
+		while (true) {
+			// Each side may stop once its smallest key cannot improve the best meeting
+			boolean forwardDone = forwardHeap.isEmpty() || forwardHeap.peekKey() >= best;
+			boolean backwardDone = backwardHeap.isEmpty() || backwardHeap.peekKey() >= best;
+			if (forwardDone && backwardDone)
+				break;
+
+			boolean forwardStep = !forwardDone && (backwardDone || forwardHeap.peekKey() <= backwardHeap.peekKey());
+			SearchWorkspace side = forwardStep ? forward : backward;
+			SearchWorkspace other = forwardStep ? backward : forward;
+			int[] offsets = forwardStep ? upOffsets : downOffsets;
+			int[] neighbors = forwardStep ? upTargets : downSources;
+			double[] edgeWeights = forwardStep ? upWeights : downWeights;
+
+			int current = side.heap.poll();
+			side.settle(current);
+			double currentDistance = side.getDistance(current);
+			for (int edge = offsets[current]; edge < offsets[current + 1]; edge++) {
+				int neighbor = neighbors[edge];
+				double newDistance = currentDistance + edgeWeights[edge];
+				if (newDistance < side.getDistance(neighbor) && !side.isSettled(neighbor)) {
+					side.reach(neighbor, newDistance, current, edge);
+					side.heap.insertOrDecrease(neighbor, newDistance);
+				}
+				double candidate = newDistance + other.getDistance(neighbor);
+				if (candidate < best) {
+					best = candidate;
+					meeting = neighbor;
+				}
+			}
+		}
+
+		forward.addSettledCount(backward.getSettledCount());
+		if (meeting == -1) {
+			return forward;
+		}
+
+		// Collect the snapshot edges of both halves, then lay them into the forward workspace
+		List<Integer> edges = new ArrayList<>();
+		List<Integer> forwardHalf = new ArrayList<>();
+		for (int at = meeting; at != source; at = forward.getPrevious(at)) {
+			forwardHalf.add(forward.getPreviousEdge(at));
+		}
+		Collections.reverse(forwardHalf);
+		for (int chEdge : forwardHalf) {
+			unpack(upSourceOf(chEdge), upTargets[chEdge], upVia[chEdge], edges);
+		}
+		for (int at = meeting; at != target; at = backward.getPrevious(at)) {
+			int chEdge = backward.getPreviousEdge(at);
+			unpack(at, backward.getPrevious(at), downVia[chEdge], edges);
+		}
+		// With zero-weight cycles the two halves, or two shortcuts, can pass the same station
+		edges = DijkstraSearch.removeLoops(graph, source, edges);
+
+		double[] weights = graph.getWeights(metric);
+		int at = source;
+		for (int edge : edges) {
+			int next = graph.getTarget(edge);
+			forward.reach(next, forward.getDistance(at) + weights[edge], at, edge);
+			at = next;
+		}
+		forward.settle(target);
+		return forward;
+	}
+
+	// Expands an edge into snapshot edges. A shortcut through m becomes the frozen
+	// edge from its tail into m followed by the edge from m to its head.
+	private void unpack(int from, int to, int via, List<Integer> edges) {
+		Deque<int[]> stack = new ArrayDeque<>();
+		stack.push(new int[] { from, to, via });
+		while (!stack.isEmpty()) {
+			int[] item = stack.pop();
+			int middle = item[2];
+			if (middle < 0) {
+				edges.add(-middle - 1);
+				continue;
+			}
+			// Push the second half first so the first half is expanded first
+			stack.push(new int[] { middle, item[1], upViaOf(middle, item[1]) });
+			stack.push(new int[] { item[0], middle, downViaOf(middle, item[0]) });
+		}
+	}
+
+	// Upward edges are grouped by tail, so the tail is found by binary search on the offsets
+	private int upSourceOf(int edge) {
+		int low = 0;
+		int high = rank.length - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (upOffsets[mid] <= edge) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private int upViaOf(int node, int target) {
+		for (int edge = upOffsets[node]; edge < upOffsets[node + 1]; edge++) {
+			if (upTargets[edge] == target)
+				return upVia[edge];
+		}
+		throw new IllegalStateException("Missing upward edge " + node + " -> " + target);
+	}
+
+	private int downViaOf(int node, int source) {
+		for (int edge = downOffsets[node]; edge < downOffsets[node + 1]; edge++) {
+			if (downSources[edge] == source)
+				return downVia[edge];
+		}
+		throw new IllegalStateException("Missing downward edge " + source + " -> " + node);
+	}
+
+	public String getVehicleType() {
+		return vehicleType;
+	}
+
+	public RouteMetric getMetric() {
+		return metric;
+	}
+
+	public int getShortcutCount(RouteGraph graph) {
+		return upTargets.length + downSources.length - graph.getEdgeCount();
+	}
+
+	// True if the hierarchy was built for exactly this snapshot
+	public boolean matches(RouteGraph graph) {
+		return graph.getFingerprint() == fingerprint && graph.getVehicleType().equals(vehicleType)
+				&& rank.length == graph.getStationCount();
+	}
+
+	// Key under which a hierarchy is stored, one per vehicle type and metric
+	static String key(String vehicleType, RouteMetric metric) {
+		return vehicleType + "|" + metric.name();
+	}
+
+	// Reads every hierarchy from the file; a missing or unreadable file yields none
+	static Map<String, ContractionHierarchy> readAll(File file) {
+		Map<String, ContractionHierarchy> hierarchies = new HashMap<>();
+		if (!file.exists())
+			return hierarchies;
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != FILE_MAGIC)
+				return hierarchies;
+			int count = in.readInt();
+			for (int h = 0; h < count; h++) {
+				String vehicleType = in.readUTF();
+				RouteMetric metric = RouteMetric.valueOf(in.readUTF());
+				long fingerprint = in.readLong();
+				int[] rank = readInts(in);
+				int[] upOffsets = readInts(in);
+				int[] upTargets = readInts(in);
+				double[] upWeights = readDoubles(in);
+				int[] upVia = readInts(in);
+				int[] downOffsets = readInts(in);
+				int[] downSources = readInts(in);
+				double[] downWeights = readDoubles(in);
+				int[] downVia = readInts(in);
+				hierarchies.put(key(vehicleType, metric), new ContractionHierarchy(vehicleType, metric, fingerprint,
+						rank, upOffsets, upTargets, upWeights, upVia, downOffsets, downSources, downWeights, downVia));
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			System.out.println("Warning: Ignoring unreadable hierarchy file " + file + ": " + e);
+			hierarchies.clear();
+		}
+		return hierarchies;
+	}
+
+	static void writeAll(File file, Collection<ContractionHierarchy> hierarchies) {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(hierarchies.size());
+			for (ContractionHierarchy hierarchy : hierarchies) {
+				out.writeUTF(hierarchy.vehicleType);
+				out.writeUTF(hierarchy.metric.name());
+				out.writeLong(hierarchy.fingerprint);
+				writeInts(out, hierarchy.rank);
+				writeInts(out, hierarchy.upOffsets);
+				writeInts(out, hierarchy.upTargets);
+				writeDoubles(out, hierarchy.upWeights);
+				writeInts(out, hierarchy.upVia);
+				writeInts(out, hierarchy.downOffsets);
+				writeInts(out, hierarchy.downSources);
+				writeDoubles(out, hierarchy.downWeights);
+				writeInts(out, hierarchy.downVia);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static int[] readInts(DataInputStream in) throws IOException {
+		int[] values = new int[in.readInt()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = in.readInt();
+		}
+		return values;
+	}
+
+	private static double[] readDoubles(DataInputStream in) throws IOException {
+		double[] values = new double[in.readInt()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = in.readDouble();
+		}
+		return values;
+	}
+
+	private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+		out.writeInt(values.length);
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+		out.writeInt(values.length);
+		for (double value : values) {
+			out.writeDouble(value);
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Single Dijkstra kernel shared by every route mode. The metric only selects
+// which weight column of the snapshot is relaxed.
+final class DijkstraSearch {
+
+	private DijkstraSearch() {
+	}
+
+	// Searches from source until target is settled (or the whole reachable network
+	// when target is -1). The returned workspace belongs to the calling thread.
+	static SearchWorkspace run(RouteGraph graph, int source, int target, RouteMetric metric) {
+		double[] weights = graph.getWeights(metric);
+		boolean positiveOnly = metric.requiresPositiveWeight();
+		SearchWorkspace workspace = SearchWorkspace.acquire(graph.getStationCount());
+		IndexedHeap heap = workspace.heap;
+
+		workspace.reach(source, 0.0, -1, -1);
+		heap.insertOrDecrease(source, 0.0);
+
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			workspace.settle(current);
+
+			// Stop if we reach the destination
+			if (current == target)
+				break;
+
+			double currentDistance = workspace.getDistance(current);
+			for (int edge = graph.edgeStart(current), end = graph.edgeEnd(current); edge < end; edge++) {
+				double weight = weights[edge];
+				if (positiveOnly && weight <= 0)
+					continue;
+
+				int neighbor = graph.getTarget(edge);
+				double newDistance = currentDistance + weight;
+				if (newDistance < workspace.getDistance(neighbor) && !workspace.isSettled(neighbor)) {
+					workspace.reach(neighbor, newDistance, current, edge);
+					heap.insertOrDecrease(neighbor, newDistance);
+				}
+			}
+		}
+		return workspace;
+	}
+
+	// One-to-many search that stops as soon as every station flagged in isTarget is
+	// settled. targetCount is the number of flagged stations; the flags are only read,
+	// so one array can be shared by searches running on several threads.
+	static SearchWorkspace runToTargets(RouteGraph graph, int source, boolean[] isTarget, int targetCount,
+			RouteMetric metric) {
+		return runToTargets(graph, source, isTarget, targetCount, graph.getWeights(metric),
+				metric.requiresPositiveWeight());
+	}
+
+	// Same over any weight column, e.g. a CompositeMetric blend
+	static SearchWorkspace runToTargets(RouteGraph graph, int source, boolean[] isTarget, int targetCount,
+			double[] weights, boolean positiveOnly) {
+		SearchWorkspace workspace = SearchWorkspace.acquire(graph.getStationCount());
+		IndexedHeap heap = workspace.heap;
+
+		workspace.reach(source, 0.0, -1, -1);
+		heap.insertOrDecrease(source, 0.0);
+
+		int remaining = targetCount;
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			workspace.settle(current);
+
+			if (isTarget[current] && --remaining == 0)
+				break;
+
+			double currentDistance = workspace.getDistance(current);
+			for (int edge = graph.edgeStart(current), end = graph.edgeEnd(current); edge < end; edge++) {
+				double weight = weights[edge];
+				if (positiveOnly && weight <= 0)
+					continue;
+
+				int neighbor = graph.getTarget(edge);
+				double newDistance = currentDistance + weight;
+				if (newDistance < workspace.getDistance(neighbor) && !workspace.isSettled(neighbor)) {
+					workspace.reach(neighbor, newDistance, current, edge);
+					heap.insertOrDecrease(neighbor, newDistance);
+				}
+			}
+		}
+		return workspace;
+	}
+
+	// Searches the reverse index from target, so the workspace distances are the
+	// lengths of the best paths from every station to target. Previous nodes point
+	// one hop closer to target.
+	static SearchWorkspace runBackward(RouteGraph graph, int target, RouteMetric metric) {
+		double[] weights = graph.getWeights(metric);
+		boolean positiveOnly = metric.requiresPositiveWeight();
+		SearchWorkspace workspace = SearchWorkspace.acquireBackward(graph.getStationCount());
+		IndexedHeap heap = workspace.heap;
+
+		workspace.reach(target, 0.0, -1, -1);
+		heap.insertOrDecrease(target, 0.0);
+
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			workspace.settle(current);
+
+			double currentDistance = workspace.getDistance(current);
+			int end = graph.reverseEdgeEnd(current);
+			for (int slot = graph.reverseEdgeStart(current); slot < end; slot++) {
+				int edge = graph.getReverseEdge(slot);
+				double weight = weights[edge];
+				if (positiveOnly && weight <= 0)
+					continue;
+
+				int neighbor = graph.getReverseSource(slot);
+				double newDistance = currentDistance + weight;
+				if (newDistance < workspace.getDistance(neighbor) && !workspace.isSettled(neighbor)) {
+					workspace.reach(neighbor, newDistance, current, edge);
+					heap.insertOrDecrease(neighbor, newDistance);
+				}
+			}
+		}
+		return workspace;
+	}
+
+	// Cuts the loops out of a path given as edges from source. Paths joined from several
+	// pieces can pass the same station twice when routes have zero weight; the loop
+	// adds nothing, so removing it keeps the path simple without making it longer.
+	static List<Integer> removeLoops(RouteGraph graph, int source, List<Integer> edges) {
+		Map<Integer, Integer> position = new HashMap<>();
+		List<Integer> simple = new ArrayList<>();
+		position.put(source, 0);
+		for (int edge : edges) {
+			int next = graph.getTarget(edge);
+			Integer seen = position.get(next);
+			if (seen == null) {
+				simple.add(edge);
+				position.put(next, simple.size());
+				continue;
+			}
+			while (simple.size() > seen) {
+				position.remove(graph.getTarget(simple.remove(simple.size() - 1)));
+			}
+		}
+		return simple;
+	}
+}
@@ -0,0 +1,379 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Nested multi-level partition of a snapshot's stations into cells, used by CellOverlay.
+// It depends only on which stations are connected, not on distances, costs or traffic,
+// so it is shared by all metrics of a vehicle type and survives weight updates.
+//
+// Stations carry no coordinates, so cells come from size-constrained label propagation
+// on the undirected route graph: every station repeatedly joins the neighbouring cell it
+// has the most routes to, as long as that cell stays within the level's size limit.
+// Each level above repeats this on the graph of the cells below, so cells nest.
+final class GraphPartition {
+	// Stations per cell on level 1; every level above allows LEVEL_GROWTH times more
+	static final int DEFAULT_CELL_SIZE = 128;
+	private static final int LEVEL_GROWTH = 8;
+	private static final int MAX_LEVELS = 4;
+	private static final int PROPAGATION_ROUNDS = 16;
+	private static final int MERGE_PASSES = 8;
+
+	// The snapshot the partition was built for; weight-only copies share its structure
+	private final RouteGraph structure;
+	private final int levelCount;
+	// cells[level - 1][station]
+	private final int[][] cells;
+	private final int[] cellCounts;
+	// Boundary stations per level, grouped by cell. Entries have a route coming in from
+	// another cell, exits a route leaving to one; entryIndex holds each station's
+	// position among its cell's entries, or -1.
+	private final int[][] entryOffsets;
+	private final int[][] entryStations;
+	private final int[][] entryIndex;
+	private final int[][] exitOffsets;
+	private final int[][] exitStations;
+	// Highest level on which an edge crosses from one cell into another, 0 if it never does
+	private final byte[] cutLevels;
+
+	private GraphPartition(RouteGraph structure, int[][] cells) {
+		this.structure = structure;
+		this.levelCount = cells.length;
+		this.cells = cells;
+		int stationCount = structure.getStationCount();
+		cellCounts = new int[levelCount];
+		entryOffsets = new int[levelCount][];
+		entryStations = new int[levelCount][];
+		entryIndex = new int[levelCount][];
+		exitOffsets = new int[levelCount][];
+		exitStations = new int[levelCount][];
+
+		for (int level = 0; level < levelCount; level++) {
+			int[] cell = cells[level];
+			for (int station = 0; station < stationCount; station++) {
+				cellCounts[level] = Math.max(cellCounts[level], cell[station] + 1);
+			}
+			boolean[] entry = new boolean[stationCount];
+			boolean[] exit = new boolean[stationCount];
+			for (int station = 0; station < stationCount; station++) {
+				for (int edge = structure.edgeStart(station); edge < structure.edgeEnd(station); edge++) {
+					int target = structure.getTarget(edge);
+					if (cell[target] != cell[station]) {
+						exit[station] = true;
+						entry[target] = true;
+					}
+				}
+			}
+			entryOffsets[level] = new int[cellCounts[level] + 1];
+			entryIndex[level] = new int[stationCount];
+			entryStations[level] = group(cell, entry, entryOffsets[level], entryIndex[level]);
+			exitOffsets[level] = new int[cellCounts[level] + 1];
+			exitStations[level] = group(cell, exit, exitOffsets[level], new int[stationCount]);
+		}
+
+		cutLevels = new byte[structure.getEdgeCount()];
+		for (int station = 0; station < stationCount; station++) {
+			for (int edge = structure.edgeStart(station); edge < structure.edgeEnd(station); edge++) {
+				int target = structure.getTarget(edge);
+				for (int level = levelCount; level > 0; level--) {
+					if (cells[level - 1][station] != cells[level - 1][target]) {
+						cutLevels[edge] = (byte) level;
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	// Counting sort of the flagged stations by cell; fills offsets and index, returns the stations
+	private static int[] group(int[] cell, boolean[] flagged, int[] offsets, int[] index) {
+		int cellCount = offsets.length - 1;
+		for (int station = 0; station < cell.length; station++) {
+			if (flagged[station])
+				offsets[cell[station] + 1]++;
+		}
+		for (int c = 0; c < cellCount; c++) {
+			offsets[c + 1] += offsets[c];
+		}
+		int[] stations = new int[offsets[cellCount]];
+		int[] next = Arrays.copyOf(offsets, cellCount);
+		Arrays.fill(index, -1);
+		for (int station = 0; station < cell.length; station++) {
+			if (flagged[station]) {
+				int slot = next[cell[station]]++;
+				stations[slot] = station;
+				index[station] = slot - offsets[cell[station]];
+			}
+		}
+		return stations;
+	}
+
+	// Partitions the snapshot bottom-up. Levels are added while they still merge cells;
+	// a level that would put every connected station into one cell is left out, it could never be used.
+	static GraphPartition build(RouteGraph graph, int cellSize) {
+		int stationCount = graph.getStationCount();
+		// Seeded so the same network always gets the same cells
+		Random random = new Random(stationCount);
+		List<int[]> levels = new ArrayList<>();
+
+		// Units start as single stations and become the previous level's cells
+		int[] unitOf = new int[stationCount];
+		for (int station = 0; station < stationCount; station++) {
+			unitOf[station] = station;
+		}
+		int unitCount = stationCount;
+		int[] unitSizes = new int[stationCount];
+		Arrays.fill(unitSizes, 1);
+		long sizeLimit = cellSize;
+
+		while (levels.size() < MAX_LEVELS && unitCount > 1) {
+			int[] cell = cluster(graph, unitOf, unitCount, unitSizes, sizeLimit, random);
+			int cellCount = 0;
+			for (int station = 0; station < stationCount; station++) {
+				cellCount = Math.max(cellCount, cell[station] + 1);
+			}
+			if (cellCount <= 1 || cellCount == unitCount || !hasRoutesBetweenCells(graph, cell))
+				break;
+
+			int[] sizes = new int[cellCount];
+			for (int station = 0; station < stationCount; station++) {
+				sizes[cell[station]]++;
+			}
+			levels.add(cell);
+			unitOf = cell;
+			unitCount = cellCount;
+			unitSizes = sizes;
+			sizeLimit *= LEVEL_GROWTH;
+		}
+		return new GraphPartition(graph, levels.toArray(new int[0][]));
+	}
+
+	// Single-level split of the snapshot into cells of at most sizeLimit stations.
+	// Returns each station's cell, numbered from 0.
+	static int[] cluster(RouteGraph graph, int sizeLimit) {
+		int stationCount = graph.getStationCount();
+		int[] unitOf = new int[stationCount];
+		for (int station = 0; station < stationCount; station++) {
+			unitOf[station] = station;
+		}
+		int[] unitSizes = new int[stationCount];
+		Arrays.fill(unitSizes, 1);
+		return cluster(graph, unitOf, stationCount, unitSizes, sizeLimit, new Random(stationCount));
+	}
+
+	// Groups units (stations, or the cells of the level below) into cells of at most
+	// sizeLimit stations. Propagation alone stops at many small cells, so the cells it
+	// finds are propagated again as units under the same limit until they stop merging.
+	private static int[] cluster(RouteGraph graph, int[] unitOf, int unitCount, int[] unitSizes, long sizeLimit,
+			Random random) {
+		int stationCount = graph.getStationCount();
+		int[] cell = unitOf;
+		int[] sizes = unitSizes;
+		int cellCount = unitCount;
+		for (int pass = 0; pass < MERGE_PASSES; pass++) {
+			int[][] adjacency = contract(graph, cell, cellCount);
+			int[] labels = propagate(adjacency[0], adjacency[1], adjacency[2], sizes, sizeLimit, random);
+			int labelCount = 0;
+			for (int label : labels) {
+				labelCount = Math.max(labelCount, label + 1);
+			}
+			if (labelCount == cellCount)
+				break;
+			int[] merged = new int[stationCount];
+			sizes = new int[labelCount];
+			for (int station = 0; station < stationCount; station++) {
+				merged[station] = labels[cell[station]];
+				sizes[merged[station]]++;
+			}
+			boolean converged = labelCount > cellCount * 0.95;
+			cell = merged;
+			cellCount = labelCount;
+			if (converged)
+				break;
+		}
+		return cell;
+	}
+
+	// Cells without a route between them are separate components; such a level has no
+	// boundary stations and would never shorten a search
+	private static boolean hasRoutesBetweenCells(RouteGraph graph, int[] cell) {
+		for (int station = 0; station < graph.getStationCount(); station++) {
+			for (int edge = graph.edgeStart(station); edge < graph.edgeEnd(station); edge++) {
+				if (cell[graph.getTarget(edge)] != cell[station])
+					return true;
+			}
+		}
+		return false;
+	}
+
+	// Undirected graph between units, weighted by the number of routes joining them.
+	// Returns { offsets, neighbors, weights }.
+	private static int[][] contract(RouteGraph graph, int[] unitOf, int unitCount) {
+		long[] pairs = new long[graph.getEdgeCount() * 2];
+		int pairCount = 0;
+		for (int station = 0; station < graph.getStationCount(); station++) {
+			for (int edge = graph.edgeStart(station); edge < graph.edgeEnd(station); edge++) {
+				int from = unitOf[station];
+				int to = unitOf[graph.getTarget(edge)];
+				if (from != to) {
+					pairs[pairCount++] = ((long) from << 32) | to;
+					pairs[pairCount++] = ((long) to << 32) | from;
+				}
+			}
+		}
+		Arrays.sort(pairs, 0, pairCount);
+
+		int[] offsets = new int[unitCount + 1];
+		int[] neighbors = new int[pairCount];
+		int[] weights = new int[pairCount];
+		int size = 0;
+		for (int i = 0; i < pairCount; i++) {
+			if (size > 0 && pairs[i] == pairs[i - 1]) {
+				weights[size - 1]++;
+				continue;
+			}
+			offsets[(int) (pairs[i] >>> 32) + 1]++;
+			neighbors[size] = (int) pairs[i];
+			weights[size] = 1;
+			size++;
+		}
+		for (int unit = 0; unit < unitCount; unit++) {
+			offsets[unit + 1] += offsets[unit];
+		}
+		return new int[][] { offsets, Arrays.copyOf(neighbors, size), Arrays.copyOf(weights, size) };
+	}
+
+	// Size-constrained label propagation. Every unit starts with its own label and moves to
+	// the neighbouring label with the heaviest connection that still has room, until no unit
+	// moves. Returns labels renumbered to 0..k-1.
+	private static int[] propagate(int[] offsets, int[] neighbors, int[] weights, int[] unitSizes, long sizeLimit,
+			Random random) {
+		int unitCount = unitSizes.length;
+		int[] labels = new int[unitCount];
+		long[] labelSizes = new long[unitCount];
+		int[] order = new int[unitCount];
+		for (int unit = 0; unit < unitCount; unit++) {
+			labels[unit] = unit;
+			labelSizes[unit] = unitSizes[unit];
+			order[unit] = unit;
+		}
+		for (int i = unitCount - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+
+		int[] connection = new int[unitCount];
+		int[] touched = new int[unitCount];
+		for (int round = 0; round < PROPAGATION_ROUNDS; round++) {
+			int moved = 0;
+			for (int unit : order) {
+				int touchedCount = 0;
+				for (int i = offsets[unit]; i < offsets[unit + 1]; i++) {
+					int label = labels[neighbors[i]];
+					if (connection[label] == 0)
+						touched[touchedCount++] = label;
+					connection[label] += weights[i];
+				}
+
+				int own = labels[unit];
+				int best = own;
+				int bestConnection = connection[own];
+				for (int i = 0; i < touchedCount; i++) {
+					int label = touched[i];
+					// Ties keep the current label, so the labels settle instead of oscillating
+					if (connection[label] > bestConnection && labelSizes[label] + unitSizes[unit] <= sizeLimit) {
+						best = label;
+						bestConnection = connection[label];
+					}
+					connection[label] = 0;
+				}
+				if (best != own) {
+					labelSizes[own] -= unitSizes[unit];
+					labelSizes[best] += unitSizes[unit];
+					labels[unit] = best;
+					moved++;
+				}
+			}
+			if (moved == 0)
+				break;
+		}
+
+		int[] renumbered = new int[unitCount];
+		Arrays.fill(renumbered, -1);
+		int next = 0;
+		for (int unit = 0; unit < unitCount; unit++) {
+			if (renumbered[labels[unit]] == -1)
+				renumbered[labels[unit]] = next++;
+			labels[unit] = renumbered[labels[unit]];
+		}
+		return labels;
+	}
+
+	// True if the partition was built for this snapshot or a weight-only copy of it
+	public boolean matches(RouteGraph graph) {
+		return graph.hasSameStructure(structure);
+	}
+
+	public int getLevelCount() {
+		return levelCount;
+	}
+
+	public int getCellCount(int level) {
+		return cellCounts[level - 1];
+	}
+
+	public int getCell(int level, int station) {
+		return cells[level - 1][station];
+	}
+
+	public int getCutLevel(int edge) {
+		return cutLevels[edge];
+	}
+
+	public int entryStart(int level, int cell) {
+		return entryOffsets[level - 1][cell];
+	}
+
+	public int entryEnd(int level, int cell) {
+		return entryOffsets[level - 1][cell + 1];
+	}
+
+	public int getEntryStation(int level, int slot) {
+		return entryStations[level - 1][slot];
+	}
+
+	// Position of the station among its cell's entries, or -1 if it is not an entry
+	public int getEntryIndex(int level, int station) {
+		return entryIndex[level - 1][station];
+	}
+
+	public int exitStart(int level, int cell) {
+		return exitOffsets[level - 1][cell];
+	}
+
+	public int exitEnd(int level, int cell) {
+		return exitOffsets[level - 1][cell + 1];
+	}
+
+	public int getExitStation(int level, int slot) {
+		return exitStations[level - 1][slot];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder cellsPerLevel = new StringBuilder();
+		StringBuilder boundaryPerLevel = new StringBuilder();
+		for (int level = 1; level <= levelCount; level++) {
+			String separator = level == 1 ? "" : ", ";
+			cellsPerLevel.append(separator).append(getCellCount(level));
+			boundaryPerLevel.append(separator).append(entryStations[level - 1].length + exitStations[level - 1].length);
+		}
+		return "GraphPartition{" + "vehicleType='" + structure.getVehicleType() + '\'' + ", stations="
+				+ structure.getStationCount() + ", cells=[" + cellsPerLevel + "], boundaryStations=[" + boundaryPerLevel
+				+ "]}";
+	}
+}
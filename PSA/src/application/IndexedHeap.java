@@ -0,0 +1,113 @@
+package application;
+
+import java.util.Arrays;
+
+// Primitive min-heap of station IDs keyed by tentative distance. Every station
+// has at most one entry, and its position is tracked so keys can be decreased
+// in place instead of pushing duplicates.
+final class IndexedHeap {
+	private static final int ARITY = 4;
+
+	private int[] nodes;
+	private double[] keys;
+	private int[] positions;
+	private int size;
+
+	IndexedHeap(int capacity) {
+		nodes = new int[capacity];
+		keys = new double[capacity];
+		positions = new int[capacity];
+		Arrays.fill(positions, -1);
+	}
+
+	// Grows the backing arrays; only allocates when the graph got bigger
+	void ensureCapacity(int capacity) {
+		if (capacity <= positions.length)
+			return;
+		int oldLength = positions.length;
+		nodes = Arrays.copyOf(nodes, capacity);
+		keys = Arrays.copyOf(keys, capacity);
+		positions = Arrays.copyOf(positions, capacity);
+		Arrays.fill(positions, oldLength, capacity, -1);
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	boolean contains(int node) {
+		return positions[node] != -1;
+	}
+
+	double peekKey() {
+		return keys[0];
+	}
+
+	// Inserts the station, or lowers its key if it is already queued with a larger one
+	void insertOrDecrease(int node, double key) {
+		int position = positions[node];
+		if (position == -1) {
+			position = size++;
+		} else if (key >= keys[position]) {
+			return;
+		}
+		siftUp(position, node, key);
+	}
+
+	// Removes and returns the station with the smallest key
+	int poll() {
+		int top = nodes[0];
+		positions[top] = -1;
+		size--;
+		if (size > 0) {
+			siftDown(0, nodes[size], keys[size]);
+		}
+		return top;
+	}
+
+	// Empties the heap, touching only the entries that are still queued
+	void clear() {
+		for (int i = 0; i < size; i++) {
+			positions[nodes[i]] = -1;
+		}
+		size = 0;
+	}
+
+	private void siftUp(int position, int node, double key) {
+		while (position > 0) {
+			int parent = (position - 1) / ARITY;
+			if (keys[parent] <= key)
+				break;
+			place(position, nodes[parent], keys[parent]);
+			position = parent;
+		}
+		place(position, node, key);
+	}
+
+	private void siftDown(int position, int node, double key) {
+		while (true) {
+			int firstChild = position * ARITY + 1;
+			if (firstChild >= size)
+				break;
+
+			// Pick the smallest of up to ARITY children
+			int lastChild = Math.min(firstChild + ARITY, size);
+			int best = firstChild;
+			for (int child = firstChild + 1; child < lastChild; child++) {
+				if (keys[child] < keys[best])
+					best = child;
+			}
+			if (keys[best] >= key)
+				break;
+			place(position, nodes[best], keys[best]);
+			position = best;
+		}
+		place(position, node, key);
+	}
+
+	private void place(int position, int node, double key) {
+		nodes[position] = node;
+		keys[position] = key;
+		positions[node] = position;
+	}
+}
@@ -0,0 +1,93 @@
+package application;
+
+import java.util.Arrays;
+
+// Every station reachable from one origin within a budget of a metric, in order
+// of increasing accumulated value. Station IDs refer to the snapshot the search
+// ran on; the origin itself comes first with value 0.
+final class Isochrone {
+	private final RouteGraph graph;
+	private final RouteMetric metric;
+	private final double budget;
+	private final int[] stations;
+	private final double[] values;
+
+	private Isochrone(RouteGraph graph, RouteMetric metric, double budget, int[] stations, double[] values) {
+		this.graph = graph;
+		this.metric = metric;
+		this.budget = budget;
+		this.stations = stations;
+		this.values = values;
+	}
+
+	// Bounded one-to-all search: stations are settled in order of value and the
+	// search stops at the first one beyond the budget
+	static Isochrone compute(RouteGraph graph, int origin, RouteMetric metric, double budget) {
+		double[] weights = graph.getWeights(metric);
+		boolean positiveOnly = metric.requiresPositiveWeight();
+		SearchWorkspace workspace = SearchWorkspace.acquire(graph.getStationCount());
+		IndexedHeap heap = workspace.heap;
+
+		int[] stations = new int[16];
+		double[] values = new double[16];
+		int count = 0;
+
+		workspace.reach(origin, 0.0, -1, -1);
+		heap.insertOrDecrease(origin, 0.0);
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			workspace.settle(current);
+
+			double currentValue = workspace.getDistance(current);
+			if (count == stations.length) {
+				stations = Arrays.copyOf(stations, count * 2);
+				values = Arrays.copyOf(values, count * 2);
+			}
+			stations[count] = current;
+			values[count] = currentValue;
+			count++;
+
+			for (int edge = graph.edgeStart(current), end = graph.edgeEnd(current); edge < end; edge++) {
+				double weight = weights[edge];
+				if (positiveOnly && weight <= 0)
+					continue;
+
+				// Stations beyond the budget are never queued, so the heap stays small
+				int neighbor = graph.getTarget(edge);
+				double newValue = currentValue + weight;
+				if (newValue <= budget && newValue < workspace.getDistance(neighbor)
+						&& !workspace.isSettled(neighbor)) {
+					workspace.reach(neighbor, newValue, current, edge);
+					heap.insertOrDecrease(neighbor, newValue);
+				}
+			}
+		}
+		return new Isochrone(graph, metric, budget, Arrays.copyOf(stations, count), Arrays.copyOf(values, count));
+	}
+
+	public RouteMetric getMetric() {
+		return metric;
+	}
+
+	public double getBudget() {
+		return budget;
+	}
+
+	public int size() {
+		return stations.length;
+	}
+
+	// Snapshot station IDs, ordered by accumulated value
+	public int[] getStations() {
+		return stations;
+	}
+
+	// Accumulated metric value for each entry of getStations()
+	public double[] getValues() {
+		return values;
+	}
+
+	public String getStationName(int index) {
+		return graph.getStationName(stations[index]);
+	}
+}
@@ -0,0 +1,248 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Yen's k shortest loopless paths, produced lazily in order of total weight.
+// The reverse shortest-path tree to the target is computed once: it gives the
+// first path directly and serves as an exact A* bound for every spur search,
+// so a spur that can rejoin the tree settles only a handful of stations.
+final class KShortestPaths implements Iterator<KShortestPaths.Path> {
+
+	// One loopless path as stations and the snapshot edges between them
+	static final class Path {
+		private final int[] stations;
+		private final int[] edges;
+		private final double weight;
+
+		private Path(int[] stations, int[] edges, double weight) {
+			this.stations = stations;
+			this.edges = edges;
+			this.weight = weight;
+		}
+
+		public int[] getStations() {
+			return stations;
+		}
+
+		public int[] getEdges() {
+			return edges;
+		}
+
+		public double getWeight() {
+			return weight;
+		}
+	}
+
+	private final RouteGraph graph;
+	private final RouteMetric metric;
+	private final double[] weights;
+	private final int target;
+
+	// Reverse shortest-path tree: distance to target and the next edge towards it
+	private final double[] toTarget;
+	private final int[] treeEdge;
+
+	private final List<Path> accepted = new ArrayList<>();
+	private final PriorityQueue<Path> candidates = new PriorityQueue<>((a, b) -> Double.compare(a.weight, b.weight));
+	private final Set<List<Integer>> seen = new HashSet<>();
+
+	private KShortestPaths(RouteGraph graph, int source, int target, RouteMetric metric) {
+		this.graph = graph;
+		this.metric = metric;
+		this.weights = graph.getWeights(metric);
+		this.target = target;
+
+		// Copy the tree out of the thread's workspace; spur searches reuse that workspace
+		SearchWorkspace tree = DijkstraSearch.runBackward(graph, target, metric);
+		int stationCount = graph.getStationCount();
+		toTarget = new double[stationCount];
+		treeEdge = new int[stationCount];
+		for (int station = 0; station < stationCount; station++) {
+			toTarget[station] = tree.getDistance(station);
+			treeEdge[station] = tree.getPreviousEdge(station);
+		}
+
+		if (toTarget[source] < Double.POSITIVE_INFINITY) {
+			Path first = followTree(new int[] { source }, new int[0], 0.0);
+			candidates.add(first);
+			seen.add(key(first.stations));
+		}
+	}
+
+	// Starts the enumeration; nothing beyond the reverse tree is computed until next() is called
+	static KShortestPaths start(RouteGraph graph, int source, int target, RouteMetric metric) {
+		return new KShortestPaths(graph, source, target, metric);
+	}
+
+	// Convenience for callers that want a fixed number of paths
+	static List<Path> find(RouteGraph graph, int source, int target, RouteMetric metric, int k) {
+		KShortestPaths paths = start(graph, source, target, metric);
+		List<Path> result = new ArrayList<>();
+		while (result.size() < k && paths.hasNext()) {
+			result.add(paths.next());
+		}
+		return result;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return !candidates.isEmpty();
+	}
+
+	// Returns the next shortest path and queues the spur candidates that branch off it
+	@Override
+	public Path next() {
+		Path path = candidates.poll();
+		if (path == null)
+			throw new NoSuchElementException();
+		accepted.add(path);
+
+		// Spur searches are independent of each other; each thread uses its own workspace
+		List<Path> spurs = IntStream.range(0, path.stations.length - 1).parallel()
+				.mapToObj(spurIndex -> spur(path, spurIndex)).filter(spur -> spur != null)
+				.collect(Collectors.toList());
+		for (Path spur : spurs) {
+			if (seen.add(key(spur.stations)))
+				candidates.add(spur);
+		}
+		return path;
+	}
+
+	// Best path that shares the first spurIndex + 1 stations with path and then
+	// leaves it through a station none of the accepted paths with that prefix used
+	private Path spur(Path path, int spurIndex) {
+		int spurNode = path.stations[spurIndex];
+		int[] blockedNext = blockedNextStations(path, spurIndex);
+
+		double rootWeight = 0.0;
+		for (int i = 0; i < spurIndex; i++) {
+			rootWeight += weights[path.edges[i]];
+		}
+
+		SearchWorkspace workspace = SearchWorkspace.acquire(graph.getStationCount());
+		IndexedHeap heap = workspace.heap;
+		boolean positiveOnly = metric.requiresPositiveWeight();
+
+		// Root stations count as settled so the spur cannot loop back through them
+		for (int i = 0; i < spurIndex; i++) {
+			workspace.settle(path.stations[i]);
+		}
+		workspace.reach(spurNode, 0.0, -1, -1);
+		heap.insertOrDecrease(spurNode, toTarget[spurNode]);
+
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			workspace.settle(current);
+
+			// The tree path from here is optimal if it avoids the root; the A* key already
+			// equals its length, so following it is exact whenever that holds
+			if (current == target || (current != spurNode && treeAvoidsSettled(workspace, current)))
+				return join(path, spurIndex, rootWeight, workspace, current);
+
+			double currentDistance = workspace.getDistance(current);
+			for (int edge = graph.edgeStart(current), end = graph.edgeEnd(current); edge < end; edge++) {
+				double weight = weights[edge];
+				if (positiveOnly && weight <= 0)
+					continue;
+
+				int neighbor = graph.getTarget(edge);
+				if (current == spurNode && contains(blockedNext, neighbor))
+					continue;
+				double bound = toTarget[neighbor];
+				if (bound == Double.POSITIVE_INFINITY)
+					continue;
+				double newDistance = currentDistance + weight;
+				if (newDistance < workspace.getDistance(neighbor) && !workspace.isSettled(neighbor)) {
+					workspace.reach(neighbor, newDistance, current, edge);
+					heap.insertOrDecrease(neighbor, newDistance + bound);
+				}
+			}
+		}
+		return null;
+	}
+
+	// Next stations already taken from the spur node by accepted paths with the same root
+	private int[] blockedNextStations(Path path, int spurIndex) {
+		int[] blocked = new int[accepted.size()];
+		int count = 0;
+		for (Path other : accepted) {
+			if (other.stations.length > spurIndex + 1
+					&& Arrays.equals(other.stations, 0, spurIndex + 1, path.stations, 0, spurIndex + 1))
+				blocked[count++] = other.stations[spurIndex + 1];
+		}
+		return Arrays.copyOf(blocked, count);
+	}
+
+	private static boolean contains(int[] values, int value) {
+		for (int candidate : values) {
+			if (candidate == value)
+				return true;
+		}
+		return false;
+	}
+
+	// True if the tree path from station to target touches no settled or root station
+	private boolean treeAvoidsSettled(SearchWorkspace workspace, int station) {
+		for (int at = station; at != target;) {
+			int edge = treeEdge[at];
+			at = graph.getTarget(edge);
+			if (workspace.isSettled(at))
+				return false;
+		}
+		return true;
+	}
+
+	// Root of path up to the spur, the searched part up to junction, then the tree to target
+	private Path join(Path path, int spurIndex, double rootWeight, SearchWorkspace workspace, int junction) {
+		int searchedHops = 0;
+		for (int at = junction; workspace.getPrevious(at) != -1; at = workspace.getPrevious(at)) {
+			searchedHops++;
+		}
+		int[] stations = new int[spurIndex + 1 + searchedHops];
+		int[] edges = new int[spurIndex + searchedHops];
+		System.arraycopy(path.stations, 0, stations, 0, spurIndex + 1);
+		System.arraycopy(path.edges, 0, edges, 0, spurIndex);
+		int at = junction;
+		for (int i = searchedHops; i > 0; i--) {
+			stations[spurIndex + i] = at;
+			edges[spurIndex + i - 1] = workspace.getPreviousEdge(at);
+			at = workspace.getPrevious(at);
+		}
+		return followTree(stations, edges, rootWeight + workspace.getDistance(junction));
+	}
+
+	// Extends a partial path along the reverse tree until it reaches the target
+	private Path followTree(int[] stations, int[] edges, double weight) {
+		int hops = 0;
+		for (int at = stations[stations.length - 1]; at != target; at = graph.getTarget(treeEdge[at])) {
+			hops++;
+		}
+		int[] fullStations = Arrays.copyOf(stations, stations.length + hops);
+		int[] fullEdges = Arrays.copyOf(edges, edges.length + hops);
+		int at = stations[stations.length - 1];
+		for (int i = 0; i < hops; i++) {
+			int edge = treeEdge[at];
+			fullEdges[edges.length + i] = edge;
+			at = graph.getTarget(edge);
+			fullStations[stations.length + i] = at;
+		}
+		return new Path(fullStations, fullEdges, weight + toTarget[stations[stations.length - 1]]);
+	}
+
+	private static List<Integer> key(int[] stations) {
+		List<Integer> key = new ArrayList<>(stations.length);
+		for (int station : stations) {
+			key.add(station);
+		}
+		return key;
+	}
+}
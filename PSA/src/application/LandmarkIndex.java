@@ -0,0 +1,276 @@
+package application;
+
+import java.io.*;
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Landmark distance tables for one vehicle type and metric. For every landmark L
+// it stores d(L, v) and d(v, L) for all stations, which by the triangle inequality
+// give lower bounds on d(v, t) that steer A* towards the destination.
+final class LandmarkIndex {
+	private static final int FILE_MAGIC = 0x4C4D4B31; // "LMK1"
+	private static final long SELECTION_SEED = 42L;
+
+	private final String vehicleType;
+	private final RouteMetric metric;
+	private final long fingerprint;
+	private final int[] landmarks;
+	private final double[][] fromLandmark;
+	private final double[][] toLandmark;
+
+	private LandmarkIndex(String vehicleType, RouteMetric metric, long fingerprint, int[] landmarks,
+			double[][] fromLandmark, double[][] toLandmark) {
+		this.vehicleType = vehicleType;
+		this.metric = metric;
+		this.fingerprint = fingerprint;
+		this.landmarks = landmarks;
+		this.fromLandmark = fromLandmark;
+		this.toLandmark = toLandmark;
+	}
+
+	// Selects the landmarks and computes both distance tables for the snapshot
+	static LandmarkIndex build(RouteGraph graph, RouteMetric metric, int landmarkCount, LandmarkSelection selection) {
+		int stationCount = graph.getStationCount();
+		int count = Math.min(landmarkCount, stationCount);
+		int[] landmarks = new int[count];
+		double[][] fromLandmark = new double[count][];
+
+		// Selection is sequential because each choice depends on the tables built so far
+		Random random = new Random(SELECTION_SEED);
+		for (int i = 0; i < count; i++) {
+			int landmark = selection == LandmarkSelection.FARTHEST
+					? selectFarthest(graph, metric, landmarks, fromLandmark, i, random)
+					: selectAvoid(graph, metric, landmarks, fromLandmark, i, random);
+			landmarks[i] = landmark;
+			fromLandmark[i] = distances(DijkstraSearch.run(graph, landmark, -1, metric), stationCount);
+		}
+
+		// The reverse tables are independent of each other
+		double[][] toLandmark = new double[count][];
+		IntStream.range(0, count).parallel().forEach(i -> toLandmark[i] = distances(
+				DijkstraSearch.runBackward(graph, landmarks[i], metric), stationCount));
+
+		return new LandmarkIndex(graph.getVehicleType(), metric, graph.getFingerprint(), landmarks, fromLandmark,
+				toLandmark);
+	}
+
+	private static double[] distances(SearchWorkspace search, int stationCount) {
+		double[] result = new double[stationCount];
+		for (int node = 0; node < stationCount; node++) {
+			result[node] = search.getDistance(node);
+		}
+		return result;
+	}
+
+	// Picks the station whose nearest chosen landmark is farthest away. Stations no
+	// landmark reaches win outright, so every connected region gets covered.
+	private static int selectFarthest(RouteGraph graph, RouteMetric metric, int[] landmarks,
+			double[][] fromLandmark, int chosen, Random random) {
+		if (chosen == 0) {
+			int start = random.nextInt(graph.getStationCount());
+			SearchWorkspace search = DijkstraSearch.run(graph, start, -1, metric);
+			return farthestFrom(graph, node -> search.getDistance(node), start);
+		}
+		return farthestFrom(graph, node -> {
+			double nearest = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < chosen; i++) {
+				nearest = Math.min(nearest, fromLandmark[i][node]);
+			}
+			return nearest;
+		}, landmarks[0]);
+	}
+
+	private interface StationScore {
+		double of(int node);
+	}
+
+	private static int farthestFrom(RouteGraph graph, StationScore score, int fallback) {
+		int best = fallback;
+		double bestScore = -1;
+		for (int node = 0; node < graph.getStationCount(); node++) {
+			// Stations without any routes make useless landmarks
+			if (graph.edgeStart(node) == graph.edgeEnd(node))
+				continue;
+			double value = score.of(node);
+			if (value > bestScore) {
+				best = node;
+				bestScore = value;
+			}
+		}
+		return best;
+	}
+
+	// Goldberg and Werneck's "avoid" heuristic: grow a shortest-path tree from a
+	// random root, weight each station by how badly the current landmarks bound its
+	// distance from the root, and descend into the heaviest landmark-free subtree.
+	private static int selectAvoid(RouteGraph graph, RouteMetric metric, int[] landmarks, double[][] fromLandmark,
+			int chosen, Random random) {
+		int stationCount = graph.getStationCount();
+		int root = random.nextInt(stationCount);
+		SearchWorkspace search = DijkstraSearch.run(graph, root, -1, metric);
+
+		double[] size = new double[stationCount];
+		int[] parent = new int[stationCount];
+		int[] order = new int[stationCount];
+		int reached = 0;
+		for (int node = 0; node < stationCount; node++) {
+			parent[node] = search.getPrevious(node);
+			if (search.getDistance(node) < Double.POSITIVE_INFINITY) {
+				order[reached++] = node;
+				double bound = 0.0;
+				for (int i = 0; i < chosen; i++) {
+					double candidate = fromLandmark[i][node] - fromLandmark[i][root];
+					if (candidate > bound)
+						bound = candidate;
+				}
+				size[node] = search.getDistance(node) - bound;
+			}
+		}
+
+		// Accumulate subtree sizes children-first; subtrees holding a landmark count as zero
+		boolean[] hasLandmark = new boolean[stationCount];
+		for (int i = 0; i < chosen; i++) {
+			hasLandmark[landmarks[i]] = true;
+		}
+		Integer[] byDistance = new Integer[reached];
+		for (int i = 0; i < reached; i++) {
+			byDistance[i] = order[i];
+		}
+		Arrays.sort(byDistance, (a, b) -> Double.compare(search.getDistance(b), search.getDistance(a)));
+		for (int node : byDistance) {
+			int up = parent[node];
+			if (up == -1)
+				continue;
+			if (hasLandmark[node]) {
+				hasLandmark[up] = true;
+			} else {
+				size[up] += size[node];
+			}
+		}
+		for (int node : byDistance) {
+			if (hasLandmark[node])
+				size[node] = 0.0;
+		}
+
+		// Start at the heaviest station and follow the heaviest child down to a leaf
+		int current = root;
+		for (int node : byDistance) {
+			if (size[node] > size[current])
+				current = node;
+		}
+		while (true) {
+			int heaviestChild = -1;
+			for (int edge = graph.edgeStart(current); edge < graph.edgeEnd(current); edge++) {
+				int child = graph.getTarget(edge);
+				if (parent[child] == current && child != root
+						&& (heaviestChild == -1 || size[child] > size[heaviestChild]))
+					heaviestChild = child;
+			}
+			if (heaviestChild == -1 || size[heaviestChild] <= 0)
+				return current;
+			current = heaviestChild;
+		}
+	}
+
+	public String getVehicleType() {
+		return vehicleType;
+	}
+
+	public RouteMetric getMetric() {
+		return metric;
+	}
+
+	public int getLandmarkCount() {
+		return landmarks.length;
+	}
+
+	// True if the tables were computed for exactly this snapshot
+	public boolean matches(RouteGraph graph) {
+		return graph.getFingerprint() == fingerprint && graph.getVehicleType().equals(vehicleType)
+				&& (landmarks.length == 0 || fromLandmark[0].length == graph.getStationCount());
+	}
+
+	// Lower bound on the distance from node to target. Infinite means target is unreachable.
+	public double lowerBound(int node, int target) {
+		double best = 0.0;
+		for (int i = 0; i < landmarks.length; i++) {
+			// d(L,t) <= d(L,v) + d(v,t) and d(v,L) <= d(v,t) + d(t,L); NaN from inf - inf is skipped
+			double forward = fromLandmark[i][target] - fromLandmark[i][node];
+			if (forward > best)
+				best = forward;
+			double backward = toLandmark[i][node] - toLandmark[i][target];
+			if (backward > best)
+				best = backward;
+		}
+		return best;
+	}
+
+	// Key under which a table is stored, one per vehicle type and metric
+	static String key(String vehicleType, RouteMetric metric) {
+		return vehicleType + "|" + metric.name();
+	}
+
+	// Reads every table from the landmark file; a missing or unreadable file yields no tables
+	static Map<String, LandmarkIndex> readAll(File file) {
+		Map<String, LandmarkIndex> indexes = new HashMap<>();
+		if (!file.exists())
+			return indexes;
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != FILE_MAGIC)
+				return indexes;
+			int tableCount = in.readInt();
+			for (int t = 0; t < tableCount; t++) {
+				String vehicleType = in.readUTF();
+				RouteMetric metric = RouteMetric.valueOf(in.readUTF());
+				long fingerprint = in.readLong();
+				int stationCount = in.readInt();
+				int count = in.readInt();
+				int[] landmarks = new int[count];
+				double[][] fromLandmark = new double[count][stationCount];
+				double[][] toLandmark = new double[count][stationCount];
+				for (int i = 0; i < count; i++) {
+					landmarks[i] = in.readInt();
+					for (int node = 0; node < stationCount; node++) {
+						fromLandmark[i][node] = in.readDouble();
+					}
+					for (int node = 0; node < stationCount; node++) {
+						toLandmark[i][node] = in.readDouble();
+					}
+				}
+				indexes.put(key(vehicleType, metric),
+						new LandmarkIndex(vehicleType, metric, fingerprint, landmarks, fromLandmark, toLandmark));
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			System.out.println("Warning: Ignoring unreadable landmark file " + file + ": " + e);
+			indexes.clear();
+		}
+		return indexes;
+	}
+
+	static void writeAll(File file, Collection<LandmarkIndex> indexes) {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(indexes.size());
+			for (LandmarkIndex index : indexes) {
+				out.writeUTF(index.vehicleType);
+				out.writeUTF(index.metric.name());
+				out.writeLong(index.fingerprint);
+				int stationCount = index.landmarks.length == 0 ? 0 : index.fromLandmark[0].length;
+				out.writeInt(stationCount);
+				out.writeInt(index.landmarks.length);
+				for (int i = 0; i < index.landmarks.length; i++) {
+					out.writeInt(index.landmarks[i]);
+					for (double value : index.fromLandmark[i]) {
+						out.writeDouble(value);
+					}
+					for (double value : index.toLandmark[i]) {
+						out.writeDouble(value);
+					}
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,9 @@
+package application;
+
+// Strategies for choosing the landmark stations of an ALT index
+public enum LandmarkSelection {
+	// Each new landmark is the station farthest from the ones already chosen
+	FARTHEST,
+	// Grows shortest-path trees and picks leaves of the subtrees the current landmarks cover worst
+	AVOID
+}
@@ -16,11 +16,24 @@ public class LeastTrafficRoute {
 		return routeManager.findLeastTrafficPathWithIntermediates(start, intermediates, destination, vehicleType);
 	}
 
+	// Finds the least traffic route when leaving at departureHour (hours since midnight),
+	// using the routes' time-of-day traffic profiles
+	public List<String> findLeastTrafficRoute(String start, List<String> intermediates, String destination,
+			String vehicleType, double departureHour) {
+		return routeManager.findLeastTrafficPathWithIntermediates(start, intermediates, destination, vehicleType,
+				departureHour);
+	}
+
 	// Calculates the total traffic of a given path for the specified vehicle type
 	public double getRouteTraffic(List<String> path, String vehicleType) {
 		return routeManager.getRouteTraffic(path, vehicleType);
 	}
 
+	// Calculates the travel time of a given path when leaving at departureHour
+	public double getRouteTraffic(List<String> path, String vehicleType, double departureHour) {
+		return routeManager.getRouteTraffic(path, vehicleType, departureHour);
+	}
+
 	// Calculates the distance of a given path for the specified vehicle type
 	public double getRouteDistance(List<String> path, String vehicleType) {
 		return routeManager.getRouteDistance(path, vehicleType);
@@ -27,8 +27,10 @@ public class MainApp extends Application {
 		destinationComboBox.setPrefWidth(500);
 
 		routeManager = new RouteManager(sourceComboBox, destinationComboBox);
-		addInitialRoutes();
-		routeManager.loadRoutesFromFile();
+		// The seed routes are already in any existing database
+		if (routeManager.getSourceLocations().isEmpty()) {
+			addInitialRoutes();
+		}
 
 		// UI elements for source, destination, mode of transportation, and route
 		// selection
@@ -45,7 +47,8 @@ public class MainApp extends Application {
 
 		Label routeLabel = new Label("Select Route:");
 		ComboBox<String> routeComboBox = new ComboBox<>();
-		routeComboBox.getItems().addAll("Shortest Route", "Least Traffic Route", "Cost-Optimal Route");
+		routeComboBox.getItems().addAll("Shortest Route", "Least Traffic Route", "Cost-Optimal Route",
+				"Cheap but Quick Route", "All Trade-offs");
 		routeComboBox.setPrefWidth(500);
 
 		Button searchRouteButton = new Button("Search Route");
@@ -136,267 +139,270 @@ public class MainApp extends Application {
 	}
 
 	private void addInitialRoutes() {
+		RouteBatch batch = routeManager.beginBatch();
 
 		// East Lexington - Burlington
-		routeManager.addRoute(new Route("Burlington", "East Lexington", 5.0, "Car", 10.0, 6.0), true);
-		routeManager.addRoute(new Route("East Lexington", "Burlington", 5.0, "Bus", 1.0, 6.0), true);
-		routeManager.addRoute(new Route("East Lexington", "Alewife", 4.0, "Car", 8.0, 5.0), true);
-		routeManager.addRoute(new Route("Alewife", "East Lexington", 4.0, "Bus", 8.0, 5.0), true);
+		batch.add(new Route("Burlington", "East Lexington", 5.0, "Car", 10.0, 6.0), true);
+		batch.add(new Route("East Lexington", "Burlington", 5.0, "Bus", 1.0, 6.0), true);
+		batch.add(new Route("East Lexington", "Alewife", 4.0, "Car", 8.0, 5.0), true);
+		batch.add(new Route("Alewife", "East Lexington", 4.0, "Bus", 8.0, 5.0), true);
 
 		// Davis - Alewife
-		routeManager.addRoute(new Route("Alewife", "Davis", 2.5, "Bus", 3.0, 4.0), true);
-		routeManager.addRoute(new Route("Davis", "Alewife", 2.5, "Car", 3.0, 4.0), true);
+		batch.add(new Route("Alewife", "Davis", 2.5, "Bus", 3.0, 4.0), true);
+		batch.add(new Route("Davis", "Alewife", 2.5, "Car", 3.0, 4.0), true);
 
 		// Davis - Porter
-		routeManager.addRoute(new Route("Davis", "Porter", 2.0, "Car", 4.0, 7.0), true);
-		routeManager.addRoute(new Route("Porter", "Davis", 2.0, "Heavy Vehicles", 4.0, 7.0), true);
+		batch.add(new Route("Davis", "Porter", 2.0, "Car", 4.0, 7.0), true);
+		batch.add(new Route("Porter", "Davis", 2.0, "Heavy Vehicles", 4.0, 7.0), true);
 
 		// Porter - Science Park
-		routeManager.addRoute(new Route("Porter", "Science Park", 6.0, "Heavy Vehicles", 15.0, 10.0), true);
-		routeManager.addRoute(new Route("Science Park", "Porter", 6.0, "Bus", 15.0, 10.0), true);
+		batch.add(new Route("Porter", "Science Park", 6.0, "Heavy Vehicles", 15.0, 10.0), true);
+		batch.add(new Route("Science Park", "Porter", 6.0, "Bus", 15.0, 10.0), true);
 
 		// Alewife - Porter
-		routeManager.addRoute(new Route("Alewife", "Porter", 3.0, "Bus", 5.0, 3.0), true);
-		routeManager.addRoute(new Route("Porter", "Alewife", 3.0, "Car", 5.0, 3.0), true);
+		batch.add(new Route("Alewife", "Porter", 3.0, "Bus", 5.0, 3.0), true);
+		batch.add(new Route("Porter", "Alewife", 3.0, "Car", 5.0, 3.0), true);
 
 		// Union Square - Brickbottom
-		routeManager.addRoute(new Route("Union Sq", "Brickbottom", 1.5, "By walk", 1.0, 18.0), true);
-		routeManager.addRoute(new Route("Brickbottom", "Union Sq", 1.5, "By walk", 1.0, 18.0), true);
+		batch.add(new Route("Union Sq", "Brickbottom", 1.5, "By walk", 1.0, 18.0), true);
+		batch.add(new Route("Brickbottom", "Union Sq", 1.5, "By walk", 1.0, 18.0), true);
 
 		// Brickbottom - Haymarket
-		routeManager.addRoute(new Route("Brickbottom", "Haymarket", 3.5, "Bus", 4.0, 7.0), true);
-		routeManager.addRoute(new Route("Haymarket", "Brickbottom", 3.5, "Car", 4.0, 7.0), true);
+		batch.add(new Route("Brickbottom", "Haymarket", 3.5, "Bus", 4.0, 7.0), true);
+		batch.add(new Route("Haymarket", "Brickbottom", 3.5, "Car", 4.0, 7.0), true);
 
 		// Danvers - Salem
-		routeManager.addRoute(new Route("Danvers", "Salem", 5.5, "Bus", 6.0, 11.0), true);
-		routeManager.addRoute(new Route("Salem", "Danvers", 5.5, "Car", 6.0, 11.0), true);
+		batch.add(new Route("Danvers", "Salem", 5.5, "Bus", 6.0, 11.0), true);
+		batch.add(new Route("Salem", "Danvers", 5.5, "Car", 6.0, 11.0), true);
 
 		// Lynn - Riverworks
-		routeManager.addRoute(new Route("Lynn", "Riverworks", 4.0, "Car", 8.0, 4.0), true);
-		routeManager.addRoute(new Route("Riverworks", "Lynn", 4.0, "Heavy Vehicles", 8.0, 4.0), true);
+		batch.add(new Route("Lynn", "Riverworks", 4.0, "Car", 8.0, 4.0), true);
+		batch.add(new Route("Riverworks", "Lynn", 4.0, "Heavy Vehicles", 8.0, 4.0), true);
 
 		// Inter-line connections
-		routeManager.addRoute(new Route("Porter", "Union Sq", 4.5, "Bus", 5.0, 1.0), true);
-		routeManager.addRoute(new Route("Union Sq", "Porter", 4.5, "Car", 5.0, 1.0), true);
-		routeManager.addRoute(new Route("Haymarket", "Oak Island", 7.5, "Car", 12.0, 4.0), true);
-		routeManager.addRoute(new Route("Oak Island", "Haymarket", 7.5, "By walk", 12.0, 4.0), true);
+		batch.add(new Route("Porter", "Union Sq", 4.5, "Bus", 5.0, 1.0), true);
+		batch.add(new Route("Union Sq", "Porter", 4.5, "Car", 5.0, 1.0), true);
+		batch.add(new Route("Haymarket", "Oak Island", 7.5, "Car", 12.0, 4.0), true);
+		batch.add(new Route("Oak Island", "Haymarket", 7.5, "By walk", 12.0, 4.0), true);
 
 		// Additional routes
-		routeManager.addRoute(new Route("Oak Island", "Riverworks", 2.5, "Bus", 2.0, 6.0), true);
-		routeManager.addRoute(new Route("Riverworks", "Oak Island", 2.5, "Bus", 2.0, 6.0), true);
+		batch.add(new Route("Oak Island", "Riverworks", 2.5, "Bus", 2.0, 6.0), true);
+		batch.add(new Route("Riverworks", "Oak Island", 2.5, "Bus", 2.0, 6.0), true);
 
-		routeManager.addRoute(new Route("East Lexington", "Central Square", 6.0, "Car", 14.0, 8.0), true);
-		routeManager.addRoute(new Route("Central Square", "East Lexington", 6.0, "Bus", 14.0, 8.0), true);
+		batch.add(new Route("East Lexington", "Central Square", 6.0, "Car", 14.0, 8.0), true);
+		batch.add(new Route("Central Square", "East Lexington", 6.0, "Bus", 14.0, 8.0), true);
 
-		routeManager.addRoute(new Route("Union Sq", "Central Square", 3.5, "Car", 7.0, 4.5), true);
-		routeManager.addRoute(new Route("Central Square", "Union Sq", 3.5, "Bus", 7.0, 4.5), true);
+		batch.add(new Route("Union Sq", "Central Square", 3.5, "Car", 7.0, 4.5), true);
+		batch.add(new Route("Central Square", "Union Sq", 3.5, "Bus", 7.0, 4.5), true);
 
-		routeManager.addRoute(new Route("Lynn", "Salem", 3.0, "Car", 5.0, 2.5), true);
-		routeManager.addRoute(new Route("Salem", "Lynn", 3.0, "Bus", 5.0, 2.5), true);
+		batch.add(new Route("Lynn", "Salem", 3.0, "Car", 5.0, 2.5), true);
+		batch.add(new Route("Salem", "Lynn", 3.0, "Bus", 5.0, 2.5), true);
 
-		routeManager.addRoute(new Route("Porter", "Harvard Square", 2.0, "Car", 3.5, 2.0), true);
-		routeManager.addRoute(new Route("Harvard Square", "Porter", 2.0, "Bus", 3.5, 2.0), true);
+		batch.add(new Route("Porter", "Harvard Square", 2.0, "Car", 3.5, 2.0), true);
+		batch.add(new Route("Harvard Square", "Porter", 2.0, "Bus", 3.5, 2.0), true);
 
-		routeManager.addRoute(new Route("Harvard Square", "Central Square", 1.5, "Car", 2.0, 5.0), true);
-		routeManager.addRoute(new Route("Central Square", "Harvard Square", 1.5, "Bus", 2.0, 5.0), true);
+		batch.add(new Route("Harvard Square", "Central Square", 1.5, "Car", 2.0, 5.0), true);
+		batch.add(new Route("Central Square", "Harvard Square", 1.5, "Bus", 2.0, 5.0), true);
 
-		routeManager.addRoute(new Route("Harvard Square", "Kendall Square", 2.5, "Car", 4.0, 3.5), true);
-		routeManager.addRoute(new Route("Kendall Square", "Harvard Square", 2.5, "Bus", 4.0, 3.5), true);
+		batch.add(new Route("Harvard Square", "Kendall Square", 2.5, "Car", 4.0, 3.5), true);
+		batch.add(new Route("Kendall Square", "Harvard Square", 2.5, "Bus", 4.0, 3.5), true);
 
-		routeManager.addRoute(new Route("Kendall Square", "Alewife", 4.0, "Car", 6.0, 3.0), true);
-		routeManager.addRoute(new Route("Alewife", "Kendall Square", 4.0, "Bus", 6.0, 3.0), true);
+		batch.add(new Route("Kendall Square", "Alewife", 4.0, "Car", 6.0, 3.0), true);
+		batch.add(new Route("Alewife", "Kendall Square", 4.0, "Bus", 6.0, 3.0), true);
 
-		routeManager.addRoute(new Route("Brickbottom", "Union Sq", 1.5, "Bus", 1.0, 5.0), true);
-		routeManager.addRoute(new Route("Union Sq", "Brickbottom", 1.5, "Bus", 1.0, 5.0), true);
+		batch.add(new Route("Brickbottom", "Union Sq", 1.5, "Bus", 1.0, 5.0), true);
+		batch.add(new Route("Union Sq", "Brickbottom", 1.5, "Bus", 1.0, 5.0), true);
 
 		// Burlington - East Lexington
-		routeManager.addRoute(new Route("Burlington", "East Lexington", 5.0, "Heavy Vehicles", 15.0, 8.0), true);
-		routeManager.addRoute(new Route("East Lexington", "Burlington", 5.0, "Heavy Vehicles", 15.0, 8.0), true);
+		batch.add(new Route("Burlington", "East Lexington", 5.0, "Heavy Vehicles", 15.0, 8.0), true);
+		batch.add(new Route("East Lexington", "Burlington", 5.0, "Heavy Vehicles", 15.0, 8.0), true);
 
 		// East Lexington - Alewife
-		routeManager.addRoute(new Route("East Lexington", "Alewife", 4.0, "Heavy Vehicles", 10.0, 6.0), true);
-		routeManager.addRoute(new Route("Alewife", "East Lexington", 4.0, "Heavy Vehicles", 10.0, 6.0), true);
+		batch.add(new Route("East Lexington", "Alewife", 4.0, "Heavy Vehicles", 10.0, 6.0), true);
+		batch.add(new Route("Alewife", "East Lexington", 4.0, "Heavy Vehicles", 10.0, 6.0), true);
 
 		// Davis - Alewife
-		routeManager.addRoute(new Route("Alewife", "Davis", 2.5, "Heavy Vehicles", 6.0, 5.0), true);
-		routeManager.addRoute(new Route("Davis", "Alewife", 2.5, "Heavy Vehicles", 6.0, 5.0), true);
+		batch.add(new Route("Alewife", "Davis", 2.5, "Heavy Vehicles", 6.0, 5.0), true);
+		batch.add(new Route("Davis", "Alewife", 2.5, "Heavy Vehicles", 6.0, 5.0), true);
 
 		// Davis - Porter
-		routeManager.addRoute(new Route("Davis", "Porter", 2.0, "Heavy Vehicles", 5.5, 8.0), true);
-		routeManager.addRoute(new Route("Porter", "Davis", 2.0, "Heavy Vehicles", 5.5, 8.0), true);
+		batch.add(new Route("Davis", "Porter", 2.0, "Heavy Vehicles", 5.5, 8.0), true);
+		batch.add(new Route("Porter", "Davis", 2.0, "Heavy Vehicles", 5.5, 8.0), true);
 
 		// Porter - Science Park
-		routeManager.addRoute(new Route("Porter", "Science Park", 6.0, "Heavy Vehicles", 18.0, 12.0), true);
-		routeManager.addRoute(new Route("Science Park", "Porter", 6.0, "Heavy Vehicles", 18.0, 12.0), true);
+		batch.add(new Route("Porter", "Science Park", 6.0, "Heavy Vehicles", 18.0, 12.0), true);
+		batch.add(new Route("Science Park", "Porter", 6.0, "Heavy Vehicles", 18.0, 12.0), true);
 
 		// Alewife - Porter
-		routeManager.addRoute(new Route("Alewife", "Porter", 3.0, "Heavy Vehicles", 7.0, 4.0), true);
-		routeManager.addRoute(new Route("Porter", "Alewife", 3.0, "Heavy Vehicles", 7.0, 4.0), true);
+		batch.add(new Route("Alewife", "Porter", 3.0, "Heavy Vehicles", 7.0, 4.0), true);
+		batch.add(new Route("Porter", "Alewife", 3.0, "Heavy Vehicles", 7.0, 4.0), true);
 
 		// Brickbottom - Haymarket
-		routeManager.addRoute(new Route("Brickbottom", "Haymarket", 3.5, "Heavy Vehicles", 6.0, 8.0), true);
-		routeManager.addRoute(new Route("Haymarket", "Brickbottom", 3.5, "Heavy Vehicles", 6.0, 8.0), true);
+		batch.add(new Route("Brickbottom", "Haymarket", 3.5, "Heavy Vehicles", 6.0, 8.0), true);
+		batch.add(new Route("Haymarket", "Brickbottom", 3.5, "Heavy Vehicles", 6.0, 8.0), true);
 
 		// Danvers - Salem
-		routeManager.addRoute(new Route("Danvers", "Salem", 5.5, "Heavy Vehicles", 9.0, 12.0), true);
-		routeManager.addRoute(new Route("Salem", "Danvers", 5.5, "Heavy Vehicles", 9.0, 12.0), true);
+		batch.add(new Route("Danvers", "Salem", 5.5, "Heavy Vehicles", 9.0, 12.0), true);
+		batch.add(new Route("Salem", "Danvers", 5.5, "Heavy Vehicles", 9.0, 12.0), true);
 
 		// Lynn - Riverworks
-		routeManager.addRoute(new Route("Lynn", "Riverworks", 4.0, "Heavy Vehicles", 10.0, 5.0), true);
-		routeManager.addRoute(new Route("Riverworks", "Lynn", 4.0, "Heavy Vehicles", 10.0, 5.0), true);
-		routeManager.addRoute(new Route("Science Park", "Salem", 11.0, "Heavy Vehicles", 25.0, 14.0), true);
+		batch.add(new Route("Lynn", "Riverworks", 4.0, "Heavy Vehicles", 10.0, 5.0), true);
+		batch.add(new Route("Riverworks", "Lynn", 4.0, "Heavy Vehicles", 10.0, 5.0), true);
+		batch.add(new Route("Science Park", "Salem", 11.0, "Heavy Vehicles", 25.0, 14.0), true);
 
 		// Inter-line connections
-		routeManager.addRoute(new Route("Porter", "Union Sq", 4.5, "Heavy Vehicles", 7.5, 2.0), true);
-		routeManager.addRoute(new Route("Union Sq", "Porter", 4.5, "Heavy Vehicles", 7.5, 2.0), true);
-		routeManager.addRoute(new Route("Haymarket", "Oak Island", 7.5, "Heavy Vehicles", 15.0, 6.0), true);
-		routeManager.addRoute(new Route("Oak Island", "Haymarket", 7.5, "Heavy Vehicles", 15.0, 6.0), true);
+		batch.add(new Route("Porter", "Union Sq", 4.5, "Heavy Vehicles", 7.5, 2.0), true);
+		batch.add(new Route("Union Sq", "Porter", 4.5, "Heavy Vehicles", 7.5, 2.0), true);
+		batch.add(new Route("Haymarket", "Oak Island", 7.5, "Heavy Vehicles", 15.0, 6.0), true);
+		batch.add(new Route("Oak Island", "Haymarket", 7.5, "Heavy Vehicles", 15.0, 6.0), true);
 
 		// Additional routes
-		routeManager.addRoute(new Route("Oak Island", "Porter", 2.5, "Heavy Vehicles", 4.0, 8.0), true);
-		routeManager.addRoute(new Route("Central Square", "Oak Island", 2.5, "Heavy Vehicles", 4.0, 8.0), true);
+		batch.add(new Route("Oak Island", "Porter", 2.5, "Heavy Vehicles", 4.0, 8.0), true);
+		batch.add(new Route("Central Square", "Oak Island", 2.5, "Heavy Vehicles", 4.0, 8.0), true);
 
-		routeManager.addRoute(new Route("East Lexington", "Central Square", 6.0, "Heavy Vehicles", 18.0, 10.0), true);
-		routeManager.addRoute(new Route("Central Square", "East Lexington", 6.0, "Heavy Vehicles", 18.0, 10.0), true);
+		batch.add(new Route("East Lexington", "Central Square", 6.0, "Heavy Vehicles", 18.0, 10.0), true);
+		batch.add(new Route("Central Square", "East Lexington", 6.0, "Heavy Vehicles", 18.0, 10.0), true);
 
-		routeManager.addRoute(new Route("Union Sq", "Central Square", 3.5, "Heavy Vehicles", 9.0, 6.0), true);
-		routeManager.addRoute(new Route("Central Square", "Union Sq", 3.5, "Heavy Vehicles", 9.0, 6.0), true);
+		batch.add(new Route("Union Sq", "Central Square", 3.5, "Heavy Vehicles", 9.0, 6.0), true);
+		batch.add(new Route("Central Square", "Union Sq", 3.5, "Heavy Vehicles", 9.0, 6.0), true);
 
-		routeManager.addRoute(new Route("Lynn", "Salem", 3.0, "Heavy Vehicles", 7.0, 4.0), true);
-		routeManager.addRoute(new Route("Salem", "Lynn", 3.0, "Heavy Vehicles", 7.0, 4.0), true);
+		batch.add(new Route("Lynn", "Salem", 3.0, "Heavy Vehicles", 7.0, 4.0), true);
+		batch.add(new Route("Salem", "Lynn", 3.0, "Heavy Vehicles", 7.0, 4.0), true);
 
-		routeManager.addRoute(new Route("Porter", "Harvard Square", 2.0, "Heavy Vehicles", 4.5, 3.0), true);
-		routeManager.addRoute(new Route("Harvard Square", "Porter", 2.0, "Heavy Vehicles", 4.5, 3.0), true);
+		batch.add(new Route("Porter", "Harvard Square", 2.0, "Heavy Vehicles", 4.5, 3.0), true);
+		batch.add(new Route("Harvard Square", "Porter", 2.0, "Heavy Vehicles", 4.5, 3.0), true);
 
-		routeManager.addRoute(new Route("Harvard Square", "Central Square", 1.5, "Heavy Vehicles", 3.0, 6.0), true);
-		routeManager.addRoute(new Route("Central Square", "Harvard Square", 1.5, "Heavy Vehicles", 3.0, 6.0), true);
+		batch.add(new Route("Harvard Square", "Central Square", 1.5, "Heavy Vehicles", 3.0, 6.0), true);
+		batch.add(new Route("Central Square", "Harvard Square", 1.5, "Heavy Vehicles", 3.0, 6.0), true);
 
-		routeManager.addRoute(new Route("Harvard Square", "Kendall Square", 2.5, "Heavy Vehicles", 5.5, 4.5), true);
-		routeManager.addRoute(new Route("Kendall Square", "Harvard Square", 2.5, "Heavy Vehicles", 5.5, 4.5), true);
+		batch.add(new Route("Harvard Square", "Kendall Square", 2.5, "Heavy Vehicles", 5.5, 4.5), true);
+		batch.add(new Route("Kendall Square", "Harvard Square", 2.5, "Heavy Vehicles", 5.5, 4.5), true);
 
-		routeManager.addRoute(new Route("Kendall Square", "Alewife", 4.0, "Heavy Vehicles", 8.0, 5.0), true);
-		routeManager.addRoute(new Route("Alewife", "Kendall Square", 4.0, "Heavy Vehicles", 8.0, 5.0), true);
+		batch.add(new Route("Kendall Square", "Alewife", 4.0, "Heavy Vehicles", 8.0, 5.0), true);
+		batch.add(new Route("Alewife", "Kendall Square", 4.0, "Heavy Vehicles", 8.0, 5.0), true);
 
-		routeManager.addRoute(new Route("Brickbottom", "Union Sq", 1.5, "Heavy Vehicles", 2.0, 6.0), true);
-		routeManager.addRoute(new Route("Union Sq", "Brickbottom", 1.5, "Heavy Vehicles", 2.0, 6.0), true);
+		batch.add(new Route("Brickbottom", "Union Sq", 1.5, "Heavy Vehicles", 2.0, 6.0), true);
+		batch.add(new Route("Union Sq", "Brickbottom", 1.5, "Heavy Vehicles", 2.0, 6.0), true);
 
-		routeManager.addRoute(new Route("Science Park", "Riverworks", 7.0, "Bus", 9.0, 6.5), true);
-		routeManager.addRoute(new Route("Riverworks", "Science Park", 7.0, "Bus", 9.0, 6.5), true);
+		batch.add(new Route("Science Park", "Riverworks", 7.0, "Bus", 9.0, 6.5), true);
+		batch.add(new Route("Riverworks", "Science Park", 7.0, "Bus", 9.0, 6.5), true);
 
 		// New locations and expanded routes
 
 		// Cambridgeport - East Lexington
-		routeManager.addRoute(new Route("Cambridgeport", "East Lexington", 8.0, "Car", 16.0, 9.0), true);
-		routeManager.addRoute(new Route("Cambridgeport", "East Lexington", 8.0, "Bus", 14.0, 8.5), true);
-		routeManager.addRoute(new Route("Cambridgeport", "East Lexington", 8.0, "Heavy Vehicles", 18.0, 10.5), true);
+		batch.add(new Route("Cambridgeport", "East Lexington", 8.0, "Car", 16.0, 9.0), true);
+		batch.add(new Route("Cambridgeport", "East Lexington", 8.0, "Bus", 14.0, 8.5), true);
+		batch.add(new Route("Cambridgeport", "East Lexington", 8.0, "Heavy Vehicles", 18.0, 10.5), true);
 
 		// Cambridgeport - Kendall Square
-		routeManager.addRoute(new Route("Cambridgeport", "Kendall Square", 2.5, "Car", 5.0, 3.0), true);
-		routeManager.addRoute(new Route("Cambridgeport", "Kendall Square", 2.5, "Bus", 4.5, 2.5), true);
-		routeManager.addRoute(new Route("Cambridgeport", "Kendall Square", 2.5, "Heavy Vehicles", 6.0, 3.5), true);
+		batch.add(new Route("Cambridgeport", "Kendall Square", 2.5, "Car", 5.0, 3.0), true);
+		batch.add(new Route("Cambridgeport", "Kendall Square", 2.5, "Bus", 4.5, 2.5), true);
+		batch.add(new Route("Cambridgeport", "Kendall Square", 2.5, "Heavy Vehicles", 6.0, 3.5), true);
 
 		// Medford - Arlington
-		routeManager.addRoute(new Route("Medford", "Arlington", 5.5, "Car", 11.0, 7.0), true);
-		routeManager.addRoute(new Route("Medford", "Arlington", 5.5, "Bus", 10.0, 6.5), true);
-		routeManager.addRoute(new Route("Medford", "Arlington", 5.5, "Heavy Vehicles", 13.0, 7.5), true);
+		batch.add(new Route("Medford", "Arlington", 5.5, "Car", 11.0, 7.0), true);
+		batch.add(new Route("Medford", "Arlington", 5.5, "Bus", 10.0, 6.5), true);
+		batch.add(new Route("Medford", "Arlington", 5.5, "Heavy Vehicles", 13.0, 7.5), true);
 
 		// Medford - Somerville
-		routeManager.addRoute(new Route("Medford", "Somerville", 4.0, "Car", 8.0, 5.0), true);
-		routeManager.addRoute(new Route("Medford", "Somerville", 4.0, "Bus", 7.5, 4.5), true);
-		routeManager.addRoute(new Route("Medford", "Somerville", 4.0, "Heavy Vehicles", 10.0, 5.5), true);
+		batch.add(new Route("Medford", "Somerville", 4.0, "Car", 8.0, 5.0), true);
+		batch.add(new Route("Medford", "Somerville", 4.0, "Bus", 7.5, 4.5), true);
+		batch.add(new Route("Medford", "Somerville", 4.0, "Heavy Vehicles", 10.0, 5.5), true);
 
 		// Somerville - Cambridgeport
-		routeManager.addRoute(new Route("Somerville", "Cambridgeport", 6.5, "Car", 13.0, 7.5), true);
-		routeManager.addRoute(new Route("Somerville", "Cambridgeport", 6.5, "Bus", 12.0, 7.0), true);
-		routeManager.addRoute(new Route("Somerville", "Cambridgeport", 6.5, "Heavy Vehicles", 15.0, 8.5), true);
+		batch.add(new Route("Somerville", "Cambridgeport", 6.5, "Car", 13.0, 7.5), true);
+		batch.add(new Route("Somerville", "Cambridgeport", 6.5, "Bus", 12.0, 7.0), true);
+		batch.add(new Route("Somerville", "Cambridgeport", 6.5, "Heavy Vehicles", 15.0, 8.5), true);
 
 		// Arlington - Newton
-		routeManager.addRoute(new Route("Arlington", "Newton", 9.0, "Car", 18.0, 10.0), true);
-		routeManager.addRoute(new Route("Arlington", "Newton", 9.0, "Bus", 16.0, 9.5), true);
-		routeManager.addRoute(new Route("Arlington", "Newton", 9.0, "Heavy Vehicles", 20.0, 11.5), true);
+		batch.add(new Route("Arlington", "Newton", 9.0, "Car", 18.0, 10.0), true);
+		batch.add(new Route("Arlington", "Newton", 9.0, "Bus", 16.0, 9.5), true);
+		batch.add(new Route("Arlington", "Newton", 9.0, "Heavy Vehicles", 20.0, 11.5), true);
 
 		// Newton - Davis
-		routeManager.addRoute(new Route("Newton", "Davis", 7.5, "Car", 15.0, 8.5), true);
-		routeManager.addRoute(new Route("Newton", "Davis", 7.5, "Bus", 14.0, 8.0), true);
-		routeManager.addRoute(new Route("Newton", "Davis", 7.5, "Heavy Vehicles", 18.0, 9.5), true);
+		batch.add(new Route("Newton", "Davis", 7.5, "Car", 15.0, 8.5), true);
+		batch.add(new Route("Newton", "Davis", 7.5, "Bus", 14.0, 8.0), true);
+		batch.add(new Route("Newton", "Davis", 7.5, "Heavy Vehicles", 18.0, 9.5), true);
 
 		// Newton - Kendall Square
-		routeManager.addRoute(new Route("Newton", "Kendall Square", 10.0, "Car", 20.0, 11.0), true);
-		routeManager.addRoute(new Route("Newton", "Kendall Square", 10.0, "Bus", 18.0, 10.5), true);
-		routeManager.addRoute(new Route("Newton", "Kendall Square", 10.0, "Heavy Vehicles", 22.0, 12.5), true);
+		batch.add(new Route("Newton", "Kendall Square", 10.0, "Car", 20.0, 11.0), true);
+		batch.add(new Route("Newton", "Kendall Square", 10.0, "Bus", 18.0, 10.5), true);
+		batch.add(new Route("Newton", "Kendall Square", 10.0, "Heavy Vehicles", 22.0, 12.5), true);
 
 		// Somerville - Kendall Square
-		routeManager.addRoute(new Route("Somerville", "Kendall Square", 3.0, "Car", 6.0, 3.5), true);
-		routeManager.addRoute(new Route("Somerville", "Kendall Square", 3.0, "Bus", 5.5, 3.0), true);
-		routeManager.addRoute(new Route("Somerville", "Kendall Square", 3.0, "Heavy Vehicles", 7.0, 4.0), true);
+		batch.add(new Route("Somerville", "Kendall Square", 3.0, "Car", 6.0, 3.5), true);
+		batch.add(new Route("Somerville", "Kendall Square", 3.0, "Bus", 5.5, 3.0), true);
+		batch.add(new Route("Somerville", "Kendall Square", 3.0, "Heavy Vehicles", 7.0, 4.0), true);
 
 		// Somerville - Brickbottom
-		routeManager.addRoute(new Route("Somerville", "Brickbottom", 2.0, "Car", 4.0, 2.5), true);
-		routeManager.addRoute(new Route("Somerville", "Brickbottom", 2.0, "Bus", 3.5, 2.0), true);
-		routeManager.addRoute(new Route("Somerville", "Brickbottom", 2.0, "Heavy Vehicles", 5.0, 3.0), true);
+		batch.add(new Route("Somerville", "Brickbottom", 2.0, "Car", 4.0, 2.5), true);
+		batch.add(new Route("Somerville", "Brickbottom", 2.0, "Bus", 3.5, 2.0), true);
+		batch.add(new Route("Somerville", "Brickbottom", 2.0, "Heavy Vehicles", 5.0, 3.0), true);
 
 		// Medford - Newton
-		routeManager.addRoute(new Route("Medford", "Newton", 8.0, "Car", 16.0, 9.0), true);
-		routeManager.addRoute(new Route("Medford", "Newton", 8.0, "Bus", 14.0, 8.5), true);
-		routeManager.addRoute(new Route("Medford", "Newton", 8.0, "Heavy Vehicles", 18.0, 10.0), true);
+		batch.add(new Route("Medford", "Newton", 8.0, "Car", 16.0, 9.0), true);
+		batch.add(new Route("Medford", "Newton", 8.0, "Bus", 14.0, 8.5), true);
+		batch.add(new Route("Medford", "Newton", 8.0, "Heavy Vehicles", 18.0, 10.0), true);
 
 		// Arlington - East Lexington
-		routeManager.addRoute(new Route("Arlington", "East Lexington", 4.5, "Car", 9.0, 5.0), true);
-		routeManager.addRoute(new Route("Arlington", "East Lexington", 4.5, "Bus", 8.0, 4.5), true);
-		routeManager.addRoute(new Route("Arlington", "East Lexington", 4.5, "Heavy Vehicles", 10.0, 6.0), true);
+		batch.add(new Route("Arlington", "East Lexington", 4.5, "Car", 9.0, 5.0), true);
+		batch.add(new Route("Arlington", "East Lexington", 4.5, "Bus", 8.0, 4.5), true);
+		batch.add(new Route("Arlington", "East Lexington", 4.5, "Heavy Vehicles", 10.0, 6.0), true);
 
-		routeManager.addRoute(new Route("Science Park", "Somerville", 5.0, "Heavy Vehicles", 12.0, 8.0), true);
-		routeManager.addRoute(new Route("Somerville", "Science Park", 5.0, "Heavy Vehicles", 12.0, 8.0), true);
+		batch.add(new Route("Science Park", "Somerville", 5.0, "Heavy Vehicles", 12.0, 8.0), true);
+		batch.add(new Route("Somerville", "Science Park", 5.0, "Heavy Vehicles", 12.0, 8.0), true);
 
 		// Burlington - Cambridgeport
-		routeManager.addRoute(new Route("Burlington", "Cambridgeport", 10.0, "Car", 20.0, 12.0), true);
-		routeManager.addRoute(new Route("Burlington", "Cambridgeport", 10.0, "Bus", 18.0, 11.5), true);
-		routeManager.addRoute(new Route("Burlington", "Cambridgeport", 10.0, "Heavy Vehicles", 24.0, 13.0), true);
+		batch.add(new Route("Burlington", "Cambridgeport", 10.0, "Car", 20.0, 12.0), true);
+		batch.add(new Route("Burlington", "Cambridgeport", 10.0, "Bus", 18.0, 11.5), true);
+		batch.add(new Route("Burlington", "Cambridgeport", 10.0, "Heavy Vehicles", 24.0, 13.0), true);
 
 		// Arlington - Harvard Square
-		routeManager.addRoute(new Route("Arlington", "Harvard Square", 6.5, "Car", 13.0, 8.0), true);
-		routeManager.addRoute(new Route("Arlington", "Harvard Square", 6.5, "Bus", 12.0, 7.5), true);
-		routeManager.addRoute(new Route("Arlington", "Harvard Square", 6.5, "Heavy Vehicles", 15.0, 9.0), true);
+		batch.add(new Route("Arlington", "Harvard Square", 6.5, "Car", 13.0, 8.0), true);
+		batch.add(new Route("Arlington", "Harvard Square", 6.5, "Bus", 12.0, 7.5), true);
+		batch.add(new Route("Arlington", "Harvard Square", 6.5, "Heavy Vehicles", 15.0, 9.0), true);
 
 		// Medford - Kendall Square
-		routeManager.addRoute(new Route("Medford", "Kendall Square", 7.0, "Car", 14.0, 8.5), true);
-		routeManager.addRoute(new Route("Medford", "Kendall Square", 7.0, "Bus", 13.0, 8.0), true);
-		routeManager.addRoute(new Route("Medford", "Kendall Square", 7.0, "Heavy Vehicles", 16.0, 9.5), true);
+		batch.add(new Route("Medford", "Kendall Square", 7.0, "Car", 14.0, 8.5), true);
+		batch.add(new Route("Medford", "Kendall Square", 7.0, "Bus", 13.0, 8.0), true);
+		batch.add(new Route("Medford", "Kendall Square", 7.0, "Heavy Vehicles", 16.0, 9.5), true);
 
 		// East Lexington - Brickbottom
-		routeManager.addRoute(new Route("East Lexington", "Brickbottom", 5.5, "Car", 11.0, 6.5), true);
-		routeManager.addRoute(new Route("East Lexington", "Brickbottom", 5.5, "Bus", 10.5, 6.0), true);
-		routeManager.addRoute(new Route("East Lexington", "Brickbottom", 5.5, "Heavy Vehicles", 13.0, 7.5), true);
+		batch.add(new Route("East Lexington", "Brickbottom", 5.5, "Car", 11.0, 6.5), true);
+		batch.add(new Route("East Lexington", "Brickbottom", 5.5, "Bus", 10.5, 6.0), true);
+		batch.add(new Route("East Lexington", "Brickbottom", 5.5, "Heavy Vehicles", 13.0, 7.5), true);
 
 		// Salem - Somerville
-		routeManager.addRoute(new Route("Salem", "Somerville", 9.5, "Car", 19.0, 10.5), true);
-		routeManager.addRoute(new Route("Salem", "Somerville", 9.5, "Bus", 17.0, 9.5), true);
-		routeManager.addRoute(new Route("Salem", "Somerville", 9.5, "Heavy Vehicles", 22.0, 11.5), true);
+		batch.add(new Route("Salem", "Somerville", 9.5, "Car", 19.0, 10.5), true);
+		batch.add(new Route("Salem", "Somerville", 9.5, "Bus", 17.0, 9.5), true);
+		batch.add(new Route("Salem", "Somerville", 9.5, "Heavy Vehicles", 22.0, 11.5), true);
 
 		// Science Park - Newton
-		routeManager.addRoute(new Route("Science Park", "Newton", 12.0, "Car", 24.0, 14.0), true);
-		routeManager.addRoute(new Route("Science Park", "Newton", 12.0, "Bus", 22.0, 13.0), true);
-		routeManager.addRoute(new Route("Science Park", "Newton", 12.0, "Heavy Vehicles", 28.0, 15.5), true);
+		batch.add(new Route("Science Park", "Newton", 12.0, "Car", 24.0, 14.0), true);
+		batch.add(new Route("Science Park", "Newton", 12.0, "Bus", 22.0, 13.0), true);
+		batch.add(new Route("Science Park", "Newton", 12.0, "Heavy Vehicles", 28.0, 15.5), true);
 
 		// Lynn - Kendall Square
-		routeManager.addRoute(new Route("Lynn", "Kendall Square", 8.0, "Car", 16.0, 9.0), true);
-		routeManager.addRoute(new Route("Lynn", "Kendall Square", 8.0, "Bus", 14.0, 8.5), true);
-		routeManager.addRoute(new Route("Lynn", "Kendall Square", 8.0, "Heavy Vehicles", 20.0, 10.5), true);
+		batch.add(new Route("Lynn", "Kendall Square", 8.0, "Car", 16.0, 9.0), true);
+		batch.add(new Route("Lynn", "Kendall Square", 8.0, "Bus", 14.0, 8.5), true);
+		batch.add(new Route("Lynn", "Kendall Square", 8.0, "Heavy Vehicles", 20.0, 10.5), true);
 
 		// Oak Island - Davis
-		routeManager.addRoute(new Route("Oak Island", "Davis", 7.0, "Car", 14.0, 8.0), true);
-		routeManager.addRoute(new Route("Oak Island", "Davis", 7.0, "Bus", 13.0, 7.5), true);
-		routeManager.addRoute(new Route("Oak Island", "Davis", 7.0, "Heavy Vehicles", 18.0, 9.5), true);
+		batch.add(new Route("Oak Island", "Davis", 7.0, "Car", 14.0, 8.0), true);
+		batch.add(new Route("Oak Island", "Davis", 7.0, "Bus", 13.0, 7.5), true);
+		batch.add(new Route("Oak Island", "Davis", 7.0, "Heavy Vehicles", 18.0, 9.5), true);
 
 		// Arlington - Somerville
-		routeManager.addRoute(new Route("Arlington", "Somerville", 4.5, "Car", 9.0, 5.5), true);
-		routeManager.addRoute(new Route("Arlington", "Somerville", 4.5, "Bus", 8.5, 5.0), true);
-		routeManager.addRoute(new Route("Arlington", "Somerville", 4.5, "Heavy Vehicles", 11.0, 6.0), true);
+		batch.add(new Route("Arlington", "Somerville", 4.5, "Car", 9.0, 5.5), true);
+		batch.add(new Route("Arlington", "Somerville", 4.5, "Bus", 8.5, 5.0), true);
+		batch.add(new Route("Arlington", "Somerville", 4.5, "Heavy Vehicles", 11.0, 6.0), true);
 
 		// Harvard Square - Riverworks
-		routeManager.addRoute(new Route("Harvard Square", "Riverworks", 10.0, "Car", 20.0, 11.0), true);
-		routeManager.addRoute(new Route("Harvard Square", "Riverworks", 10.0, "Bus", 18.0, 10.5), true);
-		routeManager.addRoute(new Route("Harvard Square", "Riverworks", 10.0, "Heavy Vehicles", 24.0, 12.5), true);
+		batch.add(new Route("Harvard Square", "Riverworks", 10.0, "Car", 20.0, 11.0), true);
+		batch.add(new Route("Harvard Square", "Riverworks", 10.0, "Bus", 18.0, 10.5), true);
+		batch.add(new Route("Harvard Square", "Riverworks", 10.0, "Heavy Vehicles", 24.0, 12.5), true);
+
+		batch.commit();
 	}
 
 	private void searchRouteWithFixedIntermediates(String source, String destination, String selectedRoute,
@@ -406,48 +412,65 @@ public class MainApp extends Application {
 		}
 
 		else {
-			// Define two fixed intermediate nodes
-			List<String> intermediateList = Arrays.asList("East Lexington", "Science Park");
+			// Define two fixed intermediate nodes; they are visited in whichever order is best
+			List<String> fixedStops = Arrays.asList("East Lexington", "Science Park");
 
 			if ("Shortest Route".equals(selectedRoute)) {
-				ShortestRoute shortestRouteFinder = new ShortestRoute(routeManager);
-				List<String> path = shortestRouteFinder.findShortestRoute(source, intermediateList, destination,
-						vehicleType);
+				List<String> intermediateList = routeManager.orderStops(source, fixedStops, destination, vehicleType,
+						RouteMetric.DISTANCE);
+				List<String> path = routeManager.findShortestPathWithIntermediates(source, intermediateList,
+						destination, vehicleType);
 				path = trimPathToDestination(path, destination);
-				if (!path.isEmpty() && path.get(path.size() - 1).equals(destination)) {
+				// One pass over the path's edges yields all three totals
+				RouteResult totals = pathTotals(path, destination, vehicleType);
+				if (totals != null) {
 					displayRouteResultGetShortestPath(resultArea, source, destination, vehicleType, path,
-							shortestRouteFinder.getRouteTraffic(path, vehicleType),
-							shortestRouteFinder.getRouteDistance(path, vehicleType),
-							shortestRouteFinder.getRouteCost(path, vehicleType), "Shortest");
+							totals.getTrafficTime(), totals.getDistance(), totals.getCost(), "Shortest");
 				} else {
 					resultArea.setText("No route found.");
 				}
 			} else if ("Cost-Optimal Route".equals(selectedRoute)) {
-				CostOptimalRoute costOptimalRouteFinder = new CostOptimalRoute(routeManager);
-				List<String> path = costOptimalRouteFinder.findCostOptimalRoute(source, intermediateList, destination,
-						vehicleType);
+				List<String> intermediateList = routeManager.orderStops(source, fixedStops, destination, vehicleType,
+						RouteMetric.COST);
+				List<String> path = routeManager.findCostOptimalPathWithIntermediates(source, intermediateList,
+						destination, vehicleType);
 				path = trimPathToDestination(path, destination);
-				if (!path.isEmpty() && path.get(path.size() - 1).equals(destination)) {
+				RouteResult totals = pathTotals(path, destination, vehicleType);
+				if (totals != null) {
 					displayRouteResultGetCostOptimal(resultArea, source, destination, vehicleType, path,
-							costOptimalRouteFinder.getRouteTraffic(path, vehicleType),
-							costOptimalRouteFinder.getRouteDistance(path, vehicleType),
-							costOptimalRouteFinder.getRouteCost(path, vehicleType), "Cost-Optimal");
+							totals.getTrafficTime(), totals.getDistance(), totals.getCost(), "Cost-Optimal");
 				} else {
 					resultArea.setText("No route found.");
 				}
 			} else if ("Least Traffic Route".equals(selectedRoute)) {
-				LeastTrafficRoute leastTrafficRouteFinder = new LeastTrafficRoute(routeManager);
-				List<String> path = leastTrafficRouteFinder.findLeastTrafficRoute(source, intermediateList, destination,
-						vehicleType);
+				List<String> intermediateList = routeManager.orderStops(source, fixedStops, destination, vehicleType,
+						RouteMetric.LEAST_TRAFFIC_TIME);
+				List<String> path = routeManager.findLeastTrafficPathWithIntermediates(source, intermediateList,
+						destination, vehicleType);
 				path = trimPathToDestination(path, destination);
-				if (!path.isEmpty() && path.get(path.size() - 1).equals(destination)) {
+				RouteResult totals = pathTotals(path, destination, vehicleType);
+				if (totals != null) {
 					displayRouteResultLeastTraffic(resultArea, source, destination, vehicleType, path,
-							leastTrafficRouteFinder.getRouteTraffic(path, vehicleType),
-							leastTrafficRouteFinder.getRouteDistance(path, vehicleType),
-							leastTrafficRouteFinder.getRouteCost(path, vehicleType), "Least Traffic");
+							totals.getTrafficTime(), totals.getDistance(), totals.getCost(), "Least Traffic");
+				} else {
+					resultArea.setText("No route found.");
+				}
+			} else if ("Cheap but Quick Route".equals(selectedRoute)) {
+				List<String> intermediateList = routeManager.orderStops(source, fixedStops, destination, vehicleType,
+						CompositeMetric.CHEAP_BUT_QUICK);
+				RouteResult route = routeManager.findRoute(source, intermediateList, destination, vehicleType,
+						CompositeMetric.CHEAP_BUT_QUICK);
+				if (route != null) {
+					displayRouteResultGetCostOptimal(resultArea, source, destination, vehicleType, route.getPath(),
+							route.getTrafficTime(), route.getDistance(), route.getCost(), "Cheap but Quick");
 				} else {
 					resultArea.setText("No route found.");
 				}
+			} else if ("All Trade-offs".equals(selectedRoute)) {
+				// One multi-criteria search instead of three single-metric ones
+				List<RouteOption> options = routeManager.findParetoRoutesWithIntermediates(source, fixedStops,
+						destination, vehicleType, 0.0);
+				displayRouteOptions(resultArea, source, destination, vehicleType, options);
 			} else {
 				resultArea.setText("Route type not supported yet.");
 			}
@@ -462,6 +485,39 @@ public class MainApp extends Application {
 		return path;
 	}
 
+	// Totals of a path that ends at the destination, or null if there is no such path
+	private RouteResult pathTotals(List<String> path, String destination, String vehicleType) {
+		if (path.isEmpty() || !path.get(path.size() - 1).equals(destination))
+			return null;
+		RouteResult totals = routeManager.evaluatePath(path, vehicleType);
+		if (totals != null)
+			return totals;
+		// De-duplicating the stations can join two stations without a direct route between them
+		return new RouteResult(vehicleType, path, new int[0], Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+				Double.POSITIVE_INFINITY);
+	}
+
+	private void displayRouteOptions(TextArea resultArea, String source, String destination, String vehicleType,
+			List<RouteOption> options) {
+		if (options.isEmpty()) {
+			resultArea.setText("No route found.");
+			return;
+		}
+
+		StringBuilder result = new StringBuilder(options.size() + " route options from ").append(source)
+				.append(" to ").append(destination).append(" for ").append(vehicleType).append(":\n");
+		for (int i = 0; i < options.size(); i++) {
+			RouteOption option = options.get(i);
+			result.append("\nOption ").append(i + 1).append(":\n").append("- Distance: ")
+					.append(option.getDistance()).append(" km\n").append("- Total Cost: $").append(option.getCost())
+					.append("\n").append("- Traffic Time: ").append(option.getTrafficTime()).append(" hrs\n")
+					.append("Route path: ").append(String.join(" -> ", option.getPath())).append("\n");
+		}
+
+		resultArea.setWrapText(true);
+		resultArea.setText(result.toString());
+	}
+
 	private void displayRouteResultGetShortestPath(TextArea resultArea, String source, String destination,
 			String vehicleType, List<String> path, double traffic, double distance, double cost, String routeType) {
 		if (path.isEmpty()) {
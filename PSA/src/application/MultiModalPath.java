@@ -0,0 +1,65 @@
+package application;
+
+import java.util.List;
+
+// A route that may change vehicle type at stations. modes.get(i) is the vehicle
+// type used from stations.get(i) to stations.get(i + 1).
+class MultiModalPath {
+	private final List<String> stations;
+	private final List<String> modes;
+	private final double weight;
+	private final int transfers;
+	private final double distance;
+	private final double cost;
+	private final double trafficTime;
+
+	public MultiModalPath(List<String> stations, List<String> modes, double weight, int transfers, double distance,
+			double cost, double trafficTime) {
+		this.stations = stations;
+		this.modes = modes;
+		this.weight = weight;
+		this.transfers = transfers;
+		this.distance = distance;
+		this.cost = cost;
+		this.trafficTime = trafficTime;
+	}
+
+	public List<String> getStations() {
+		return stations;
+	}
+
+	public List<String> getModes() {
+		return modes;
+	}
+
+	// Total of the optimised metric, transfer penalties included
+	public double getWeight() {
+		return weight;
+	}
+
+	public int getTransfers() {
+		return transfers;
+	}
+
+	public double getDistance() {
+		return distance;
+	}
+
+	public double getCost() {
+		return cost;
+	}
+
+	public double getTrafficTime() {
+		return trafficTime;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(stations.isEmpty() ? "" : stations.get(0));
+		for (int i = 0; i < modes.size(); i++) {
+			builder.append(" -[").append(modes.get(i)).append("]-> ").append(stations.get(i + 1));
+		}
+		return "MultiModalPath{" + "path=" + builder + ", weight=" + weight + ", transfers=" + transfers
+				+ ", distance=" + distance + ", cost=" + cost + ", trafficTime=" + trafficTime + '}';
+	}
+}
@@ -0,0 +1,112 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Dijkstra over a layered graph with one layer per vehicle type. The layers are the
+// existing per-type snapshots, used as they are: search node layer * n + station
+// stands for "at station, travelling by that type", edges stay inside their layer,
+// and switching type at a station costs the transfer penalty.
+//
+// All layers must come from the same graph state so that station IDs line up.
+final class MultiModalSearch {
+
+	private MultiModalSearch() {
+	}
+
+	// Best path from source to target that may start in any layer and change layers at
+	// stations; null if the target cannot be reached. penalties is indexed [from][to].
+	static MultiModalPath run(RouteGraph[] layers, double[][] penalties, int source, int target,
+			RouteMetric metric) {
+		int stationCount = layers[0].getStationCount();
+		for (RouteGraph layer : layers) {
+			if (layer.getStationCount() != stationCount)
+				throw new IllegalArgumentException("Multi-modal layers come from different graph states");
+		}
+		boolean positiveOnly = metric.requiresPositiveWeight();
+		double[][] weights = new double[layers.length][];
+		for (int layer = 0; layer < layers.length; layer++) {
+			weights[layer] = layers[layer].getWeights(metric);
+		}
+
+		SearchWorkspace workspace = SearchWorkspace.acquire(layers.length * stationCount);
+		IndexedHeap heap = workspace.heap;
+		for (int layer = 0; layer < layers.length; layer++) {
+			int node = layer * stationCount + source;
+			workspace.reach(node, 0.0, -1, -1);
+			heap.insertOrDecrease(node, 0.0);
+		}
+
+		int reached = -1;
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			workspace.settle(current);
+
+			int layer = current / stationCount;
+			int station = current - layer * stationCount;
+			if (station == target) {
+				reached = current;
+				break;
+			}
+
+			double currentWeight = workspace.getDistance(current);
+			RouteGraph graph = layers[layer];
+			int base = layer * stationCount;
+			for (int edge = graph.edgeStart(station), end = graph.edgeEnd(station); edge < end; edge++) {
+				double weight = weights[layer][edge];
+				if (positiveOnly && weight <= 0)
+					continue;
+				relax(workspace, current, base + graph.getTarget(edge), edge, currentWeight + weight);
+			}
+
+			// Transfers have no edge ID; the predecessor is the same station in another layer
+			for (int other = 0; other < layers.length; other++) {
+				double penalty = penalties[layer][other];
+				if (other != layer && penalty < Double.POSITIVE_INFINITY)
+					relax(workspace, current, other * stationCount + station, -1, currentWeight + penalty);
+			}
+		}
+		if (reached == -1)
+			return null;
+		return toPath(layers, workspace, reached, stationCount);
+	}
+
+	private static void relax(SearchWorkspace workspace, int from, int to, int edge, double newWeight) {
+		if (newWeight < workspace.getDistance(to) && !workspace.isSettled(to)) {
+			workspace.reach(to, newWeight, from, edge);
+			workspace.heap.insertOrDecrease(to, newWeight);
+		}
+	}
+
+	private static MultiModalPath toPath(RouteGraph[] layers, SearchWorkspace workspace, int reached,
+			int stationCount) {
+		List<String> stations = new ArrayList<>();
+		List<String> modes = new ArrayList<>();
+		double distance = 0.0;
+		double cost = 0.0;
+		double trafficTime = 0.0;
+		int transfers = 0;
+
+		int at = reached;
+		stations.add(layers[0].getStationName(at % stationCount));
+		while (workspace.getPrevious(at) != -1) {
+			int edge = workspace.getPreviousEdge(at);
+			RouteGraph layer = layers[at / stationCount];
+			if (edge == -1) {
+				transfers++;
+			} else {
+				distance += layer.getWeights(RouteMetric.DISTANCE)[edge];
+				cost += layer.getWeights(RouteMetric.COST)[edge];
+				trafficTime += layer.getWeights(RouteMetric.LEAST_TRAFFIC_TIME)[edge];
+				modes.add(layer.getVehicleType());
+				stations.add(layer.getStationName(workspace.getPrevious(at) % stationCount));
+			}
+			at = workspace.getPrevious(at);
+		}
+		Collections.reverse(stations);
+		Collections.reverse(modes);
+		return new MultiModalPath(stations, modes, workspace.getDistance(reached), transfers, distance, cost,
+				trafficTime);
+	}
+}
@@ -0,0 +1,199 @@
+package application;
+
+import java.util.Arrays;
+
+// Label-setting search over all three route weights at once. Each label is a
+// partial route (distance, cost, traffic time) ending at a station; labels that
+// another label at the same station beats or ties on every weight are dropped,
+// so what reaches the target is the skyline of non-dominated routes.
+final class ParetoSearch {
+	private static final int INITIAL_LABELS = 256;
+
+	private final RouteGraph graph;
+	private final double slack;
+
+	// Labels in structure-of-arrays form, indexed by label ID
+	private double[] distance = new double[INITIAL_LABELS];
+	private double[] cost = new double[INITIAL_LABELS];
+	private double[] traffic = new double[INITIAL_LABELS];
+	private int[] station = new int[INITIAL_LABELS];
+	private int[] parent = new int[INITIAL_LABELS];
+	private int[] parentEdge = new int[INITIAL_LABELS];
+	private boolean[] dead = new boolean[INITIAL_LABELS];
+	private int labelCount;
+
+	// Live labels per station as singly linked lists through nextInBag
+	private final int[] bagHead;
+	private int[] nextInBag = new int[INITIAL_LABELS];
+
+	private final IndexedHeap heap = new IndexedHeap(INITIAL_LABELS);
+	private int[] results = new int[8];
+	private int resultCount;
+
+	private ParetoSearch(RouteGraph graph, double epsilon) {
+		this.graph = graph;
+		this.slack = 1.0 + epsilon;
+		bagHead = new int[graph.getStationCount()];
+		Arrays.fill(bagHead, -1);
+	}
+
+	// Finds every non-dominated route from source to target. With epsilon > 0 a
+	// label is also dropped when another one is within a factor (1 + epsilon) of it
+	// on every weight, which bounds the number of labels at the price of exactness.
+	static ParetoSearch run(RouteGraph graph, int source, int target, double epsilon) {
+		ParetoSearch search = new ParetoSearch(graph, Math.max(0.0, epsilon));
+		search.search(source, target);
+		return search;
+	}
+
+	private void search(int source, int target) {
+		double[] distanceWeights = graph.getWeights(RouteMetric.DISTANCE);
+		double[] costWeights = graph.getWeights(RouteMetric.COST);
+		double[] trafficWeights = graph.getWeights(RouteMetric.LEAST_TRAFFIC_TIME);
+
+		addLabel(source, 0.0, 0.0, 0.0, -1, -1);
+		while (!heap.isEmpty()) {
+			int label = heap.poll();
+			if (dead[label])
+				continue;
+
+			// Keys only grow along a route, so nothing queued later can dominate this label
+			int at = station[label];
+			if (at == target) {
+				addResult(label);
+				continue;
+			}
+
+			for (int edge = graph.edgeStart(at), end = graph.edgeEnd(at); edge < end; edge++) {
+				if (!usable(distanceWeights, costWeights, trafficWeights, edge))
+					continue;
+				int next = graph.getTarget(edge);
+				double d = distance[label] + distanceWeights[edge];
+				double c = cost[label] + costWeights[edge];
+				double t = traffic[label] + trafficWeights[edge];
+
+				// Prune against the routes already found and the labels waiting at the next station
+				if (dominatedInBag(bagHead[target], d, c, t) || dominatedInBag(bagHead[next], d, c, t))
+					continue;
+				removeDominated(next, d, c, t);
+				addLabel(next, d, c, t, label, edge);
+			}
+		}
+	}
+
+	// Same edge filter as the single-metric searches: distance must be positive
+	private static boolean usable(double[] distanceWeights, double[] costWeights, double[] trafficWeights, int edge) {
+		return !(RouteMetric.DISTANCE.requiresPositiveWeight() && distanceWeights[edge] <= 0)
+				&& !(RouteMetric.COST.requiresPositiveWeight() && costWeights[edge] <= 0)
+				&& !(RouteMetric.LEAST_TRAFFIC_TIME.requiresPositiveWeight() && trafficWeights[edge] <= 0);
+	}
+
+	private boolean dominatedInBag(int head, double d, double c, double t) {
+		for (int label = head; label != -1; label = nextInBag[label]) {
+			if (distance[label] <= slack * d && cost[label] <= slack * c && traffic[label] <= slack * t)
+				return true;
+		}
+		return false;
+	}
+
+	// Unlinks queued labels at the station that the new label dominates; they stay
+	// in the heap marked dead and are skipped when polled
+	private void removeDominated(int at, double d, double c, double t) {
+		int previous = -1;
+		for (int label = bagHead[at]; label != -1; label = nextInBag[label]) {
+			if (d <= distance[label] && c <= cost[label] && t <= traffic[label] && heap.contains(label)) {
+				dead[label] = true;
+				if (previous == -1) {
+					bagHead[at] = nextInBag[label];
+				} else {
+					nextInBag[previous] = nextInBag[label];
+				}
+			} else {
+				previous = label;
+			}
+		}
+	}
+
+	private void addLabel(int at, double d, double c, double t, int parentLabel, int edge) {
+		if (labelCount == station.length)
+			grow();
+		int label = labelCount++;
+		distance[label] = d;
+		cost[label] = c;
+		traffic[label] = t;
+		station[label] = at;
+		parent[label] = parentLabel;
+		parentEdge[label] = edge;
+		nextInBag[label] = bagHead[at];
+		bagHead[at] = label;
+		// The sum is monotone in every weight, so a dominating label is always polled first
+		heap.insertOrDecrease(label, d + c + t);
+	}
+
+	private void grow() {
+		int capacity = station.length * 2;
+		distance = Arrays.copyOf(distance, capacity);
+		cost = Arrays.copyOf(cost, capacity);
+		traffic = Arrays.copyOf(traffic, capacity);
+		station = Arrays.copyOf(station, capacity);
+		parent = Arrays.copyOf(parent, capacity);
+		parentEdge = Arrays.copyOf(parentEdge, capacity);
+		dead = Arrays.copyOf(dead, capacity);
+		nextInBag = Arrays.copyOf(nextInBag, capacity);
+		heap.ensureCapacity(capacity);
+	}
+
+	private void addResult(int label) {
+		if (resultCount == results.length)
+			results = Arrays.copyOf(results, resultCount * 2);
+		results[resultCount++] = label;
+	}
+
+	// Number of routes on the skyline, in the order they were found (by total of the three weights)
+	public int getResultCount() {
+		return resultCount;
+	}
+
+	public double getDistance(int result) {
+		return distance[results[result]];
+	}
+
+	public double getCost(int result) {
+		return cost[results[result]];
+	}
+
+	public double getTraffic(int result) {
+		return traffic[results[result]];
+	}
+
+	// Stations of the route from source to target
+	public int[] getStations(int result) {
+		int hops = 0;
+		for (int label = results[result]; label != -1; label = parent[label]) {
+			hops++;
+		}
+		int[] stations = new int[hops];
+		for (int label = results[result]; label != -1; label = parent[label]) {
+			stations[--hops] = station[label];
+		}
+		return stations;
+	}
+
+	// Snapshot edges of the route from source to target
+	public int[] getEdges(int result) {
+		int hops = 0;
+		for (int label = results[result]; parent[label] != -1; label = parent[label]) {
+			hops++;
+		}
+		int[] edges = new int[hops];
+		for (int label = results[result]; parent[label] != -1; label = parent[label]) {
+			edges[--hops] = parentEdge[label];
+		}
+		return edges;
+	}
+
+	// Total labels created, a measure of how much work the search did
+	public int getLabelCount() {
+		return labelCount;
+	}
+}
@@ -7,6 +7,8 @@ class Route {
 	private String vehicleType;
 	private double cost;
 	private double leastTrafficTime;
+	// Optional time-of-day travel times; null means leastTrafficTime holds all day
+	private TrafficProfile trafficProfile;
 
 	public Route(String source, String destination, double distance, String vehicleType, double cost,
 			double leastTrafficTime) {
@@ -18,6 +20,12 @@ class Route {
 		this.leastTrafficTime = leastTrafficTime;
 	}
 
+	public Route(String source, String destination, double distance, String vehicleType, double cost,
+			double leastTrafficTime, TrafficProfile trafficProfile) {
+		this(source, destination, distance, vehicleType, cost, leastTrafficTime);
+		this.trafficProfile = trafficProfile;
+	}
+
 	public String getSource() {
 		return source;
 	}
@@ -42,11 +50,44 @@ class Route {
 		return leastTrafficTime;
 	}
 
+	public TrafficProfile getTrafficProfile() {
+		return trafficProfile;
+	}
+
+	// Travel time when entering the route at the given hour of the day
+	public double getTrafficTime(double departureHour) {
+		return trafficProfile == null ? leastTrafficTime : trafficProfile.travelTime(departureHour);
+	}
+
+	// Why the route would corrupt searches, or null if it may be applied. Every way a route
+	// enters the graph checks it here, so a route accepted at runtime also survives a reload.
+	static String validate(Route route) {
+		return validate(route.source, route.destination, route.vehicleType, route.distance, route.cost,
+				route.leastTrafficTime);
+	}
+
+	static String validate(String source, String destination, String vehicleType, double distance, double cost,
+			double leastTrafficTime) {
+		if (source == null || source.isEmpty() || destination == null || destination.isEmpty())
+			return "source or destination is missing";
+		if (vehicleType == null || vehicleType.isEmpty())
+			return "vehicle type is missing";
+		if (source.equals(destination))
+			return "route from " + source + " to itself";
+		if (!(distance > 0) || Double.isInfinite(distance))
+			return "distance must be positive, not " + distance;
+		if (!(cost >= 0) || Double.isInfinite(cost))
+			return "cost must not be negative, not " + cost;
+		if (!(leastTrafficTime >= 0) || Double.isInfinite(leastTrafficTime))
+			return "travel time must not be negative, not " + leastTrafficTime;
+		return null;
+	}
+
 	@Override
 	public String toString() {
 		return "Route{" + "source='" + source + '\'' + ", destination='" + destination + '\'' + ", distance=" + distance
 				+ ", vehicleType='" + vehicleType + '\'' + ", cost=" + cost + ", leastTrafficTime=" + leastTrafficTime
-				+ '}';
+				+ (trafficProfile == null ? "" : ", trafficProfile=" + trafficProfile) + '}';
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Routes collected for one bulk change of a RouteManager, e.g. the initial routes or a
+// nightly import. Adding to a batch only stages the route, keyed by source, vehicle type
+// and destination, so a later route for the same key replaces the earlier one in O(1).
+// Nothing reaches the graph until commit(), which applies the whole batch or, if any
+// route was invalid, none of it.
+public final class RouteBatch {
+	// How many invalid routes the rejection message lists
+	private static final int REPORTED_ERRORS = 10;
+
+	private final RouteManager routeManager;
+	// source -> vehicle type -> destination -> route, in the order the keys were first staged
+	private final Map<String, Map<String, Map<String, Route>>> staged = new LinkedHashMap<>();
+	private final List<String> errors = new ArrayList<>();
+	private int size;
+	private boolean committed;
+
+	RouteBatch(RouteManager routeManager) {
+		this.routeManager = routeManager;
+	}
+
+	// Stages a route, and its reverse if bidirectional, with the same checks as addRoute
+	public RouteBatch add(Route route, boolean bidirectional) {
+		if (committed)
+			throw new IllegalStateException("Route batch was already committed");
+		String problem = Route.validate(route);
+		if (problem != null) {
+			errors.add("Invalid route, " + problem + ": " + route);
+			return this;
+		}
+		stage(route);
+		if (bidirectional) {
+			stage(new Route(route.getDestination(), route.getSource(), route.getDistance(), route.getVehicleType(),
+					route.getCost(), route.getLeastTrafficTime(), route.getTrafficProfile()));
+		}
+		return this;
+	}
+
+	public RouteBatch addAll(Iterable<Route> routes, boolean bidirectional) {
+		for (Route route : routes) {
+			add(route, bidirectional);
+		}
+		return this;
+	}
+
+	// For imports that produce routes one at a time instead of holding them in a list
+	public RouteBatch addAll(Stream<Route> routes, boolean bidirectional) {
+		routes.forEachOrdered(route -> add(route, bidirectional));
+		return this;
+	}
+
+	private void stage(Route route) {
+		Route replaced = staged.computeIfAbsent(route.getSource(), k -> new LinkedHashMap<>())
+				.computeIfAbsent(route.getVehicleType(), k -> new LinkedHashMap<>())
+				.put(route.getDestination(), route);
+		if (replaced == null) {
+			size++;
+		}
+	}
+
+	// Applies the batch to the route manager. Returns false, leaving the graph unchanged,
+	// if any staged route was invalid or the batch could not be logged.
+	public boolean commit() {
+		if (committed)
+			throw new IllegalStateException("Route batch was already committed");
+		committed = true;
+		if (!errors.isEmpty()) {
+			System.out.println("Error: Route batch rejected, " + errors.size() + " invalid routes:");
+			for (String error : errors.subList(0, Math.min(errors.size(), REPORTED_ERRORS))) {
+				System.out.println("  " + error);
+			}
+			return false;
+		}
+		return routeManager.commitBatch(this);
+	}
+
+	// Number of distinct routes staged, counting the reverse of bidirectional ones
+	public int size() {
+		return size;
+	}
+
+	Map<String, Map<String, Map<String, Route>>> getStaged() {
+		return staged;
+	}
+
+	List<Route> getRoutes() {
+		List<Route> routes = new ArrayList<>(size);
+		for (Map<String, Map<String, Route>> byVehicleType : staged.values()) {
+			for (Map<String, Route> byDestination : byVehicleType.values()) {
+				routes.addAll(byDestination.values());
+			}
+		}
+		return routes;
+	}
+}
@@ -0,0 +1,243 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Bounded LRU cache of point-to-point route results, one entry per (source,
+// destination, vehicle type, metric). Queries with intermediates are answered
+// leg by leg, so they hit the cache through their legs.
+//
+// Every vehicle type has a version counter that each route change bumps. An
+// entry is only served while its version is current; after a change, entries
+// the change cannot affect are re-stamped and the rest are dropped.
+final class RouteCache {
+	static final int DEFAULT_CAPACITY = 10_000;
+
+	private static final class Key {
+		private final String source;
+		private final String destination;
+		private final String vehicleType;
+		private final RouteMetric metric;
+
+		private Key(String source, String destination, String vehicleType, RouteMetric metric) {
+			this.source = source;
+			this.destination = destination;
+			this.vehicleType = vehicleType;
+			this.metric = metric;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key other = (Key) o;
+			return source.equals(other.source) && destination.equals(other.destination)
+					&& vehicleType.equals(other.vehicleType) && metric == other.metric;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(source, destination, vehicleType, metric);
+		}
+	}
+
+	private static final class Entry {
+		private final List<String> path;
+		// Metric total of the path; infinity records that the destination was unreachable
+		private final double weight;
+		private long version;
+
+		private Entry(List<String> path, double weight, long version) {
+			this.path = path;
+			this.weight = weight;
+			this.version = version;
+		}
+	}
+
+	private final int capacity;
+	private final LinkedHashMap<Key, Entry> entries;
+	private final Map<String, Long> versions = new HashMap<>();
+	// Added to every vehicle type's version; bumped when the whole graph is replaced
+	private long baseVersion;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong invalidations = new AtomicLong();
+
+	RouteCache(int capacity) {
+		this.capacity = capacity;
+		// Access order turns the map into an LRU list; the eldest entry is the least recently used
+		this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				if (size() <= RouteCache.this.capacity)
+					return false;
+				evictions.incrementAndGet();
+				return true;
+			}
+		};
+	}
+
+	// Current version for a vehicle type; read it before searching and pass it to put
+	synchronized long getVersion(String vehicleType) {
+		return baseVersion + versions.getOrDefault(vehicleType, 0L);
+	}
+
+	// Cached path (empty if the destination was unreachable), or null on a miss
+	synchronized List<String> get(String source, String destination, String vehicleType, RouteMetric metric) {
+		Entry entry = entries.get(new Key(source, destination, vehicleType, metric));
+		if (entry == null || entry.version != getVersion(vehicleType)) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return new ArrayList<>(entry.path);
+	}
+
+	// Stores a result unless the graph changed while it was being searched
+	synchronized void put(String source, String destination, String vehicleType, RouteMetric metric,
+			List<String> path, double weight, long searchedVersion) {
+		if (searchedVersion != getVersion(vehicleType))
+			return;
+		entries.put(new Key(source, destination, vehicleType, metric),
+				new Entry(new ArrayList<>(path), weight, searchedVersion));
+	}
+
+	// Drops everything, e.g. after the whole graph was reloaded
+	synchronized void clear() {
+		invalidations.addAndGet(entries.size());
+		entries.clear();
+		baseVersion++;
+	}
+
+	// Drops every entry of the vehicle type, e.g. after a batch of route changes that
+	// would cost more to check one by one than to search again
+	synchronized void vehicleTypeChanged(String vehicleType) {
+		versions.merge(vehicleType, 1L, Long::sum);
+		int before = entries.size();
+		entries.keySet().removeIf(key -> key.vehicleType.equals(vehicleType));
+		invalidations.addAndGet(before - entries.size());
+	}
+
+	// Called after the route from -> to changed for the vehicle type.
+	// An entry is dropped if its path passes through from (the route may have got
+	// worse or been replaced), or if going through the new route now beats it:
+	// d(source, from) + w + d(to, destination) < cached weight.
+	// The snapshot is only built if there are entries to check.
+	void routeChanged(String vehicleType, Supplier<RouteGraph> snapshotSource, String from, String to) {
+		List<Key> candidates = new ArrayList<>();
+		long version;
+		synchronized (this) {
+			versions.merge(vehicleType, 1L, Long::sum);
+			version = getVersion(vehicleType);
+			for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+				if (entry.getKey().vehicleType.equals(vehicleType))
+					candidates.add(entry.getKey());
+			}
+		}
+		if (candidates.isEmpty())
+			return;
+
+		RouteGraph snapshot = snapshotSource.get();
+		int fromId = snapshot.getStationId(from);
+		int toId = snapshot.getStationId(to);
+		if (fromId < 0 || toId < 0) {
+			// The last route of a station was removed, so the new snapshot has nothing to search from
+			synchronized (this) {
+				for (Key key : candidates) {
+					if (entries.remove(key) != null)
+						invalidations.incrementAndGet();
+				}
+			}
+			return;
+		}
+		List<Key> stale = new ArrayList<>();
+		for (RouteMetric metric : RouteMetric.values()) {
+			List<Key> keys = new ArrayList<>();
+			for (Key key : candidates) {
+				if (key.metric == metric)
+					keys.add(key);
+			}
+			if (keys.isEmpty())
+				continue;
+
+			double weight = cheapestEdge(snapshot, fromId, toId, metric);
+			// The two searches use separate per-thread workspaces, so both results stay valid together
+			SearchWorkspace toFrom = DijkstraSearch.runBackward(snapshot, fromId, metric);
+			SearchWorkspace fromTo = DijkstraSearch.run(snapshot, toId, -1, metric);
+			synchronized (this) {
+				for (Key key : keys) {
+					Entry entry = entries.get(key);
+					if (entry == null)
+						continue;
+					int source = snapshot.getStationId(key.source);
+					int destination = snapshot.getStationId(key.destination);
+					if (source < 0 || destination < 0) {
+						stale.add(key);
+						continue;
+					}
+					double detour = toFrom.getDistance(source) + weight + fromTo.getDistance(destination);
+					if (entry.path.contains(from) || detour < entry.weight) {
+						stale.add(key);
+					}
+				}
+			}
+		}
+
+		synchronized (this) {
+			for (Key key : stale) {
+				if (entries.remove(key) != null)
+					invalidations.incrementAndGet();
+			}
+			// Whatever survived is still exact for the new graph
+			for (Key key : candidates) {
+				Entry entry = entries.get(key);
+				if (entry != null && entry.version == version - 1)
+					entry.version = version;
+			}
+		}
+	}
+
+	private static double cheapestEdge(RouteGraph snapshot, int from, int to, RouteMetric metric) {
+		double[] weights = snapshot.getWeights(metric);
+		double best = Double.POSITIVE_INFINITY;
+		for (int edge = snapshot.edgeStart(from); edge < snapshot.edgeEnd(from); edge++) {
+			if (snapshot.getTarget(edge) != to || (metric.requiresPositiveWeight() && weights[edge] <= 0))
+				continue;
+			best = Math.min(best, weights[edge]);
+		}
+		return best;
+	}
+
+	synchronized int size() {
+		return entries.size();
+	}
+
+	long getHits() {
+		return hits.get();
+	}
+
+	long getMisses() {
+		return misses.get();
+	}
+
+	long getEvictions() {
+		return evictions.get();
+	}
+
+	long getInvalidations() {
+		return invalidations.get();
+	}
+
+	@Override
+	public String toString() {
+		return "RouteCache{" + "entries=" + size() + ", capacity=" + capacity + ", hits=" + hits + ", misses="
+				+ misses + ", evictions=" + evictions + ", invalidations=" + invalidations + '}';
+	}
+}
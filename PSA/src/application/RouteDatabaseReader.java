@@ -0,0 +1,150 @@
+package application;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reads routesdatabase.json token by token into the route map, without the reflective
+// object binding of gson.fromJson. Station and vehicle type names go through one
+// dictionary, so the thousands of routes touching a station share a single String
+// instead of each holding its own copy, and every route is checked as it is read.
+//
+// Routes that would corrupt searches are skipped with a warning instead of failing the
+// load: non-positive or non-finite distances, negative or non-finite costs and travel
+// times, self-loops, and routes whose source or vehicle type disagrees with the keys
+// they are filed under. There is no fixed list of vehicle types, so a mode counts as
+// unknown when it is missing or does not match its key.
+final class RouteDatabaseReader {
+	// How many skipped routes are reported one by one before only counting them
+	private static final int REPORTED_WARNINGS = 20;
+
+	private final Map<String, String> names = new HashMap<>();
+	private final TrafficProfile.Adapter profileAdapter = new TrafficProfile.Adapter();
+	private int routeCount;
+	private int skippedCount;
+
+	private RouteDatabaseReader() {
+	}
+
+	// Reads a whole database file; returns null if the file holds no route map at all
+	static Map<String, Map<String, List<Route>>> read(File file) throws IOException {
+		try (Reader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+			return new RouteDatabaseReader().read(reader);
+		}
+	}
+
+	private Map<String, Map<String, List<Route>>> read(Reader reader) throws IOException {
+		JsonReader in = new JsonReader(reader);
+		if (in.peek() == JsonToken.END_DOCUMENT)
+			return null;
+		if (in.peek() == JsonToken.NULL) {
+			in.nextNull();
+			return null;
+		}
+		Map<String, Map<String, List<Route>>> graph = new HashMap<>();
+		in.beginObject();
+		while (in.hasNext()) {
+			String source = intern(in.nextName());
+			Map<String, List<Route>> vehicleRoutes = graph.computeIfAbsent(source, k -> new HashMap<>());
+			in.beginObject();
+			while (in.hasNext()) {
+				String vehicleType = intern(in.nextName());
+				List<Route> routes = vehicleRoutes.computeIfAbsent(vehicleType, k -> new ArrayList<>());
+				in.beginArray();
+				while (in.hasNext()) {
+					Route route = readRoute(in, source, vehicleType);
+					if (route != null) {
+						routes.add(route);
+					}
+				}
+				in.endArray();
+			}
+			in.endObject();
+		}
+		in.endObject();
+		if (skippedCount > 0) {
+			System.out.println("Warning: skipped " + skippedCount + " of " + routeCount + " routes in the database");
+		}
+		return graph;
+	}
+
+	// Reads one route object; returns null if it fails validation
+	private Route readRoute(JsonReader in, String key, String vehicleKey) throws IOException {
+		String path = in.getPath();
+		String source = null;
+		String destination = null;
+		String vehicleType = null;
+		double distance = Double.NaN;
+		double cost = Double.NaN;
+		double leastTrafficTime = Double.NaN;
+		TrafficProfile trafficProfile = null;
+
+		routeCount++;
+		in.beginObject();
+		while (in.hasNext()) {
+			String field = in.nextName();
+			if (in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				continue;
+			}
+			switch (field) {
+			case "source":
+				source = intern(in.nextString());
+				break;
+			case "destination":
+				destination = intern(in.nextString());
+				break;
+			case "vehicleType":
+				vehicleType = intern(in.nextString());
+				break;
+			case "distance":
+				distance = in.nextDouble();
+				break;
+			case "cost":
+				cost = in.nextDouble();
+				break;
+			case "leastTrafficTime":
+				leastTrafficTime = in.nextDouble();
+				break;
+			case "trafficProfile":
+				trafficProfile = profileAdapter.read(in);
+				break;
+			default:
+				in.skipValue();
+			}
+		}
+		in.endObject();
+
+		String problem = validate(key, vehicleKey, source, destination, vehicleType, distance, cost, leastTrafficTime);
+		if (problem != null) {
+			if (++skippedCount <= REPORTED_WARNINGS) {
+				System.out.println("Warning: Skipping route at " + path + ": " + problem);
+			}
+			return null;
+		}
+		return new Route(source, destination, distance, vehicleType, cost, leastTrafficTime, trafficProfile);
+	}
+
+	// The filing checks of the JSON layout, then the rules every route must pass
+	private static String validate(String key, String vehicleKey, String source, String destination,
+			String vehicleType, double distance, double cost, double leastTrafficTime) {
+		if (source != null && !source.equals(key))
+			return "source " + source + " is filed under " + key;
+		if (vehicleType == null || !vehicleType.equals(vehicleKey))
+			return "unknown vehicle type " + vehicleType + " filed under " + vehicleKey;
+		return Route.validate(source, destination, vehicleType, distance, cost, leastTrafficTime);
+	}
+
+	// Same String instance for every occurrence of a name
+	private String intern(String name) {
+		String shared = names.putIfAbsent(name, name);
+		return shared != null ? shared : name;
+	}
+}
@@ -0,0 +1,368 @@
+package application;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Immutable, read-optimised snapshot of the route graph for a single vehicle type.
+// Stations are interned into int IDs and the outgoing routes are stored in
+// compressed-sparse-row form with one primitive column per metric.
+final class RouteGraph {
+	private final String vehicleType;
+	private final Map<String, Integer> stationIds;
+	private final String[] stationNames;
+	private final int[] offsets;
+	private final int[] targets;
+	private final double[] distance;
+	private final double[] cost;
+	private final double[] leastTrafficTime;
+	// Time-of-day travel times per edge, null for edges with a constant time; the whole
+	// column is null when no route of this vehicle type has a profile
+	private final TrafficProfile[] trafficProfiles;
+	// Reverse index: incoming edges grouped by target, pointing back into the forward columns
+	private final int[] reverseOffsets;
+	private final int[] reverseEdges;
+	private final int[] reverseSources;
+	// Content hash used to tell whether data derived from an older snapshot is still valid
+	private final long fingerprint;
+	// (from, to) -> edge hash table, built on first use and shared with weight-only copies
+	private final EdgeIndex edgeIndex;
+	// Blended columns for the CompositeMetric presets, computed on first use
+	private final Map<CompositeMetric, double[]> presetWeights = new ConcurrentHashMap<>();
+
+	// Open addressing over packed (from, to) keys. Where the route map holds several
+	// routes between the same stations the first one wins, like the list scans did.
+	private static final class EdgeIndex {
+		private volatile long[] keys;
+		private int[] edges;
+		private int mask;
+
+		private int find(RouteGraph graph, int from, int to) {
+			long[] table = keys;
+			if (table == null)
+				table = build(graph);
+			long key = pack(from, to);
+			for (int slot = mix(key) & mask;; slot = (slot + 1) & mask) {
+				if (table[slot] == key)
+					return edges[slot];
+				if (table[slot] == -1L)
+					return -1;
+			}
+		}
+
+		private synchronized long[] build(RouteGraph graph) {
+			if (keys != null)
+				return keys;
+			int capacity = Integer.highestOneBit(Math.max(2, graph.targets.length * 2 - 1)) << 1;
+			long[] table = new long[capacity];
+			Arrays.fill(table, -1L);
+			int[] slots = new int[capacity];
+			int tableMask = capacity - 1;
+			for (int from = 0; from < graph.stationNames.length; from++) {
+				for (int edge = graph.offsets[from]; edge < graph.offsets[from + 1]; edge++) {
+					long key = pack(from, graph.targets[edge]);
+					int slot = mix(key) & tableMask;
+					while (table[slot] != -1L && table[slot] != key) {
+						slot = (slot + 1) & tableMask;
+					}
+					if (table[slot] == -1L) {
+						table[slot] = key;
+						slots[slot] = edge;
+					}
+				}
+			}
+			edges = slots;
+			mask = tableMask;
+			// Published last: readers that see the keys also see edges and mask
+			keys = table;
+			return table;
+		}
+
+		private static long pack(int from, int to) {
+			return ((long) from << 32) | (to & 0xffffffffL);
+		}
+
+		private static int mix(long key) {
+			long hash = key * 0x9E3779B97F4A7C15L;
+			return (int) (hash ^ (hash >>> 32));
+		}
+	}
+
+	private RouteGraph(String vehicleType, Map<String, Integer> stationIds, String[] stationNames, int[] offsets,
+			int[] targets, double[] distance, double[] cost, double[] leastTrafficTime,
+			TrafficProfile[] trafficProfiles) {
+		this.vehicleType = vehicleType;
+		this.stationIds = stationIds;
+		this.stationNames = stationNames;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.distance = distance;
+		this.cost = cost;
+		this.leastTrafficTime = leastTrafficTime;
+		this.trafficProfiles = trafficProfiles;
+		this.edgeIndex = new EdgeIndex();
+
+		// Counting sort of the forward edges by target station
+		int stationCount = stationNames.length;
+		reverseOffsets = new int[stationCount + 1];
+		for (int target : targets) {
+			reverseOffsets[target + 1]++;
+		}
+		for (int node = 0; node < stationCount; node++) {
+			reverseOffsets[node + 1] += reverseOffsets[node];
+		}
+		reverseEdges = new int[targets.length];
+		reverseSources = new int[targets.length];
+		int[] next = Arrays.copyOf(reverseOffsets, stationCount);
+		for (int node = 0; node < stationCount; node++) {
+			for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+				int slot = next[targets[edge]]++;
+				reverseEdges[slot] = edge;
+				reverseSources[slot] = node;
+			}
+		}
+
+		fingerprint = fingerprint();
+	}
+
+	// Shares the structure and reverse index of another snapshot with new weight columns
+	private RouteGraph(RouteGraph structure, double[] distance, double[] cost, double[] leastTrafficTime) {
+		this.vehicleType = structure.vehicleType;
+		this.stationIds = structure.stationIds;
+		this.stationNames = structure.stationNames;
+		this.offsets = structure.offsets;
+		this.targets = structure.targets;
+		this.distance = distance;
+		this.cost = cost;
+		this.leastTrafficTime = leastTrafficTime;
+		this.trafficProfiles = structure.trafficProfiles;
+		this.reverseOffsets = structure.reverseOffsets;
+		this.reverseEdges = structure.reverseEdges;
+		this.reverseSources = structure.reverseSources;
+		this.edgeIndex = structure.edgeIndex;
+		fingerprint = fingerprint();
+	}
+
+	private long fingerprint() {
+		long hash = vehicleType.hashCode();
+		for (String name : stationNames) {
+			hash = hash * 31 + name.hashCode();
+		}
+		hash = hash * 31 + Arrays.hashCode(offsets);
+		hash = hash * 31 + Arrays.hashCode(targets);
+		hash = hash * 31 + Arrays.hashCode(distance);
+		hash = hash * 31 + Arrays.hashCode(cost);
+		return hash * 31 + Arrays.hashCode(leastTrafficTime);
+	}
+
+	// Copy of this snapshot with one edge's weights replaced. Only the weight columns
+	// are copied, so this is much cheaper than build and edge IDs stay the same.
+	RouteGraph withEdgeWeights(int edge, double newDistance, double newCost, double newLeastTrafficTime) {
+		double[] distanceColumn = distance.clone();
+		double[] costColumn = cost.clone();
+		double[] trafficColumn = leastTrafficTime.clone();
+		distanceColumn[edge] = newDistance;
+		costColumn[edge] = newCost;
+		trafficColumn[edge] = newLeastTrafficTime;
+		return new RouteGraph(this, distanceColumn, costColumn, trafficColumn);
+	}
+
+	// Builds the snapshot for one vehicle type from the string-keyed route map
+	static RouteGraph build(Map<String, Map<String, List<Route>>> graph, String vehicleType) {
+		// Every station in the network gets an ID so lookups behave the same for all vehicle types.
+		// Source stations are numbered first so replacing a route keeps the IDs stable.
+		Map<String, Integer> ids = new HashMap<>();
+		for (String station : graph.keySet()) {
+			ids.put(station, ids.size());
+		}
+		for (Map.Entry<String, Map<String, List<Route>>> entry : graph.entrySet()) {
+			for (List<Route> routes : entry.getValue().values()) {
+				for (Route route : routes) {
+					ids.putIfAbsent(route.getDestination(), ids.size());
+				}
+			}
+		}
+
+		String[] names = new String[ids.size()];
+		for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+			names[entry.getValue()] = entry.getKey();
+		}
+
+		// First pass counts edges per station, second pass fills the columns
+		int[] offsets = new int[names.length + 1];
+		for (int node = 0; node < names.length; node++) {
+			offsets[node + 1] = offsets[node] + routesOf(graph, names[node], vehicleType).size();
+		}
+
+		int edgeCount = offsets[names.length];
+		int[] targets = new int[edgeCount];
+		double[] distance = new double[edgeCount];
+		double[] cost = new double[edgeCount];
+		double[] leastTrafficTime = new double[edgeCount];
+		TrafficProfile[] trafficProfiles = null;
+
+		for (int node = 0; node < names.length; node++) {
+			int edge = offsets[node];
+			for (Route route : routesOf(graph, names[node], vehicleType)) {
+				targets[edge] = ids.get(route.getDestination());
+				distance[edge] = route.getDistance();
+				cost[edge] = route.getCost();
+				leastTrafficTime[edge] = route.getLeastTrafficTime();
+				if (route.getTrafficProfile() != null) {
+					if (trafficProfiles == null)
+						trafficProfiles = new TrafficProfile[edgeCount];
+					trafficProfiles[edge] = route.getTrafficProfile();
+				}
+				edge++;
+			}
+		}
+
+		return new RouteGraph(vehicleType, ids, names, offsets, targets, distance, cost, leastTrafficTime,
+				trafficProfiles);
+	}
+
+	// Snapshot from columns read back from a RouteSnapshotFile. The station numbering must be
+	// the one build produced, so data derived from the written snapshot keeps its fingerprint.
+	// Snapshots of one file share the station arrays, as all vehicle types number stations alike.
+	static RouteGraph fromColumns(String vehicleType, Map<String, Integer> stationIds, String[] stationNames,
+			int[] offsets, int[] targets, double[] distance, double[] cost, double[] leastTrafficTime,
+			TrafficProfile[] trafficProfiles) {
+		return new RouteGraph(vehicleType, stationIds, stationNames, offsets, targets, distance, cost,
+				leastTrafficTime, trafficProfiles);
+	}
+
+	private static List<Route> routesOf(Map<String, Map<String, List<Route>>> graph, String station,
+			String vehicleType) {
+		Map<String, List<Route>> vehicleRoutes = graph.get(station);
+		if (vehicleRoutes == null) {
+			return List.of();
+		}
+		List<Route> routes = vehicleRoutes.get(vehicleType);
+		return routes == null ? List.of() : routes;
+	}
+
+	public String getVehicleType() {
+		return vehicleType;
+	}
+
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	// True if both snapshots have the same stations and edges, i.e. one is a weight-only copy of the other
+	boolean hasSameStructure(RouteGraph other) {
+		return other.offsets == offsets && other.targets == targets;
+	}
+
+	// Returns the station's ID, or -1 if the station is unknown
+	public int getStationId(String station) {
+		Integer id = stationIds.get(station);
+		return id == null ? -1 : id;
+	}
+
+	public String getStationName(int station) {
+		return stationNames[station];
+	}
+
+	public int getStationCount() {
+		return stationNames.length;
+	}
+
+	public int getEdgeCount() {
+		return targets.length;
+	}
+
+	// Outgoing edges of a station are the index range [edgeStart, edgeEnd)
+	public int edgeStart(int station) {
+		return offsets[station];
+	}
+
+	public int edgeEnd(int station) {
+		return offsets[station + 1];
+	}
+
+	public int getTarget(int edge) {
+		return targets[edge];
+	}
+
+	// Edge of the route from -> to in O(1), or -1 if there is none
+	public int findEdge(int from, int to) {
+		return edgeIndex.find(this, from, to);
+	}
+
+	// Incoming edges of a station are the reverse index range [reverseEdgeStart, reverseEdgeEnd)
+	public int reverseEdgeStart(int station) {
+		return reverseOffsets[station];
+	}
+
+	public int reverseEdgeEnd(int station) {
+		return reverseOffsets[station + 1];
+	}
+
+	// Returns the forward edge ID stored at a reverse index slot
+	public int getReverseEdge(int slot) {
+		return reverseEdges[slot];
+	}
+
+	// Returns the station the incoming edge at a reverse index slot starts from
+	public int getReverseSource(int slot) {
+		return reverseSources[slot];
+	}
+
+	public boolean hasTrafficProfiles() {
+		return trafficProfiles != null;
+	}
+
+	// Time-of-day profile of an edge, or null if its travel time is constant
+	TrafficProfile getTrafficProfile(int edge) {
+		return trafficProfiles == null ? null : trafficProfiles[edge];
+	}
+
+	// Travel time of an edge when entered at the given hour of the day
+	public double getTrafficTime(int edge, double departureHour) {
+		TrafficProfile profile = trafficProfiles == null ? null : trafficProfiles[edge];
+		return profile == null ? leastTrafficTime[edge] : profile.travelTime(departureHour);
+	}
+
+	// Blended weight column for a composite metric, indexed by edge. Edges a blend
+	// must skip get infinity, so searches can use the column with no further checks.
+	public double[] getWeights(CompositeMetric metric) {
+		if (metric.isPreset()) {
+			return presetWeights.computeIfAbsent(metric, this::blend);
+		}
+		return blend(metric);
+	}
+
+	private double[] blend(CompositeMetric metric) {
+		double distanceWeight = metric.getDistanceWeight();
+		double costWeight = metric.getCostWeight();
+		double trafficWeight = metric.getTrafficWeight();
+		double[] blended = new double[targets.length];
+		// Straight pass over the three columns; the JIT turns this into SIMD code
+		for (int edge = 0; edge < blended.length; edge++) {
+			blended[edge] = distanceWeight * distance[edge] + costWeight * cost[edge]
+					+ trafficWeight * leastTrafficTime[edge];
+		}
+		if (metric.requiresPositiveDistance()) {
+			for (int edge = 0; edge < blended.length; edge++) {
+				if (distance[edge] <= 0)
+					blended[edge] = Double.POSITIVE_INFINITY;
+			}
+		}
+		return blended;
+	}
+
+	// Returns the weight column for the metric, indexed by edge
+	public double[] getWeights(RouteMetric metric) {
+		switch (metric) {
+		case DISTANCE:
+			return distance;
+		case COST:
+			return cost;
+		default:
+			return leastTrafficTime;
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package application;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Append-only, checksummed log of route mutations, kept next to the route database so
+// a change costs one small append instead of rewriting the whole JSON file. Each record
+// is [payload length][CRC32 of the payload][operation byte][routes as JSON] and is
+// forced to disk before the mutation returns. Routes that do not fit into one record,
+// e.g. a large batch, are split into a group of records that replay applies only once
+// the last of them is intact.
+//
+// Every record sets the routes it names to their new state, so replaying a record on a
+// snapshot that already contains it changes nothing. That is what lets compaction
+// rotate the log aside, write a new snapshot and only then delete the rotated log:
+// a crash at any point still recovers snapshot + rotated log + current log correctly.
+final class RouteLog implements Closeable {
+	static final byte ADD = 1;
+	static final byte UPDATE = 2;
+	static final byte REMOVE = 3;
+
+	// A record header is the payload length and checksum
+	private static final int HEADER_BYTES = 8;
+	// Anything larger is a damaged length field rather than a real record, so append
+	// never writes a larger one
+	private static final int MAX_PAYLOAD_BYTES = 64 << 20;
+	// Set in the operation byte of every record of a group but the last
+	private static final byte CONTINUED = 0x40;
+	private static final Type ROUTE_LIST_TYPE = new TypeToken<List<Route>>() {
+	}.getType();
+
+	private final File file;
+	private final Gson gson;
+	private FileChannel channel;
+
+	// Opens the log for appending, creating it if needed
+	RouteLog(File file, Gson gson) throws IOException {
+		this.file = file;
+		this.gson = gson;
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+	}
+
+	// Writes the routes as one record, or as a group of records if they exceed the payload
+	// limit, and forces them to disk once. The routes of one append, e.g. both directions
+	// of a bidirectional route or a whole batch, are applied together or not at all.
+	synchronized void append(byte operation, List<Route> routes) throws IOException {
+		List<byte[]> chunks = new ArrayList<>();
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		json.write('[');
+		for (Route route : routes) {
+			byte[] encoded = gson.toJson(route, Route.class).getBytes(StandardCharsets.UTF_8);
+			// Operation byte, brackets and the separator before this route
+			int overhead = json.size() > 1 ? 3 : 2;
+			if (json.size() > 1 && json.size() + encoded.length + overhead > MAX_PAYLOAD_BYTES) {
+				json.write(']');
+				chunks.add(json.toByteArray());
+				json.reset();
+				json.write('[');
+				overhead = 2;
+			}
+			if (encoded.length + overhead > MAX_PAYLOAD_BYTES)
+				throw new IOException("Route log record exceeds " + MAX_PAYLOAD_BYTES + " bytes: " + route);
+			if (json.size() > 1) {
+				json.write(',');
+			}
+			json.write(encoded);
+		}
+		json.write(']');
+		chunks.add(json.toByteArray());
+
+		for (int i = 0; i < chunks.size(); i++) {
+			byte[] chunk = chunks.get(i);
+			byte flags = (byte) (i < chunks.size() - 1 ? operation | CONTINUED : operation);
+			CRC32 crc = new CRC32();
+			crc.update(flags);
+			crc.update(chunk);
+			ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + 1 + chunk.length);
+			record.putInt(1 + chunk.length).putInt((int) crc.getValue()).put(flags).put(chunk).flip();
+			while (record.hasRemaining()) {
+				channel.write(record);
+			}
+		}
+		channel.force(false);
+	}
+
+	synchronized long size() throws IOException {
+		return channel.size();
+	}
+
+	// Renames the current log to rotated and starts an empty one. Compaction calls this
+	// while the graph is locked, so the rotated log holds exactly the mutations the new
+	// snapshot is taken after.
+	synchronized void rotate(File rotated) throws IOException {
+		if (rotated.exists())
+			throw new IOException("Rotated log still exists: " + rotated);
+		channel.close();
+		boolean renamed = file.renameTo(rotated);
+		// Keep appending somewhere even if the rename failed
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+		if (!renamed)
+			throw new IOException("Cannot rotate " + file + " to " + rotated);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		channel.close();
+	}
+
+	// Applies every intact append of a log file to the route map and returns how many
+	// were applied. Replay stops at the first torn or corrupt record, which is what a
+	// crash in the middle of an append leaves behind, and cuts the file back to the end
+	// of the last complete append so later appends follow valid data. Routes that fail
+	// Route.validate, which the mutations check before logging, are skipped with a warning.
+	static int replay(File file, Map<String, Map<String, List<Route>>> graph, Gson gson) throws IOException {
+		if (!file.exists())
+			return 0;
+		int applied = 0;
+		long validLength = 0;
+		long readLength = 0;
+		// Records of a group whose last record has not been read yet
+		List<Route> pending = new ArrayList<>();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			while (true) {
+				int length;
+				try {
+					length = in.readInt();
+				} catch (EOFException e) {
+					break;
+				}
+				int checksum;
+				byte[] payload;
+				try {
+					checksum = in.readInt();
+					if (length < 1 || length > MAX_PAYLOAD_BYTES)
+						break;
+					payload = new byte[length];
+					in.readFully(payload);
+				} catch (EOFException e) {
+					break;
+				}
+				CRC32 crc = new CRC32();
+				crc.update(payload);
+				if ((int) crc.getValue() != checksum)
+					break;
+
+				List<Route> routes = gson.fromJson(new String(payload, 1, length - 1, StandardCharsets.UTF_8),
+						ROUTE_LIST_TYPE);
+				pending.addAll(routes);
+				readLength += HEADER_BYTES + length;
+				if ((payload[0] & CONTINUED) != 0)
+					continue;
+				for (Route route : pending) {
+					String problem = payload[0] == REMOVE ? null : Route.validate(route);
+					if (problem != null) {
+						System.out.println("Warning: Skipping logged route in " + file.getName() + ": " + problem);
+						continue;
+					}
+					apply(graph, payload[0], route);
+				}
+				pending.clear();
+				applied++;
+				validLength = readLength;
+			}
+		}
+		if (validLength < file.length()) {
+			System.out.println("Warning: discarding " + (file.length() - validLength)
+					+ " bytes of incomplete route log entries in " + file.getName());
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+				channel.truncate(validLength);
+				channel.force(false);
+			}
+		}
+		return applied;
+	}
+
+	// Same effect on the route map as addRoute, updateRouteWeights and removeRoute
+	static void apply(Map<String, Map<String, List<Route>>> graph, byte operation, Route route) {
+		String destination = route.getDestination();
+		if (operation == REMOVE) {
+			// Removing a route that was never there must not add an empty station
+			List<Route> routes = graph.getOrDefault(route.getSource(), Map.of()).get(route.getVehicleType());
+			if (routes != null) {
+				routes.removeIf(r -> r.getDestination().equals(destination));
+			}
+			return;
+		}
+		List<Route> routes = graph.computeIfAbsent(route.getSource(), k -> new HashMap<>())
+				.computeIfAbsent(route.getVehicleType(), k -> new ArrayList<>());
+		switch (operation) {
+		case ADD:
+			routes.removeIf(r -> r.getDestination().equals(destination));
+			routes.add(route);
+			break;
+		case UPDATE:
+			for (int i = 0; i < routes.size(); i++) {
+				if (routes.get(i).getDestination().equals(destination)) {
+					routes.set(i, route);
+					return;
+				}
+			}
+			routes.add(route);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown route log operation: " + operation);
+		}
+	}
+}
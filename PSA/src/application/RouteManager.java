@@ -1,19 +1,81 @@
 package application;
 
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
 import javafx.scene.control.ComboBox;
 
 import java.io.*;
-import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 public class RouteManager {
 	private Map<String, Map<String, List<Route>>> graph;
+	// Set while the route lists of graph are read from a mapped route snapshot
+	private boolean routesMapped;
+	// Guards graph mutations against snapshot builds running on other threads
+	private final Object graphLock = new Object();
+	// Read-optimised CSR snapshots per vehicle type, rebuilt lazily after the graph changes
+	private final Map<String, RouteGraph> snapshots = new ConcurrentHashMap<>();
+	// ALT tables keyed by vehicle type and metric, loaded from disk or built on first use
+	private final Map<String, LandmarkIndex> landmarkIndexes = new ConcurrentHashMap<>();
+	private SearchStrategy searchStrategy = SearchStrategy.BIDIRECTIONAL;
+	private LandmarkSelection landmarkSelection = LandmarkSelection.AVOID;
+	private int landmarkCount = DEFAULT_LANDMARK_COUNT;
+	// Contraction Hierarchies keyed by vehicle type and metric; missing while a rebuild is pending
+	private final Map<String, ContractionHierarchy> hierarchies = new ConcurrentHashMap<>();
+	private ScheduledExecutorService hierarchyRebuilder;
+	private ScheduledFuture<?> pendingHierarchyRebuild;
+	private final Object rebuildLock = new Object();
+	// All-pairs matrices keyed by vehicle type and metric, refreshed on the next query after a change
+	private final Map<String, TravelMatrix> travelMatrices = new ConcurrentHashMap<>();
+	// Point-to-point results per metric, kept valid across route changes that cannot affect them
+	private final RouteCache routeCache = new RouteCache(RouteCache.DEFAULT_CAPACITY);
+	// Full search trees for frequently used origins, so their segments become tree walks
+	private final ShortestPathTreeCache treeCache = new ShortestPathTreeCache(
+			ShortestPathTreeCache.DEFAULT_BUDGET_BYTES);
+	// Cell partitions per vehicle type; they depend only on the network's structure, so weight updates keep them
+	private final Map<String, GraphPartition> partitions = new ConcurrentHashMap<>();
+	// Customized cell overlays keyed by vehicle type and metric
+	private final Map<String, CellOverlay> overlays = new ConcurrentHashMap<>();
+	// Component labels per vehicle type; unlike the snapshots they are updated in place by addRoute
+	private final Map<String, ConnectivityIndex> connectivity = new ConcurrentHashMap<>();
 	private ComboBox<String> sourceComboBox;
 	private ComboBox<String> destinationComboBox;
 	private static final String ROUTE_DATA_FILE = "routesdatabase.json";
+	private static final String LANDMARK_DATA_FILE = "routesdatabase.landmarks";
+	private static final int DEFAULT_LANDMARK_COUNT = 8;
+	private static final String HIERARCHY_DATA_FILE = "routesdatabase.ch";
+	// Quiet period after the last addRoute before stale hierarchies are rebuilt
+	private static final long HIERARCHY_REBUILD_DELAY_MS = 2000;
+	private static final String TRAVEL_MATRIX_FILE_PREFIX = "routesdatabase.matrix.";
+	// Route changes since the last snapshot of routesdatabase.json; opened on the first change
+	private static final String ROUTE_LOG_FILE = "routesdatabase.log";
+	// The log being folded into a new snapshot; replayed as well if compaction was interrupted
+	private static final String ROTATED_ROUTE_LOG_FILE = "routesdatabase.log.old";
+	// Log size at which its changes are written into a new snapshot in the background
+	private static final long ROUTE_LOG_COMPACTION_BYTES = 1 << 20;
+	// Binary copy of routesdatabase.json for fast startup, rewritten whenever the JSON file is
+	private static final String ROUTE_SNAPSHOT_FILE = "routesdatabase.snapshot";
+	private RouteLog routeLog;
+	// Runs log compaction and route snapshot writes, one at a time; its thread starts with the first task
+	private final ExecutorService databaseWriter = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "route-database-writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private boolean compactionPending;
+	// Held for all work on the database files, so compaction never runs while they are loaded
+	private final Object compactionLock = new Object();
 	private final Gson gson = new Gson();
 
 	public RouteManager(ComboBox<String> sourceComboBox, ComboBox<String> destinationComboBox) {
@@ -23,21 +85,117 @@ public class RouteManager {
 		loadRoutesFromFile();
 	}
 
-	// Load routes from JSON file
+	// Load routes from the binary snapshot if it matches the JSON file, otherwise from
+	// the JSON file, and replay the changes logged since it was written
 	public void loadRoutesFromFile() {
 		File file = new File(ROUTE_DATA_FILE);
-		if (!file.exists())
+		File log = new File(ROUTE_LOG_FILE);
+		File rotatedLog = new File(ROTATED_ROUTE_LOG_FILE);
+		if (!file.exists() && !log.exists() && !rotatedLog.exists())
 			return;
 
-		try (FileReader reader = new FileReader(file)) {
-			Type type = new TypeToken<Map<String, Map<String, List<Route>>>>() {
-			}.getType();
-			Map<String, Map<String, List<Route>>> loadedGraph = gson.fromJson(reader, type);
+		synchronized (compactionLock) {
+			Map<String, Map<String, List<Route>>> loadedGraph = new HashMap<>();
+			Map<String, RouteGraph> loadedSnapshots = Map.of();
+			boolean mapped = false;
+			if (file.exists()) {
+				RouteSnapshotFile.Contents contents = readRouteSnapshot(file);
+				if (contents != null) {
+					loadedGraph = contents.routes;
+					loadedSnapshots = contents.snapshots;
+					mapped = true;
+					// Logged changes are applied to the route lists
+					if (log.length() > 0 || rotatedLog.length() > 0) {
+						RouteSnapshotFile.makeMutable(loadedGraph);
+						mapped = false;
+					}
+				} else {
+					try {
+						loadedGraph = RouteDatabaseReader.read(file);
+					} catch (IOException | IllegalStateException | NumberFormatException e) {
+						e.printStackTrace();
+						return;
+					}
+				}
+			}
 			if (loadedGraph != null) {
-				graph = loadedGraph;
+				int replayed = 0;
+				try {
+					// Order matters: the rotated log holds the older changes
+					replayed = RouteLog.replay(rotatedLog, loadedGraph, gson) + RouteLog.replay(log, loadedGraph, gson);
+					if (replayed > 0) {
+						System.out.println("Route log replayed: " + replayed + " changes");
+					}
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				synchronized (graphLock) {
+					graph = loadedGraph;
+					routesMapped = mapped;
+					invalidateDerivedData();
+					// Replayed changes make the mapped snapshots stale
+					if (replayed == 0) {
+						snapshots.putAll(loadedSnapshots);
+					}
+					connectivity.clear();
+					for (TravelMatrix matrix : travelMatrices.values()) {
+						matrix.markAllChanged();
+					}
+					routeCache.clear();
+				}
+				// Folding the replayed changes in now also writes a route snapshot matching the
+				// new JSON file, so the next start can map it
+				if (replayed > 0) {
+					databaseWriter.execute(this::compactRouteLog);
+				} else if (file.exists() && loadedSnapshots.isEmpty()) {
+					databaseWriter.execute(this::writeMissingRouteSnapshot);
+				}
+			}
+		}
+	}
+
+	private RouteSnapshotFile.Contents readRouteSnapshot(File source) {
+		File file = new File(ROUTE_SNAPSHOT_FILE);
+		try {
+			return RouteSnapshotFile.read(file, source);
+		} catch (IOException | RuntimeException e) {
+			System.out.println("Warning: Ignoring unreadable route snapshot " + file + ": " + e);
+			return null;
+		}
+	}
+
+	// Snapshots of every vehicle type for the current graph; call while holding graphLock
+	private List<RouteGraph> currentSnapshots() {
+		List<RouteGraph> current = new ArrayList<>();
+		for (String vehicleType : new TreeSet<>(getVehicleTypes())) {
+			current.add(getSnapshot(vehicleType));
+		}
+		return current;
+	}
+
+	private void writeRouteSnapshot(List<RouteGraph> current, int keyStationCount) throws IOException {
+		if (current.isEmpty())
+			return;
+		RouteSnapshotFile.write(new File(ROUTE_SNAPSHOT_FILE), new File(ROUTE_DATA_FILE), keyStationCount, current);
+	}
+
+	// Writes the route snapshot after the JSON file was loaded without one
+	private void writeMissingRouteSnapshot() {
+		synchronized (compactionLock) {
+			try {
+				List<RouteGraph> current;
+				int keyStationCount;
+				synchronized (graphLock) {
+					// Changes since the load are only in the log; compacting it writes the snapshot then
+					if (routeLog != null && routeLog.size() > 0)
+						return;
+					current = currentSnapshots();
+					keyStationCount = graph.size();
+				}
+				writeRouteSnapshot(current, keyStationCount);
+			} catch (IOException | RuntimeException e) {
+				e.printStackTrace();
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
 		}
 	}
 
@@ -67,12 +225,85 @@ public class RouteManager {
 		return destinationLocations;
 	}
 
-	// Save routes to JSON file
-	private void saveRoutesToFile() {
-		try (FileWriter writer = new FileWriter(ROUTE_DATA_FILE)) {
-			gson.toJson(graph, writer);
+	// Save routes to JSON file. The file is written next to the database and moved over
+	// it once synced, so a crash leaves either the old or the new database, never half of one.
+	private void saveRoutesToFile(String json) throws IOException {
+		File temp = new File(ROUTE_DATA_FILE + ".tmp");
+		try (FileOutputStream out = new FileOutputStream(temp)) {
+			out.write(json.getBytes(StandardCharsets.UTF_8));
+			out.getFD().sync();
+		}
+		Files.move(temp.toPath(), new File(ROUTE_DATA_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// The lists of a mapped route snapshot are read-only; call while holding graphLock
+	// before changing graph
+	private void makeRoutesMutable() {
+		if (routesMapped) {
+			RouteSnapshotFile.makeMutable(graph);
+			routesMapped = false;
+		}
+	}
+
+	// Records a route change in the log before it is applied; must be called while holding
+	// graphLock so the log order matches the order in which changes are applied. Returns
+	// false if the change could not be logged and so must not be applied.
+	private boolean logRouteChange(byte operation, Route... routes) {
+		try {
+			appendToLog(operation, Arrays.asList(routes));
+			return true;
 		} catch (IOException e) {
 			e.printStackTrace();
+			System.out.println("Error: Route change rejected, it could not be written to " + ROUTE_LOG_FILE);
+			return false;
+		}
+	}
+
+	private void appendToLog(byte operation, List<Route> routes) throws IOException {
+		if (routeLog == null) {
+			routeLog = new RouteLog(new File(ROUTE_LOG_FILE), gson);
+		}
+		routeLog.append(operation, routes);
+		if (routeLog.size() >= ROUTE_LOG_COMPACTION_BYTES && !compactionPending) {
+			compactionPending = true;
+			databaseWriter.execute(this::compactRouteLog);
+		}
+	}
+
+	// Folds the log into a new routesdatabase.json and route snapshot. The graph is only
+	// locked to serialize it and to start a new log; writing the files happens while
+	// changes keep coming in.
+	private void compactRouteLog() {
+		synchronized (compactionLock) {
+			File rotatedLog = new File(ROTATED_ROUTE_LOG_FILE);
+			try {
+				String json;
+				List<RouteGraph> current;
+				int keyStationCount;
+				synchronized (graphLock) {
+					compactionPending = false;
+					json = gson.toJson(graph);
+					current = currentSnapshots();
+					keyStationCount = graph.size();
+					// A rotated log left by an interrupted compaction is only safe to drop once
+					// the new JSON file is written; the current log is rotated on the next round
+					if (!rotatedLog.exists()) {
+						if (routeLog == null) {
+							routeLog = new RouteLog(new File(ROUTE_LOG_FILE), gson);
+						}
+						routeLog.rotate(rotatedLog);
+					}
+				}
+				saveRoutesToFile(json);
+				writeRouteSnapshot(current, keyStationCount);
+				if (!rotatedLog.delete()) {
+					System.out.println("Warning: could not delete " + rotatedLog);
+				}
+				System.out.println("Route log compacted into " + ROUTE_DATA_FILE);
+			} catch (IOException | RuntimeException e) {
+				e.printStackTrace();
+			}
 		}
 	}
 
@@ -82,32 +313,219 @@ public class RouteManager {
 		String destination = route.getDestination();
 		String vehicleType = route.getVehicleType();
 
-		if (source == null || source.isEmpty() || destination == null || destination.isEmpty() || vehicleType == null
-				|| vehicleType.isEmpty()) {
-			System.out.println("Error: Route source, destination, or vehicle type is missing: " + route);
+		String problem = Route.validate(route);
+		if (problem != null) {
+			System.out.println("Error: Invalid route, " + problem + ": " + route);
 			return;
 		}
 
-		// Add the route to the graph for the specified vehicle type
-		graph.computeIfAbsent(source, k -> new HashMap<>()).computeIfAbsent(vehicleType, k -> new ArrayList<>())
-				.removeIf(r -> r.getDestination().equals(destination));
-		graph.get(source).get(vehicleType).add(route);
+		Route reverseRoute = bidirectional ? new Route(destination, source, route.getDistance(), vehicleType,
+				route.getCost(), route.getLeastTrafficTime(), route.getTrafficProfile()) : null;
+		synchronized (graphLock) {
+			makeRoutesMutable();
+			boolean logged = bidirectional ? logRouteChange(RouteLog.ADD, route, reverseRoute)
+					: logRouteChange(RouteLog.ADD, route);
+			if (!logged)
+				return;
+
+			// Add the route to the graph for the specified vehicle type
+			graph.computeIfAbsent(source, k -> new HashMap<>()).computeIfAbsent(vehicleType, k -> new ArrayList<>())
+					.removeIf(r -> r.getDestination().equals(destination));
+			graph.get(source).get(vehicleType).add(route);
+
+			// Add reverse route if bidirectional
+			if (bidirectional) {
+				graph.computeIfAbsent(destination, k -> new HashMap<>())
+						.computeIfAbsent(vehicleType, k -> new ArrayList<>())
+						.removeIf(r -> r.getDestination().equals(source));
+				graph.get(destination).get(vehicleType).add(reverseRoute);
+			}
 
-		// Add reverse route if bidirectional
-		if (bidirectional) {
-			Route reverseRoute = new Route(destination, source, route.getDistance(), vehicleType, route.getCost(),
-					route.getLeastTrafficTime());
-			graph.computeIfAbsent(destination, k -> new HashMap<>())
-					.computeIfAbsent(vehicleType, k -> new ArrayList<>())
-					.removeIf(r -> r.getDestination().equals(source));
-			graph.get(destination).get(vehicleType).add(reverseRoute);
+			invalidateDerivedData();
+			ConnectivityIndex components = connectivity.get(vehicleType);
+			if (components != null) {
+				components.addEdge(source, destination);
+				if (bidirectional) {
+					components.addEdge(destination, source);
+				}
+			}
+			for (RouteMetric metric : RouteMetric.values()) {
+				TravelMatrix matrix = travelMatrices.get(LandmarkIndex.key(vehicleType, metric));
+				if (matrix != null) {
+					matrix.markChanged(source, destination);
+					if (bidirectional) {
+						matrix.markChanged(destination, source);
+					}
+				}
+			}
+			routeCache.routeChanged(vehicleType, () -> getSnapshot(vehicleType), source, destination);
+			if (bidirectional) {
+				routeCache.routeChanged(vehicleType, () -> getSnapshot(vehicleType), destination, source);
+			}
 		}
-
-		saveRoutesToFile();
 		updateComboBoxes();
 		System.out.println("Route added: " + source + " -> " + destination + " for vehicle type: " + vehicleType);
 	}
 
+	// Starts a batch of routes that is applied with a single commit
+	public RouteBatch beginBatch() {
+		return new RouteBatch(this);
+	}
+
+	// Adds many routes at once; all of them or, if any is invalid, none
+	public boolean addRoutes(Iterable<Route> routes, boolean bidirectional) {
+		return beginBatch().addAll(routes, bidirectional).commit();
+	}
+
+	// Applies a validated batch. Unlike addRoute per route, the whole batch is one log
+	// append, one upsert pass per route list, one invalidation and one ComboBox refresh.
+	// The record is written first, so a batch that cannot be logged changes nothing.
+	boolean commitBatch(RouteBatch batch) {
+		List<Route> routes = batch.getRoutes();
+		if (routes.isEmpty())
+			return true;
+		Set<String> vehicleTypes = new TreeSet<>();
+		synchronized (graphLock) {
+			try {
+				appendToLog(RouteLog.ADD, routes);
+			} catch (IOException e) {
+				e.printStackTrace();
+				System.out.println("Error: Route batch rejected, it could not be written to " + ROUTE_LOG_FILE);
+				return false;
+			}
+			makeRoutesMutable();
+			for (Map.Entry<String, Map<String, Map<String, Route>>> bySource : batch.getStaged().entrySet()) {
+				for (Map.Entry<String, Map<String, Route>> byVehicleType : bySource.getValue().entrySet()) {
+					Map<String, Route> upserts = byVehicleType.getValue();
+					List<Route> existing = graph.computeIfAbsent(bySource.getKey(), k -> new HashMap<>())
+							.computeIfAbsent(byVehicleType.getKey(), k -> new ArrayList<>());
+					existing.removeIf(r -> upserts.containsKey(r.getDestination()));
+					existing.addAll(upserts.values());
+					vehicleTypes.add(byVehicleType.getKey());
+				}
+			}
+
+			invalidateDerivedData();
+			for (String vehicleType : vehicleTypes) {
+				// Rebuilding the labels once is cheaper than adding every route to them
+				connectivity.remove(vehicleType);
+				for (RouteMetric metric : RouteMetric.values()) {
+					TravelMatrix matrix = travelMatrices.get(LandmarkIndex.key(vehicleType, metric));
+					if (matrix != null) {
+						matrix.markAllChanged();
+					}
+				}
+				routeCache.vehicleTypeChanged(vehicleType);
+			}
+		}
+		updateComboBoxes();
+		System.out.println("Routes added: " + routes.size() + " for vehicle types: " + vehicleTypes);
+		return true;
+	}
+
+	// Changes the weights of an existing route, e.g. for a traffic update. Unlike addRoute
+	// the snapshot keeps its structure: only the weight columns are copied and cached
+	// shortest-path trees are repaired for the stations whose distance changes.
+	public boolean updateRouteWeights(String source, String destination, String vehicleType, double distance,
+			double cost, double leastTrafficTime) {
+		synchronized (graphLock) {
+			makeRoutesMutable();
+			List<Route> routes = graph.getOrDefault(source, Map.of()).get(vehicleType);
+			int index = -1;
+			for (int i = 0; routes != null && i < routes.size(); i++) {
+				if (routes.get(i).getDestination().equals(destination)) {
+					index = i;
+					break;
+				}
+			}
+			if (index < 0) {
+				System.out.println("Error: No route " + source + " -> " + destination + " for vehicle type: "
+						+ vehicleType);
+				return false;
+			}
+			// A time-of-day profile stays; leastTrafficTime is what searches without a departure time use
+			Route updated = new Route(source, destination, distance, vehicleType, cost, leastTrafficTime,
+					routes.get(index).getTrafficProfile());
+			String problem = Route.validate(updated);
+			if (problem != null) {
+				System.out.println("Error: Invalid route, " + problem + ": " + updated);
+				return false;
+			}
+			if (!logRouteChange(RouteLog.UPDATE, updated))
+				return false;
+			routes.set(index, updated);
+
+			RouteGraph oldSnapshot = snapshots.get(vehicleType);
+			RouteGraph newSnapshot = null;
+			int from = -1;
+			int edge = -1;
+			if (oldSnapshot != null) {
+				from = oldSnapshot.getStationId(source);
+				edge = oldSnapshot.edgeStart(from) + index;
+				newSnapshot = oldSnapshot.withEdgeWeights(edge, distance, cost, leastTrafficTime);
+				snapshots.put(vehicleType, newSnapshot);
+				treeCache.repair(oldSnapshot, newSnapshot, edge, from);
+			}
+			for (RouteMetric metric : RouteMetric.values()) {
+				String key = LandmarkIndex.key(vehicleType, metric);
+				landmarkIndexes.remove(key);
+				hierarchies.remove(key);
+				// Only the cells that contain the route are customized again
+				CellOverlay overlay = overlays.remove(key);
+				if (overlay != null && newSnapshot != null && overlay.matches(oldSnapshot)) {
+					overlays.put(key, overlay.recustomize(newSnapshot, edge, from));
+				}
+				TravelMatrix matrix = travelMatrices.get(key);
+				if (matrix != null) {
+					matrix.markChanged(source, destination);
+				}
+			}
+			if (searchStrategy == SearchStrategy.CONTRACTION_HIERARCHIES) {
+				scheduleHierarchyRebuild();
+			}
+			routeCache.routeChanged(vehicleType, () -> getSnapshot(vehicleType), source, destination);
+		}
+		System.out.println("Route updated: " + source + " -> " + destination + " for vehicle type: " + vehicleType);
+		return true;
+	}
+
+	// Removes a route in one direction. Everything derived from the graph is dropped as
+	// after addRoute, and so are the component labels, which can only grow in place.
+	public boolean removeRoute(String source, String destination, String vehicleType) {
+		synchronized (graphLock) {
+			makeRoutesMutable();
+			List<Route> routes = graph.getOrDefault(source, Map.of()).get(vehicleType);
+			int index = -1;
+			for (int i = 0; routes != null && i < routes.size(); i++) {
+				if (routes.get(i).getDestination().equals(destination)) {
+					index = i;
+					break;
+				}
+			}
+			if (index < 0) {
+				System.out.println("Error: No route " + source + " -> " + destination + " for vehicle type: "
+						+ vehicleType);
+				return false;
+			}
+			if (!logRouteChange(RouteLog.REMOVE, routes.get(index)))
+				return false;
+			routes.remove(index);
+
+			invalidateDerivedData();
+			connectivity.remove(vehicleType);
+			for (RouteMetric metric : RouteMetric.values()) {
+				TravelMatrix matrix = travelMatrices.get(LandmarkIndex.key(vehicleType, metric));
+				if (matrix != null) {
+					matrix.markChanged(source, destination);
+				}
+			}
+			routeCache.routeChanged(vehicleType, () -> getSnapshot(vehicleType), source, destination);
+		}
+		updateComboBoxes();
+		System.out.println("Route removed: " + source + " -> " + destination + " for vehicle type: " + vehicleType);
+		return true;
+	}
+
 	// Rebuild the graph from file
 	public void rebuildGraph() {
 		System.out.println("Rebuilding the graph...");
@@ -115,8 +533,294 @@ public class RouteManager {
 		System.out.println("Graph rebuilt: " + graph);
 	}
 
+	// Returns the CSR snapshot for a vehicle type, building it on first use
+	RouteGraph getSnapshot(String vehicleType) {
+		RouteGraph snapshot = snapshots.get(vehicleType);
+		if (snapshot != null) {
+			return snapshot;
+		}
+		synchronized (graphLock) {
+			return snapshots.computeIfAbsent(vehicleType, type -> RouteGraph.build(graph, type));
+		}
+	}
+
+	// Returns the component index for a vehicle type, building it on first use
+	private ConnectivityIndex getConnectivity(String vehicleType) {
+		ConnectivityIndex index = connectivity.get(vehicleType);
+		if (index != null) {
+			return index;
+		}
+		synchronized (graphLock) {
+			return connectivity.computeIfAbsent(vehicleType, type -> ConnectivityIndex.build(graph, type));
+		}
+	}
+
+	// Strongly connected components for a vehicle type, largest first. Stations outside
+	// the first one cannot reach all of the network, which usually points at missing routes.
+	public List<List<String>> getConnectedComponents(String vehicleType) {
+		return getConnectivity(vehicleType).getComponents();
+	}
+
+	// Component counts and every station outside the main component, per vehicle type
+	public String getConnectivityReport() {
+		StringBuilder report = new StringBuilder();
+		for (String vehicleType : new TreeSet<>(getVehicleTypes())) {
+			if (report.length() > 0) {
+				report.append("\n");
+			}
+			report.append(getConnectivity(vehicleType).report());
+		}
+		return report.toString();
+	}
+
+	// Drops everything derived from the graph so it is rebuilt from the current routes
+	private void invalidateDerivedData() {
+		snapshots.clear();
+		landmarkIndexes.clear();
+		hierarchies.clear();
+		partitions.clear();
+		overlays.clear();
+		treeCache.clear();
+		if (searchStrategy == SearchStrategy.CONTRACTION_HIERARCHIES) {
+			scheduleHierarchyRebuild();
+		}
+	}
+
+	// All vehicle types that have at least one route
+	private Set<String> getVehicleTypes() {
+		synchronized (graphLock) {
+			Set<String> vehicleTypes = new HashSet<>();
+			for (Map<String, List<Route>> vehicleRoutes : graph.values()) {
+				vehicleTypes.addAll(vehicleRoutes.keySet());
+			}
+			return vehicleTypes;
+		}
+	}
+
+	// Hit, miss, eviction and invalidation counts of the route result and search tree caches
+	public String getCacheStatistics() {
+		return routeCache + " " + treeCache;
+	}
+
+	// Chooses the engine used by the find*PathWithIntermediates methods
+	public void setSearchStrategy(SearchStrategy searchStrategy) {
+		this.searchStrategy = searchStrategy;
+		if (searchStrategy == SearchStrategy.CONTRACTION_HIERARCHIES) {
+			scheduleHierarchyRebuild();
+		}
+	}
+
+	// Builds landmark tables for every vehicle type and metric in parallel and
+	// stores them next to the route database
+	public void precomputeLandmarks(int landmarkCount, LandmarkSelection selection) {
+		this.landmarkCount = landmarkCount;
+		this.landmarkSelection = selection;
+
+		List<String[]> tables = new ArrayList<>();
+		for (String vehicleType : getVehicleTypes()) {
+			for (RouteMetric metric : RouteMetric.values()) {
+				tables.add(new String[] { vehicleType, metric.name() });
+			}
+		}
+
+		tables.parallelStream().forEach(table -> {
+			RouteMetric metric = RouteMetric.valueOf(table[1]);
+			landmarkIndexes.put(LandmarkIndex.key(table[0], metric),
+					LandmarkIndex.build(getSnapshot(table[0]), metric, landmarkCount, selection));
+		});
+		LandmarkIndex.writeAll(new File(LANDMARK_DATA_FILE), landmarkIndexes.values());
+		System.out.println("Landmark tables built: " + tables.size() + " (" + landmarkCount + " landmarks each)");
+	}
+
+	// Returns the landmark tables for the snapshot, reusing the persisted ones if
+	// they were built for the same graph and rebuilding them otherwise
+	synchronized LandmarkIndex getLandmarks(RouteGraph snapshot, RouteMetric metric) {
+		String key = LandmarkIndex.key(snapshot.getVehicleType(), metric);
+		LandmarkIndex index = landmarkIndexes.get(key);
+		if (index != null && index.matches(snapshot)) {
+			return index;
+		}
+
+		File file = new File(LANDMARK_DATA_FILE);
+		Map<String, LandmarkIndex> persisted = LandmarkIndex.readAll(file);
+		index = persisted.get(key);
+		if (index == null || !index.matches(snapshot)) {
+			System.out.println("Building landmark tables for " + snapshot.getVehicleType() + " (" + metric + ")");
+			index = LandmarkIndex.build(snapshot, metric, landmarkCount, landmarkSelection);
+			persisted.put(key, index);
+			LandmarkIndex.writeAll(file, persisted.values());
+		}
+		landmarkIndexes.put(key, index);
+		return index;
+	}
+
+	// Loads matching hierarchies from disk and builds the missing ones, one per
+	// vehicle type and metric, then stores them all next to the route database
+	public void rebuildHierarchies() {
+		File file = new File(HIERARCHY_DATA_FILE);
+		Map<String, ContractionHierarchy> persisted = ContractionHierarchy.readAll(file);
+		List<Object[]> missing = new ArrayList<>();
+		for (String vehicleType : getVehicleTypes()) {
+			RouteGraph snapshot = getSnapshot(vehicleType);
+			for (RouteMetric metric : RouteMetric.values()) {
+				String key = ContractionHierarchy.key(vehicleType, metric);
+				ContractionHierarchy hierarchy = persisted.get(key);
+				if (hierarchy != null && hierarchy.matches(snapshot)) {
+					hierarchies.put(key, hierarchy);
+				} else {
+					missing.add(new Object[] { snapshot, metric });
+				}
+			}
+		}
+		if (missing.isEmpty()) {
+			return;
+		}
+
+		missing.parallelStream().forEach(table -> {
+			RouteGraph snapshot = (RouteGraph) table[0];
+			RouteMetric metric = (RouteMetric) table[1];
+			ContractionHierarchy hierarchy = ContractionHierarchy.build(snapshot, metric);
+			// A graph change during the build makes the result stale; the next rebuild replaces it
+			if (snapshots.get(snapshot.getVehicleType()) == snapshot) {
+				hierarchies.put(ContractionHierarchy.key(snapshot.getVehicleType(), metric), hierarchy);
+			}
+		});
+		ContractionHierarchy.writeAll(file, hierarchies.values());
+		System.out.println("Contraction hierarchies built: " + missing.size());
+	}
+
+	// Debounces rebuilds so a batch of addRoute calls triggers a single rebuild
+	private void scheduleHierarchyRebuild() {
+		synchronized (rebuildLock) {
+			if (hierarchyRebuilder == null) {
+				hierarchyRebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+					Thread thread = new Thread(runnable, "hierarchy-rebuild");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+			if (pendingHierarchyRebuild != null) {
+				pendingHierarchyRebuild.cancel(false);
+			}
+			pendingHierarchyRebuild = hierarchyRebuilder.schedule(() -> {
+				try {
+					rebuildHierarchies();
+				} catch (RuntimeException e) {
+					e.printStackTrace();
+				}
+			}, HIERARCHY_REBUILD_DELAY_MS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	// Partitions every vehicle type's network and customizes its overlays for all metrics in parallel
+	public void customizeOverlays() {
+		List<Object[]> tables = new ArrayList<>();
+		for (String vehicleType : getVehicleTypes()) {
+			for (RouteMetric metric : RouteMetric.values()) {
+				tables.add(new Object[] { getSnapshot(vehicleType), metric });
+			}
+		}
+		long start = System.nanoTime();
+		tables.parallelStream().forEach(table -> getOverlay((RouteGraph) table[0], (RouteMetric) table[1]));
+		System.out.println("Cell overlays customized: " + tables.size() + " in "
+				+ (System.nanoTime() - start) / 1_000_000 + " ms");
+		for (GraphPartition partition : partitions.values()) {
+			System.out.println(partition);
+		}
+	}
+
+	// Returns the customized overlay for the snapshot. The partition is reused while the
+	// network's structure is unchanged, so after a weight change only customization runs.
+	CellOverlay getOverlay(RouteGraph snapshot, RouteMetric metric) {
+		String key = LandmarkIndex.key(snapshot.getVehicleType(), metric);
+		CellOverlay overlay = overlays.get(key);
+		if (overlay != null && overlay.matches(snapshot)) {
+			return overlay;
+		}
+		GraphPartition partition = partitions.compute(snapshot.getVehicleType(),
+				(type, existing) -> existing != null && existing.matches(snapshot) ? existing
+						: GraphPartition.build(snapshot, GraphPartition.DEFAULT_CELL_SIZE));
+		overlay = CellOverlay.customize(partition, snapshot, metric);
+		overlays.put(key, overlay);
+		return overlay;
+	}
+
+	// Starts a routing cluster for a vehicle type: its network is split into at most workerCount
+	// partitions, each served by a separate JVM on this machine. Close the cluster to stop them.
+	// The cluster refuses queries once a route of the vehicle type is added, updated or removed.
+	public RoutingCluster startCluster(String vehicleType, int workerCount) {
+		RouteGraph snapshot;
+		long version;
+		synchronized (graphLock) {
+			snapshot = getSnapshot(vehicleType);
+			version = routeCache.getVersion(vehicleType);
+		}
+		try {
+			RoutingCluster cluster = RoutingCluster.start(snapshot, workerCount);
+			cluster.setCurrentCheck(() -> routeCache.getVersion(vehicleType) == version);
+			System.out.println("Routing cluster started: " + cluster);
+			return cluster;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	// Returns the all-pairs matrix for the snapshot: mapped from disk when it was built
+	// for the same graph, refreshed incrementally after route changes, or built from scratch
+	synchronized TravelMatrix getTravelMatrix(RouteGraph snapshot, RouteMetric metric) {
+		String key = LandmarkIndex.key(snapshot.getVehicleType(), metric);
+		TravelMatrix matrix = travelMatrices.get(key);
+		if (matrix != null) {
+			if (!matrix.matches(snapshot)) {
+				matrix.refresh(snapshot);
+			}
+			return matrix;
+		}
+
+		File file = new File(TRAVEL_MATRIX_FILE_PREFIX + snapshot.getVehicleType().replaceAll("[^A-Za-z0-9]", "_")
+				+ "." + metric.name().toLowerCase());
+		matrix = TravelMatrix.open(file, snapshot, metric);
+		if (matrix == null) {
+			System.out.println("Building travel matrix for " + snapshot.getVehicleType() + " (" + metric + ")");
+			matrix = TravelMatrix.build(file, snapshot, metric);
+		}
+		travelMatrices.put(key, matrix);
+		return matrix;
+	}
+
+	// Runs a point-to-point query: a walk in a cached tree for popular origins,
+	// otherwise a search with the configured strategy
+	private SearchWorkspace searchPath(RouteGraph snapshot, int source, int target, RouteMetric metric) {
+		ShortestPathTreeCache.Tree tree = treeCache.get(snapshot, source, metric);
+		if (tree != null) {
+			return tree.walk(target);
+		}
+		if (searchStrategy == SearchStrategy.LANDMARKS) {
+			return AStarSearch.run(snapshot, source, target, metric, getLandmarks(snapshot, metric));
+		}
+		if (searchStrategy == SearchStrategy.TRAVEL_MATRIX) {
+			return getTravelMatrix(snapshot, metric).lookup(snapshot, source, target);
+		}
+		if (searchStrategy == SearchStrategy.CUSTOMIZABLE_ROUTE_PLANNING) {
+			return getOverlay(snapshot, metric).query(snapshot, source, target);
+		}
+		if (searchStrategy == SearchStrategy.CONTRACTION_HIERARCHIES) {
+			ContractionHierarchy hierarchy = hierarchies
+					.get(ContractionHierarchy.key(snapshot.getVehicleType(), metric));
+			// Until the rebuild finishes, queries fall back to bidirectional Dijkstra
+			if (hierarchy != null && hierarchy.matches(snapshot)) {
+				return hierarchy.query(snapshot, source, target);
+			}
+		}
+		return BidirectionalDijkstra.run(snapshot, source, target, metric);
+	}
+
 	// Update ComboBoxes with new source and destination data
 	private void updateComboBoxes() {
+		// Imports can run without the UI
+		if (sourceComboBox == null || destinationComboBox == null)
+			return;
 		Set<String> sourceLocations = getSourceLocations();
 		Set<String> destinationLocations = getDestinationLocations();
 
@@ -185,58 +889,35 @@ public class RouteManager {
 			return new ArrayList<>();
 		}
 
-		// Initialize data structures
-		Map<String, Double> distances = new HashMap<>();
-		Map<String, String> previousNodes = new HashMap<>();
-		PriorityQueue<String> queue = new PriorityQueue<>(Comparator.comparingDouble(distances::get));
-		Set<String> visited = new HashSet<>();
-
-		// Set initial distances to infinity except for the start node
-		for (String node : graph.keySet()) {
-			distances.put(node, Double.POSITIVE_INFINITY);
+		// Stations in different components are answered without searching
+		if (!getConnectivity(vehicleType).mayReach(start, destination)) {
+			System.out.println("Error: Destination " + destination + " is unreachable from " + start
+					+ " for vehicle type: " + vehicleType);
+			return new ArrayList<>();
 		}
-		distances.put(start, 0.0);
-		queue.add(start);
-
-		// Process nodes using Dijkstra's algorithm
-		while (!queue.isEmpty()) {
-			String currentNode = queue.poll();
-
-			if (visited.contains(currentNode))
-				continue;
-			visited.add(currentNode);
-
-			// Stop if we reach the destination
-			if (currentNode.equals(destination))
-				break;
 
-			// Relax edges for all neighbors for the specific vehicle type
-			for (Route edge : graph.getOrDefault(currentNode, new HashMap<>()).getOrDefault(vehicleType,
-					new ArrayList<>())) {
-				String neighbor = edge.getDestination();
-				double routeDistance = edge.getDistance();
-
-				if (routeDistance <= 0)
-					continue;
-
-				double newDistance = distances.get(currentNode) + routeDistance;
-				if (newDistance < distances.getOrDefault(neighbor, Double.POSITIVE_INFINITY)) {
-					distances.put(neighbor, newDistance);
-					previousNodes.put(neighbor, currentNode);
-					queue.add(neighbor);
-				}
-			}
+		List<String> cached = routeCache.get(start, destination, vehicleType, RouteMetric.DISTANCE);
+		if (cached != null) {
+			return cached;
 		}
+		long version = routeCache.getVersion(vehicleType);
+
+		RouteGraph snapshot = getSnapshot(vehicleType);
+		int source = snapshot.getStationId(start);
+		int target = snapshot.getStationId(destination);
+		SearchWorkspace search = searchPath(snapshot, source, target, RouteMetric.DISTANCE);
 
 		// If destination is unreachable
-		if (!visited.contains(destination)) {
+		if (!search.isSettled(target)) {
 			System.out.println("Error: Destination " + destination + " is unreachable from " + start
 					+ " for vehicle type: " + vehicleType);
+			routeCache.put(start, destination, vehicleType, RouteMetric.DISTANCE, new ArrayList<>(),
+					Double.POSITIVE_INFINITY, version);
 			return new ArrayList<>();
 		}
 
 		// Reconstruct the path
-		List<String> path = reconstructPath(start, destination, previousNodes);
+		List<String> path = reconstructPath(snapshot, source, target, search);
 
 		// Validate the path
 		if (path.isEmpty()) {
@@ -246,21 +927,23 @@ public class RouteManager {
 		}
 
 		System.out.println("Shortest route found from " + start + " to " + destination + " for vehicle type: "
-				+ vehicleType + ": " + path + " (Distance: " + distances.get(destination) + " km)");
+				+ vehicleType + ": " + path + " (Distance: " + search.getDistance(target) + " km)");
+		routeCache.put(start, destination, vehicleType, RouteMetric.DISTANCE, path, search.getDistance(target),
+				version);
 		return path;
 	}
 
-	private List<String> reconstructPath(String start, String destination, Map<String, String> previousNodes) {
+	private List<String> reconstructPath(RouteGraph snapshot, int source, int target, SearchWorkspace search) {
 		List<String> path = new ArrayList<>();
-		for (String at = destination; at != null; at = previousNodes.get(at)) {
-			path.add(at);
-			if (at.equals(start))
+		for (int at = target; at != -1; at = search.getPrevious(at)) {
+			path.add(snapshot.getStationName(at));
+			if (at == source)
 				break;
 		}
 		Collections.reverse(path);
 
 		// Ensure the reconstructed path starts with the 'start' node
-		if (!path.isEmpty() && path.get(0).equals(start)) {
+		if (!path.isEmpty() && path.get(0).equals(snapshot.getStationName(source))) {
 			return path;
 		}
 
@@ -334,56 +1017,32 @@ public class RouteManager {
 			return new ArrayList<>();
 		}
 
-		// Initialize data structures
-		Map<String, Double> costs = new HashMap<>();
-		Map<String, String> previousNodes = new HashMap<>();
-		PriorityQueue<String> queue = new PriorityQueue<>(Comparator.comparingDouble(costs::get));
-		Set<String> visited = new HashSet<>();
-
-		// Set initial costs to infinity except for the start node
-		for (String node : graph.keySet()) {
-			costs.put(node, Double.POSITIVE_INFINITY);
+		if (!getConnectivity(vehicleType).mayReach(start, destination)) {
+			System.out.println("No valid cost-optimal path found from " + start + " to " + destination
+					+ " for vehicle type: " + vehicleType);
+			return new ArrayList<>();
 		}
-		costs.put(start, 0.0);
-
-		// Add the start node to the queue
-		queue.add(start);
-
-		// Process nodes in the priority queue
-		while (!queue.isEmpty()) {
-			String current = queue.poll();
-
-			// Skip nodes already visited
-			if (visited.contains(current))
-				continue;
-			visited.add(current);
-
-			// Stop if we reach the destination
-			if (current.equals(destination))
-				break;
 
-			// Relax edges for all neighbors for the specific vehicle type
-			for (Route edge : graph.getOrDefault(current, new HashMap<>()).getOrDefault(vehicleType,
-					new ArrayList<>())) {
-				String neighbor = edge.getDestination();
-				double newCost = costs.get(current) + edge.getCost();
-
-				// Update costs and queue only if a better path is found
-				if (newCost < costs.getOrDefault(neighbor, Double.POSITIVE_INFINITY)) {
-					costs.put(neighbor, newCost);
-					previousNodes.put(neighbor, current);
-					queue.add(neighbor);
-				}
-			}
+		List<String> cached = routeCache.get(start, destination, vehicleType, RouteMetric.COST);
+		if (cached != null) {
+			return cached;
 		}
+		long version = routeCache.getVersion(vehicleType);
+
+		RouteGraph snapshot = getSnapshot(vehicleType);
+		int source = snapshot.getStationId(start);
+		int target = snapshot.getStationId(destination);
+		SearchWorkspace search = searchPath(snapshot, source, target, RouteMetric.COST);
 
 		// Reconstruct the path from the destination back to the start
-		List<String> path = reconstructPath(start, destination, previousNodes);
+		List<String> path = reconstructPath(snapshot, source, target, search);
 
 		// Validate the reconstructed path
 		if (path.isEmpty() || !path.get(0).equals(start)) {
 			System.out.println("No valid cost-optimal path found from " + start + " to " + destination
 					+ " for vehicle type: " + vehicleType);
+			routeCache.put(start, destination, vehicleType, RouteMetric.COST, new ArrayList<>(),
+					Double.POSITIVE_INFINITY, version);
 			return new ArrayList<>();
 		}
 
@@ -392,7 +1051,8 @@ public class RouteManager {
 
 		// Display the cost-optimal path
 		System.out.println("Cost-optimal route found from " + start + " to " + destination + " for vehicle type: "
-				+ vehicleType + ": " + path + " (Cost: " + costs.get(destination) + ")");
+				+ vehicleType + ": " + path + " (Cost: " + search.getDistance(target) + ")");
+		routeCache.put(start, destination, vehicleType, RouteMetric.COST, path, search.getDistance(target), version);
 		return path;
 	}
 
@@ -412,31 +1072,7 @@ public class RouteManager {
 	// Gets the total toll cost for the given path
 
 	public double getTotalTollCost(List<String> path, String vehicleType) {
-		double totalTollCost = 0.0;
-
-		for (int i = 0; i < path.size() - 1; i++) {
-			String from = path.get(i);
-			String to = path.get(i + 1);
-			boolean foundRoute = false;
-
-			// Retrieve routes for the specific vehicle type
-			for (Route route : graph.getOrDefault(from, new HashMap<>()).getOrDefault(vehicleType, new ArrayList<>())) {
-				if (route.getDestination().equals(to)) {
-					totalTollCost += route.getCost();
-					foundRoute = true;
-					break;
-				}
-			}
-
-			// If no route is found between 'from' and 'to', log an error
-			if (!foundRoute) {
-				System.out.println(
-						"Error: No direct route between " + from + " and " + to + " for vehicle type: " + vehicleType);
-				return Double.POSITIVE_INFINITY;
-			}
-		}
-
-		return totalTollCost;
+		return getRouteCost(path, vehicleType);
 	}
 
 	// Placeholder methods for getting all stations and routes from a given station
@@ -495,6 +1131,71 @@ public class RouteManager {
 		return new ArrayList<>(new LinkedHashSet<>(fullPath));
 	}
 
+	// Finds the least traffic path with intermediate nodes when leaving at departureHour
+	// (hours since midnight). Each leg departs when the previous one arrives, so routes
+	// with a traffic profile are priced at the time they are actually driven.
+	public List<String> findLeastTrafficPathWithIntermediates(String start, List<String> intermediates,
+			String destination, String vehicleType, double departureHour) {
+		List<String> stops = new ArrayList<>();
+		if (intermediates != null) {
+			stops.addAll(intermediates);
+		}
+		stops.add(destination);
+
+		List<String> fullPath = new ArrayList<>();
+		String current = start;
+		double hour = departureHour;
+		for (String stop : stops) {
+			List<String> pathSegment = findLeastTrafficPath(current, stop, vehicleType, hour);
+			if (pathSegment.isEmpty()) {
+				System.out.println(
+						"No path found from " + current + " to " + stop + " for vehicle type: " + vehicleType);
+				return new ArrayList<>();
+			}
+			hour += getRouteTraffic(pathSegment, vehicleType, hour);
+
+			if (!fullPath.isEmpty()) {
+				fullPath.remove(fullPath.size() - 1);
+			}
+			fullPath.addAll(pathSegment);
+			current = stop;
+		}
+		return fullPath;
+	}
+
+	// Time-dependent least traffic leg. Vehicle types without traffic profiles have the
+	// same answer at every hour, so they take the regular (cached) search.
+	private List<String> findLeastTrafficPath(String start, String destination, String vehicleType,
+			double departureHour) {
+		RouteGraph snapshot = getSnapshot(vehicleType);
+		if (!snapshot.hasTrafficProfiles()) {
+			return findLeastTrafficPath(start, destination, vehicleType);
+		}
+		int source = snapshot.getStationId(start);
+		int target = snapshot.getStationId(destination);
+		if (source < 0 || target < 0) {
+			System.out.println("Error: Start or destination node does not exist in the graph.");
+			return new ArrayList<>();
+		}
+
+		SearchWorkspace search = TimeDependentSearch.run(snapshot, source, target, departureHour);
+		if (!search.isSettled(target)) {
+			System.out.println("No valid path found from " + start + " to " + destination + " for vehicle type: "
+					+ vehicleType + " leaving at " + departureHour);
+			return new ArrayList<>();
+		}
+		List<String> path = new ArrayList<>();
+		for (int at = target; at != -1; at = search.getPrevious(at)) {
+			path.add(snapshot.getStationName(at));
+			if (at == source)
+				break;
+		}
+		Collections.reverse(path);
+		System.out.println("Least traffic route found from " + start + " to " + destination + " for vehicle type: "
+				+ vehicleType + " leaving at " + departureHour + ": " + path);
+		return path;
+	}
+
 //  Dijkstra's algorithm to find the least traffic route
 
 	private List<String> findLeastTrafficPath(String start, String destination, String vehicleType) {
@@ -508,63 +1209,39 @@ public class RouteManager {
 			return new ArrayList<>();
 		}
 
-		// Check for a direct route first
-		if (graph.get(start).containsKey(vehicleType)) {
-			for (Route route : graph.get(start).get(vehicleType)) {
-				if (route.getDestination().equals(destination)) {
-					// Direct route found
-					System.out.println("Direct route found: " + start + " -> " + destination + " (Traffic: "
-							+ route.getLeastTrafficTime() + " hrs)");
-					return Arrays.asList(start, destination);
-				}
-			}
+		if (!getConnectivity(vehicleType).mayReach(start, destination)) {
+			System.out.println(
+					"No valid path found from " + start + " to " + destination + " for vehicle type: " + vehicleType);
+			return new ArrayList<>();
 		}
 
-		// Initialize data structures for Dijkstra's algorithm
-		Map<String, Double> trafficLevels = new HashMap<>();
-		Map<String, String> previousNodes = new HashMap<>();
-		PriorityQueue<String> queue = new PriorityQueue<>(Comparator.comparingDouble(trafficLevels::get));
-		Set<String> visited = new HashSet<>();
-
-		// Set initial traffic levels to infinity except for the start node
-		for (String node : graph.keySet()) {
-			trafficLevels.put(node, Double.POSITIVE_INFINITY);
+		RouteGraph snapshot = getSnapshot(vehicleType);
+		int source = snapshot.getStationId(start);
+		int target = snapshot.getStationId(destination);
+		double[] trafficWeights = snapshot.getWeights(RouteMetric.LEAST_TRAFFIC_TIME);
+
+		// Check for a direct route first. It is not the least-traffic optimum, so it is checked
+		// before the cache and never stored under the metric, which findRoute also reads.
+		int direct = snapshot.findEdge(source, target);
+		if (direct >= 0) {
+			System.out.println("Direct route found: " + start + " -> " + destination + " (Traffic: "
+					+ trafficWeights[direct] + " hrs)");
+			return Arrays.asList(start, destination);
 		}
-		trafficLevels.put(start, 0.0);
-		queue.add(start);
-
-		// Process nodes using Dijkstra's algorithm
-		while (!queue.isEmpty()) {
-			String currentNode = queue.poll();
-
-			if (visited.contains(currentNode))
-				continue;
-			visited.add(currentNode);
 
-			if (currentNode.equals(destination))
-				break;
-
-			// Relax edges for all neighbors for the specific vehicle type
-			List<Route> edges = graph.getOrDefault(currentNode, new HashMap<>()).getOrDefault(vehicleType,
-					new ArrayList<>());
-			for (Route edge : edges) {
-				String neighbor = edge.getDestination();
-				double newTraffic = trafficLevels.get(currentNode) + edge.getLeastTrafficTime();
-
-				// Update traffic levels if a better path is found
-				if (newTraffic < trafficLevels.getOrDefault(neighbor, Double.POSITIVE_INFINITY)) {
-					trafficLevels.put(neighbor, newTraffic);
-					previousNodes.put(neighbor, currentNode);
-					queue.add(neighbor);
-				}
-			}
+		List<String> cached = routeCache.get(start, destination, vehicleType, RouteMetric.LEAST_TRAFFIC_TIME);
+		if (cached != null) {
+			return cached;
 		}
+		long version = routeCache.getVersion(vehicleType);
+
+		SearchWorkspace search = searchPath(snapshot, source, target, RouteMetric.LEAST_TRAFFIC_TIME);
 
 		// Reconstruct the path from the destination back to the start
 		List<String> path = new ArrayList<>();
-		for (String at = destination; at != null; at = previousNodes.get(at)) {
-			path.add(at);
-			if (at.equals(start))
+		for (int at = target; at != -1; at = search.getPrevious(at)) {
+			path.add(snapshot.getStationName(at));
+			if (at == source)
 				break;
 		}
 		Collections.reverse(path);
@@ -573,99 +1250,542 @@ public class RouteManager {
 		if (path.isEmpty() || !path.get(0).equals(start)) {
 			System.out.println(
 					"No valid path found from " + start + " to " + destination + " for vehicle type: " + vehicleType);
+			routeCache.put(start, destination, vehicleType, RouteMetric.LEAST_TRAFFIC_TIME, new ArrayList<>(),
+					Double.POSITIVE_INFINITY, version);
 			return new ArrayList<>();
 		}
 
 		System.out.println("Least traffic route found from " + start + " to " + destination + " for vehicle type: "
 				+ vehicleType + ": " + path);
+		routeCache.put(start, destination, vehicleType, RouteMetric.LEAST_TRAFFIC_TIME, path,
+				search.getDistance(target), version);
 		return path;
 	}
 
-	public double getRouteDistance(List<String> path, String vehicleType) {
-		double totalDistance = 0.0;
+	// Finds every route through the intermediates that is not beaten on distance, cost
+	// and traffic time at once. Each leg is searched once and the legs' skylines are combined.
+	public List<RouteOption> findParetoRoutesWithIntermediates(String start, List<String> intermediates,
+			String destination, String vehicleType, double epsilon) {
+		List<String> stops = new ArrayList<>();
+		stops.add(start);
+		if (intermediates != null) {
+			stops.addAll(intermediates);
+		}
+		stops.add(destination);
 
-		for (int i = 0; i < path.size() - 1; i++) {
-			String from = path.get(i);
-			String to = path.get(i + 1);
-			boolean foundRoute = false;
-
-			// Retrieve routes for the specific vehicle type
-			for (Route route : graph.getOrDefault(from, new HashMap<>()).getOrDefault(vehicleType, new ArrayList<>())) {
-				if (route.getDestination().equals(to)) {
-					totalDistance += route.getDistance();
-					foundRoute = true;
-					break;
+		List<RouteOption> options = null;
+		for (int i = 0; i < stops.size() - 1; i++) {
+			List<RouteOption> leg = findParetoRoutes(stops.get(i), stops.get(i + 1), vehicleType, epsilon);
+			if (leg.isEmpty()) {
+				System.out.println("No path found from " + stops.get(i) + " to " + stops.get(i + 1)
+						+ " for vehicle type: " + vehicleType);
+				return new ArrayList<>();
+			}
+			if (options == null) {
+				options = leg;
+				continue;
+			}
+
+			List<RouteOption> combined = new ArrayList<>();
+			for (RouteOption first : options) {
+				for (RouteOption second : leg) {
+					combined.add(first.append(second));
 				}
 			}
+			options = skyline(combined, epsilon);
+		}
+		return options;
+	}
 
-			// If no route is found between 'from' and 'to', log an error
-			if (!foundRoute) {
-				System.out.println(
-						"Error: No direct route between " + from + " and " + to + " for vehicle type: " + vehicleType);
-				return Double.POSITIVE_INFINITY; // Return infinity to indicate failure
+	// Multi-criteria search returning the distance / cost / traffic skyline, sorted by distance
+	public List<RouteOption> findParetoRoutes(String start, String destination, String vehicleType, double epsilon) {
+		if (!graph.containsKey(start) || !graph.get(start).containsKey(vehicleType)) {
+			System.out.println("Error: Start node or vehicle type does not exist in the graph.");
+			return new ArrayList<>();
+		}
+		if (!graph.containsKey(destination)) {
+			System.out.println("Error: Destination node does not exist in the graph.");
+			return new ArrayList<>();
+		}
+
+		RouteGraph snapshot = getSnapshot(vehicleType);
+		ParetoSearch search = ParetoSearch.run(snapshot, snapshot.getStationId(start),
+				snapshot.getStationId(destination), epsilon);
+
+		List<RouteOption> options = new ArrayList<>();
+		for (int i = 0; i < search.getResultCount(); i++) {
+			List<String> path = new ArrayList<>();
+			for (int station : search.getStations(i)) {
+				path.add(snapshot.getStationName(station));
 			}
+			options.add(new RouteOption(path, search.getDistance(i), search.getCost(i), search.getTraffic(i)));
 		}
+		options.sort(Comparator.comparingDouble(RouteOption::getDistance));
 
-		return totalDistance;
+		System.out.println(options.size() + " non-dominated routes found from " + start + " to " + destination
+				+ " for vehicle type: " + vehicleType + " (" + search.getLabelCount() + " labels)");
+		return options;
 	}
 
-	public double getRouteTraffic(List<String> path, String vehicleType) {
-		double totalTraffic = 0.0;
+	// Puts the stops in the visiting order that minimises the metric from start to destination.
+	// Stops that are unknown, repeated, or equal to the start or destination are dropped.
+	public List<String> orderStops(String start, Collection<String> stops, String destination, String vehicleType,
+			RouteMetric metric) {
+		RouteGraph snapshot = getSnapshot(vehicleType);
+		return orderStops(snapshot, start, stops, destination, metric.toString(),
+				stations -> stopMatrix(snapshot, stations, metric));
+	}
 
-		for (int i = 0; i < path.size() - 1; i++) {
-			String from = path.get(i);
-			String to = path.get(i + 1);
-			boolean foundRoute = false;
-
-			// Retrieve routes for the specific vehicle type
-			for (Route route : graph.getOrDefault(from, new HashMap<>()).getOrDefault(vehicleType, new ArrayList<>())) {
-				if (route.getDestination().equals(to)) {
-					totalTraffic += route.getLeastTrafficTime();
-					foundRoute = true;
-					break;
-				}
+	// Same for a blend of the metrics, so the stops are ordered for the weights findRoute uses
+	public List<String> orderStops(String start, Collection<String> stops, String destination, String vehicleType,
+			CompositeMetric metric) {
+		RouteGraph snapshot = getSnapshot(vehicleType);
+		double[] weights = snapshot.getWeights(metric);
+		return orderStops(snapshot, start, stops, destination, metric.toString(),
+				stations -> searchMatrix(snapshot, stations, stations, weights, false));
+	}
+
+	private List<String> orderStops(RouteGraph snapshot, String start, Collection<String> stops, String destination,
+			String metricName, Function<int[], double[][]> stopMatrix) {
+		String vehicleType = snapshot.getVehicleType();
+		List<String> waypoints = new ArrayList<>();
+		for (String stop : new LinkedHashSet<>(stops)) {
+			if (stop.equals(start) || stop.equals(destination))
+				continue;
+			if (snapshot.getStationId(stop) == -1) {
+				System.out.println("Warning: Ignoring unknown stop: " + stop);
+				continue;
 			}
+			waypoints.add(stop);
+		}
+		if (waypoints.size() < 2 || snapshot.getStationId(start) == -1 || snapshot.getStationId(destination) == -1)
+			return waypoints;
 
-			// If no route is found between 'from' and 'to', log an error
-			if (!foundRoute) {
-				System.out.println(
-						"Error: No direct route between " + from + " and " + to + " for vehicle type: " + vehicleType);
-				return Double.POSITIVE_INFINITY;
+		int[] stations = new int[waypoints.size() + 2];
+		stations[0] = snapshot.getStationId(start);
+		for (int i = 0; i < waypoints.size(); i++) {
+			stations[i + 1] = snapshot.getStationId(waypoints.get(i));
+		}
+		stations[stations.length - 1] = snapshot.getStationId(destination);
+
+		double[][] matrix = stopMatrix.apply(stations);
+		int[] order = WaypointOrder.solve(matrix);
+		List<String> ordered = new ArrayList<>();
+		for (int i = 1; i < order.length - 1; i++) {
+			ordered.add(waypoints.get(order[i] - 1));
+		}
+		System.out.println("Stop order for " + vehicleType + " (" + metricName + "): " + ordered + " (total "
+				+ WaypointOrder.pathCost(matrix, order) + ")");
+		return ordered;
+	}
+
+	// Best route from start to destination through all stops in any order, or null if there is none
+	public RouteOption findRouteThroughStops(String start, Collection<String> stops, String destination,
+			String vehicleType, RouteMetric metric) {
+		if (!graph.containsKey(start) || !graph.get(start).containsKey(vehicleType)) {
+			System.out.println("Error: Start node or vehicle type does not exist in the graph.");
+			return null;
+		}
+		if (!graph.containsKey(destination)) {
+			System.out.println("Error: Destination node does not exist in the graph.");
+			return null;
+		}
+
+		List<String> legs = new ArrayList<>();
+		legs.add(start);
+		legs.addAll(orderStops(start, stops, destination, vehicleType, metric));
+		legs.add(destination);
+
+		RouteGraph snapshot = getSnapshot(vehicleType);
+		List<String> path = new ArrayList<>();
+		path.add(start);
+		double distance = 0.0;
+		double cost = 0.0;
+		double traffic = 0.0;
+		for (int i = 0; i < legs.size() - 1; i++) {
+			int source = snapshot.getStationId(legs.get(i));
+			int target = snapshot.getStationId(legs.get(i + 1));
+			SearchWorkspace search = searchPath(snapshot, source, target, metric);
+			if (!search.isSettled(target)) {
+				System.out.println("No path found from " + legs.get(i) + " to " + legs.get(i + 1)
+						+ " for vehicle type: " + vehicleType);
+				return null;
+			}
+			List<String> leg = reconstructPath(snapshot, source, target, search);
+			path.addAll(leg.subList(1, leg.size()));
+			for (int at = target; at != source; at = search.getPrevious(at)) {
+				int edge = search.getPreviousEdge(at);
+				distance += snapshot.getWeights(RouteMetric.DISTANCE)[edge];
+				cost += snapshot.getWeights(RouteMetric.COST)[edge];
+				traffic += snapshot.getWeights(RouteMetric.LEAST_TRAFFIC_TIME)[edge];
 			}
 		}
+		return new RouteOption(path, distance, cost, traffic);
+	}
 
-		return totalTraffic;
+	// Metric distances between every pair of the given stations
+	private double[][] stopMatrix(RouteGraph snapshot, int[] stations, RouteMetric metric) {
+		return searchMatrix(snapshot, stations, stations, metric);
 	}
 
-	public double getRouteCost(List<String> path, String vehicleType) {
-		double totalCost = 0.0;
+	// Travel matrix between every source and every target for one metric: rows follow
+	// sources, columns follow targets, and unreachable or unknown stations give infinity.
+	// Meant for bulk requests, so nothing is printed per pair.
+	public double[][] computeMatrix(List<String> sources, List<String> targets, String vehicleType,
+			RouteMetric metric) {
+		RouteGraph snapshot = getSnapshot(vehicleType);
+		return searchMatrix(snapshot, stationIds(snapshot, sources), stationIds(snapshot, targets), metric);
+	}
 
-		for (int i = 0; i < path.size() - 1; i++) {
-			String from = path.get(i);
-			String to = path.get(i + 1);
-			boolean foundRoute = false;
-
-			// Retrieve routes for the specific vehicle type
-			for (Route route : graph.getOrDefault(from, new HashMap<>()).getOrDefault(vehicleType, new ArrayList<>())) {
-				if (route.getDestination().equals(to)) {
-					totalCost += route.getCost();
-					foundRoute = true;
+	// Distance, cost and traffic time matrices in one call, indexed by RouteMetric.ordinal()
+	public double[][][] computeMatrices(List<String> sources, List<String> targets, String vehicleType) {
+		RouteGraph snapshot = getSnapshot(vehicleType);
+		int[] sourceIds = stationIds(snapshot, sources);
+		int[] targetIds = stationIds(snapshot, targets);
+		double[][][] matrices = new double[RouteMetric.values().length][][];
+		for (RouteMetric metric : RouteMetric.values()) {
+			matrices[metric.ordinal()] = searchMatrix(snapshot, sourceIds, targetIds, metric);
+		}
+		return matrices;
+	}
+
+	// Every station reachable from origin within the budget, e.g. 2 hours of LEAST_TRAFFIC_TIME
+	// or 15 km of DISTANCE. Returns null if the origin is unknown.
+	public Isochrone findReachableStations(String origin, String vehicleType, RouteMetric metric, double budget) {
+		return findReachableStations(Collections.singletonList(origin), vehicleType, metric, budget).get(0);
+	}
+
+	// Reachability for many origins, searched in parallel; results follow the order of
+	// origins, with null for unknown ones
+	public List<Isochrone> findReachableStations(List<String> origins, String vehicleType, RouteMetric metric,
+			double budget) {
+		RouteGraph snapshot = getSnapshot(vehicleType);
+		int[] ids = stationIds(snapshot, origins);
+		Isochrone[] results = new Isochrone[ids.length];
+		IntStream.range(0, ids.length).parallel().forEach(i -> {
+			if (ids[i] != -1) {
+				results[i] = Isochrone.compute(snapshot, ids[i], metric, budget);
+			}
+		});
+		return Arrays.asList(results);
+	}
+
+	// Best route that may switch between the allowed vehicle types at any station, e.g.
+	// walking to a bus stop and riding on. One search covers every mode, so there is no
+	// need to run and stitch per-type queries. Returns null if there is no such route.
+	public MultiModalPath findMultiModalPath(String start, String destination, List<String> allowedVehicleTypes,
+			TransferPenalties penalties, RouteMetric metric) {
+		if (allowedVehicleTypes == null || allowedVehicleTypes.isEmpty()) {
+			System.out.println("Error: No vehicle types allowed for multi-modal route.");
+			return null;
+		}
+		// Taken together under the lock so every layer numbers the stations the same way
+		RouteGraph[] layers = new RouteGraph[allowedVehicleTypes.size()];
+		synchronized (graphLock) {
+			for (int i = 0; i < layers.length; i++) {
+				layers[i] = getSnapshot(allowedVehicleTypes.get(i));
+			}
+		}
+		int source = layers[0].getStationId(start);
+		int target = layers[0].getStationId(destination);
+		if (source == -1 || target == -1) {
+			System.out.println("Error: Start or destination node does not exist in the graph.");
+			return null;
+		}
+
+		MultiModalPath path = MultiModalSearch.run(layers, penalties.toMatrix(allowedVehicleTypes), source, target,
+				metric);
+		if (path == null) {
+			System.out.println("No multi-modal route found from " + start + " to " + destination + " using "
+					+ allowedVehicleTypes);
+		}
+		return path;
+	}
+
+	private int[] stationIds(RouteGraph snapshot, List<String> stations) {
+		int[] ids = new int[stations.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = snapshot.getStationId(stations.get(i));
+			if (ids[i] == -1) {
+				System.out.println("Warning: Unknown station: " + stations.get(i));
+			}
+		}
+		return ids;
+	}
+
+	// One multi-target search per source, run in parallel. Each search stops once
+	// every target is settled, so nearby targets keep the searches small.
+	private double[][] searchMatrix(RouteGraph snapshot, int[] sources, int[] targets, RouteMetric metric) {
+		return searchMatrix(snapshot, sources, targets, snapshot.getWeights(metric), metric.requiresPositiveWeight());
+	}
+
+	private double[][] searchMatrix(RouteGraph snapshot, int[] sources, int[] targets, double[] weights,
+			boolean positiveOnly) {
+		boolean[] isTarget = new boolean[snapshot.getStationCount()];
+		int targetCount = 0;
+		for (int target : targets) {
+			if (target != -1 && !isTarget[target]) {
+				isTarget[target] = true;
+				targetCount++;
+			}
+		}
+		int distinctTargets = targetCount;
+
+		double[][] matrix = new double[sources.length][];
+		IntStream.range(0, sources.length).parallel().forEach(row -> {
+			double[] distances = new double[targets.length];
+			if (sources[row] == -1 || distinctTargets == 0) {
+				Arrays.fill(distances, Double.POSITIVE_INFINITY);
+			} else {
+				SearchWorkspace search = DijkstraSearch.runToTargets(snapshot, sources[row], isTarget,
+						distinctTargets, weights, positiveOnly);
+				for (int column = 0; column < targets.length; column++) {
+					distances[column] = targets[column] == -1 ? Double.POSITIVE_INFINITY
+							: search.getDistance(targets[column]);
+				}
+			}
+			matrix[row] = distances;
+		});
+		return matrix;
+	}
+
+	// Top k loopless routes for one metric, best first (Yen's algorithm)
+	public List<RouteOption> findKShortestPaths(String start, String destination, String vehicleType,
+			RouteMetric metric, int k) {
+		List<RouteOption> routes = new ArrayList<>();
+		Iterator<RouteOption> paths = iterateShortestPaths(start, destination, vehicleType, metric);
+		while (routes.size() < k && paths.hasNext()) {
+			routes.add(paths.next());
+		}
+		System.out.println(routes.size() + " of " + k + " requested routes found from " + start + " to "
+				+ destination + " for vehicle type: " + vehicleType + " (" + metric + ")");
+		return routes;
+	}
+
+	// Loopless routes in order of the metric, computed one at a time as the caller asks for them
+	public Iterator<RouteOption> iterateShortestPaths(String start, String destination, String vehicleType,
+			RouteMetric metric) {
+		if (!graph.containsKey(start) || !graph.get(start).containsKey(vehicleType)) {
+			System.out.println("Error: Start node or vehicle type does not exist in the graph.");
+			return Collections.emptyIterator();
+		}
+		if (!graph.containsKey(destination)) {
+			System.out.println("Error: Destination node does not exist in the graph.");
+			return Collections.emptyIterator();
+		}
+
+		RouteGraph snapshot = getSnapshot(vehicleType);
+		KShortestPaths paths = KShortestPaths.start(snapshot, snapshot.getStationId(start),
+				snapshot.getStationId(destination), metric);
+		return new Iterator<RouteOption>() {
+			@Override
+			public boolean hasNext() {
+				return paths.hasNext();
+			}
+
+			@Override
+			public RouteOption next() {
+				return toRouteOption(snapshot, paths.next());
+			}
+		};
+	}
+
+	private RouteOption toRouteOption(RouteGraph snapshot, KShortestPaths.Path path) {
+		List<String> stations = new ArrayList<>();
+		for (int station : path.getStations()) {
+			stations.add(snapshot.getStationName(station));
+		}
+		double distance = 0.0;
+		double cost = 0.0;
+		double traffic = 0.0;
+		for (int edge : path.getEdges()) {
+			distance += snapshot.getWeights(RouteMetric.DISTANCE)[edge];
+			cost += snapshot.getWeights(RouteMetric.COST)[edge];
+			traffic += snapshot.getWeights(RouteMetric.LEAST_TRAFFIC_TIME)[edge];
+		}
+		return new RouteOption(stations, distance, cost, traffic);
+	}
+
+	// Keeps the options no other option dominates, sorted by distance
+	private List<RouteOption> skyline(List<RouteOption> options, double epsilon) {
+		options.sort(Comparator.comparingDouble(RouteOption::getDistance).thenComparingDouble(RouteOption::getCost)
+				.thenComparingDouble(RouteOption::getTrafficTime));
+		List<RouteOption> kept = new ArrayList<>();
+		for (RouteOption option : options) {
+			boolean dominated = false;
+			for (RouteOption other : kept) {
+				if (other.dominates(option, epsilon)) {
+					dominated = true;
 					break;
 				}
 			}
+			if (!dominated)
+				kept.add(option);
+		}
+		return kept;
+	}
 
-			// Log the running total cost for debugging purposes
-			System.out.println("Total cost so far: " + totalCost);
+	// Finds a route through the intermediates, in the given order, optimising one metric.
+	// The result carries the snapshot edges and all three totals, so callers do not
+	// need getRouteDistance / getRouteCost / getRouteTraffic afterwards. Legs share the
+	// route cache with the List-returning searches. Returns null if any leg has no route.
+	public RouteResult findRoute(String start, List<String> intermediates, String destination, String vehicleType,
+			RouteMetric metric) {
+		RouteGraph snapshot = getSnapshot(vehicleType);
+		List<String> stops = new ArrayList<>();
+		stops.add(start);
+		if (intermediates != null) {
+			stops.addAll(intermediates);
+		}
+		stops.add(destination);
 
-			// If no route is found between 'from' and 'to', log an error
-			if (!foundRoute) {
-				System.out.println(
-						"Error: No direct route between " + from + " and " + to + " for vehicle type: " + vehicleType);
+		RouteResult result = null;
+		for (int i = 0; i < stops.size() - 1; i++) {
+			RouteResult leg = findRouteLeg(snapshot, stops.get(i), stops.get(i + 1), metric);
+			if (leg == null) {
+				System.out.println("No path found from " + stops.get(i) + " to " + stops.get(i + 1)
+						+ " for vehicle type: " + vehicleType);
+				return null;
+			}
+			result = result == null ? leg : result.append(leg);
+		}
+		return result;
+	}
+
+	// Same as findRoute for a blend of the three metrics, e.g. CompositeMetric.CHEAP_BUT_QUICK.
+	// The blended edge column is built once per query (once per snapshot for presets)
+	// and every leg runs a bidirectional search over it.
+	public RouteResult findRoute(String start, List<String> intermediates, String destination, String vehicleType,
+			CompositeMetric metric) {
+		RouteGraph snapshot = getSnapshot(vehicleType);
+		List<String> stops = new ArrayList<>();
+		stops.add(start);
+		if (intermediates != null) {
+			stops.addAll(intermediates);
+		}
+		stops.add(destination);
+		int[] ids = stationIds(snapshot, stops);
+		double[] weights = snapshot.getWeights(metric);
+
+		RouteResult result = null;
+		for (int i = 0; i < ids.length - 1; i++) {
+			if (ids[i] == -1 || ids[i + 1] == -1) {
+				System.out.println("Error: Start or destination node does not exist in the graph.");
+				return null;
+			}
+			SearchWorkspace search = null;
+			if (getConnectivity(vehicleType).mayReach(stops.get(i), stops.get(i + 1))) {
+				search = BidirectionalDijkstra.run(snapshot, ids[i], ids[i + 1], weights, false);
+			}
+			if (search == null || !search.isSettled(ids[i + 1])) {
+				System.out.println("No path found from " + stops.get(i) + " to " + stops.get(i + 1)
+						+ " for vehicle type: " + vehicleType);
+				return null;
+			}
+			RouteResult leg = RouteResult.fromSearch(snapshot, ids[i], ids[i + 1], search);
+			result = result == null ? leg : result.append(leg);
+		}
+		return result;
+	}
+
+	private RouteResult findRouteLeg(RouteGraph snapshot, String start, String destination, RouteMetric metric) {
+		String vehicleType = snapshot.getVehicleType();
+		int source = snapshot.getStationId(start);
+		int target = snapshot.getStationId(destination);
+		if (source == -1 || target == -1) {
+			System.out.println("Error: Start or destination node does not exist in the graph.");
+			return null;
+		}
+
+		if (!getConnectivity(vehicleType).mayReach(start, destination)) {
+			return null;
+		}
+
+		List<String> cached = routeCache.get(start, destination, vehicleType, metric);
+		if (cached != null) {
+			return cached.isEmpty() ? null : evaluatePath(snapshot, cached);
+		}
+		long version = routeCache.getVersion(vehicleType);
+
+		SearchWorkspace search = searchPath(snapshot, source, target, metric);
+		if (!search.isSettled(target)) {
+			routeCache.put(start, destination, vehicleType, metric, new ArrayList<>(), Double.POSITIVE_INFINITY,
+					version);
+			return null;
+		}
+		RouteResult leg = RouteResult.fromSearch(snapshot, source, target, search);
+		routeCache.put(start, destination, vehicleType, metric, leg.getPath(), leg.getTotal(metric), version);
+		return leg;
+	}
+
+	// Looks every hop up in the snapshot's edge index: O(path length), no list scans.
+	// Returns null (after printing the missing hop) if two consecutive stations are not connected.
+	private RouteResult evaluatePath(RouteGraph snapshot, List<String> path) {
+		int hops = Math.max(0, path.size() - 1);
+		int[] edges = new int[hops];
+		double[] distances = snapshot.getWeights(RouteMetric.DISTANCE);
+		double[] costs = snapshot.getWeights(RouteMetric.COST);
+		double[] trafficTimes = snapshot.getWeights(RouteMetric.LEAST_TRAFFIC_TIME);
+		double distance = 0.0;
+		double cost = 0.0;
+		double trafficTime = 0.0;
+		for (int i = 0; i < hops; i++) {
+			int edge = findEdge(snapshot, path.get(i), path.get(i + 1));
+			if (edge == -1) {
+				return null;
+			}
+			edges[i] = edge;
+			distance += distances[edge];
+			cost += costs[edge];
+			trafficTime += trafficTimes[edge];
+		}
+		return new RouteResult(snapshot.getVehicleType(), new ArrayList<>(path), edges, distance, cost, trafficTime);
+	}
+
+	private int findEdge(RouteGraph snapshot, String from, String to) {
+		int fromId = snapshot.getStationId(from);
+		int toId = snapshot.getStationId(to);
+		int edge = fromId == -1 || toId == -1 ? -1 : snapshot.findEdge(fromId, toId);
+		if (edge == -1) {
+			System.out.println("Error: No direct route between " + from + " and " + to + " for vehicle type: "
+					+ snapshot.getVehicleType());
+		}
+		return edge;
+	}
+
+	// Totals of a given path, or null if some hop has no direct route
+	public RouteResult evaluatePath(List<String> path, String vehicleType) {
+		return evaluatePath(getSnapshot(vehicleType), path);
+	}
+
+	public double getRouteDistance(List<String> path, String vehicleType) {
+		RouteResult result = evaluatePath(path, vehicleType);
+		return result == null ? Double.POSITIVE_INFINITY : result.getDistance();
+	}
+
+	public double getRouteTraffic(List<String> path, String vehicleType) {
+		RouteResult result = evaluatePath(path, vehicleType);
+		return result == null ? Double.POSITIVE_INFINITY : result.getTrafficTime();
+	}
+
+	// Travel time of a path when leaving at departureHour; every route is priced at the
+	// hour it is entered, so later legs see the traffic of later in the day
+	public double getRouteTraffic(List<String> path, String vehicleType, double departureHour) {
+		RouteGraph snapshot = getSnapshot(vehicleType);
+		double hour = departureHour;
+		for (int i = 0; i < path.size() - 1; i++) {
+			int edge = findEdge(snapshot, path.get(i), path.get(i + 1));
+			if (edge == -1) {
 				return Double.POSITIVE_INFINITY;
 			}
+			hour += snapshot.getTrafficTime(edge, hour);
 		}
+		return hour - departureHour;
+	}
 
-		return totalCost;
+	public double getRouteCost(List<String> path, String vehicleType) {
+		RouteResult result = evaluatePath(path, vehicleType);
+		return result == null ? Double.POSITIVE_INFINITY : result.getCost();
 	}
 
 }
@@ -0,0 +1,23 @@
+package application;
+
+// The edge weights a route search can minimise
+enum RouteMetric {
+	DISTANCE, COST, LEAST_TRAFFIC_TIME;
+
+	// Reads this metric's weight from a route
+	double weightOf(Route route) {
+		switch (this) {
+		case DISTANCE:
+			return route.getDistance();
+		case COST:
+			return route.getCost();
+		default:
+			return route.getLeastTrafficTime();
+		}
+	}
+
+	// Shortest-route searches have always ignored edges without a positive distance
+	boolean requiresPositiveWeight() {
+		return this == DISTANCE;
+	}
+}
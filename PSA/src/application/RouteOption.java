@@ -0,0 +1,56 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One route on the distance / cost / traffic skyline, with all three totals
+class RouteOption {
+	private final List<String> path;
+	private final double distance;
+	private final double cost;
+	private final double trafficTime;
+
+	public RouteOption(List<String> path, double distance, double cost, double trafficTime) {
+		this.path = path;
+		this.distance = distance;
+		this.cost = cost;
+		this.trafficTime = trafficTime;
+	}
+
+	public List<String> getPath() {
+		return path;
+	}
+
+	public double getDistance() {
+		return distance;
+	}
+
+	public double getCost() {
+		return cost;
+	}
+
+	public double getTrafficTime() {
+		return trafficTime;
+	}
+
+	// True if this route is no worse than the other on every total, allowing the
+	// given relative slack (0 for plain dominance)
+	public boolean dominates(RouteOption other, double epsilon) {
+		double slack = 1.0 + epsilon;
+		return distance <= slack * other.distance && cost <= slack * other.cost
+				&& trafficTime <= slack * other.trafficTime;
+	}
+
+	// Joins this route with one that starts where this one ends
+	public RouteOption append(RouteOption next) {
+		List<String> joined = new ArrayList<>(path);
+		joined.addAll(next.path.subList(1, next.path.size()));
+		return new RouteOption(joined, distance + next.distance, cost + next.cost, trafficTime + next.trafficTime);
+	}
+
+	@Override
+	public String toString() {
+		return "RouteOption{" + "path=" + path + ", distance=" + distance + ", cost=" + cost + ", trafficTime="
+				+ trafficTime + '}';
+	}
+}
@@ -0,0 +1,108 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// A found route with everything a caller needs to show it: the stations, the edge
+// of every hop in the vehicle type's snapshot, and distance, cost and traffic time
+// totals gathered while the path was read off the search, so nothing is looked up again.
+class RouteResult {
+	private final String vehicleType;
+	private final List<String> path;
+	private final int[] edges;
+	private final double distance;
+	private final double cost;
+	private final double trafficTime;
+
+	public RouteResult(String vehicleType, List<String> path, int[] edges, double distance, double cost,
+			double trafficTime) {
+		this.vehicleType = vehicleType;
+		this.path = path;
+		this.edges = edges;
+		this.distance = distance;
+		this.cost = cost;
+		this.trafficTime = trafficTime;
+	}
+
+	// Reads the path, edges and totals off a finished search; the target must be settled
+	static RouteResult fromSearch(RouteGraph snapshot, int source, int target, SearchWorkspace search) {
+		int hops = 0;
+		for (int at = target; at != source; at = search.getPrevious(at)) {
+			hops++;
+		}
+		String[] stations = new String[hops + 1];
+		int[] edges = new int[hops];
+		double[] distances = snapshot.getWeights(RouteMetric.DISTANCE);
+		double[] costs = snapshot.getWeights(RouteMetric.COST);
+		double[] trafficTimes = snapshot.getWeights(RouteMetric.LEAST_TRAFFIC_TIME);
+		double distance = 0.0;
+		double cost = 0.0;
+		double trafficTime = 0.0;
+		int at = target;
+		for (int hop = hops - 1; hop >= 0; hop--) {
+			int edge = search.getPreviousEdge(at);
+			stations[hop + 1] = snapshot.getStationName(at);
+			edges[hop] = edge;
+			distance += distances[edge];
+			cost += costs[edge];
+			trafficTime += trafficTimes[edge];
+			at = search.getPrevious(at);
+		}
+		stations[0] = snapshot.getStationName(source);
+		return new RouteResult(snapshot.getVehicleType(), new ArrayList<>(Arrays.asList(stations)), edges, distance,
+				cost, trafficTime);
+	}
+
+	public String getVehicleType() {
+		return vehicleType;
+	}
+
+	public List<String> getPath() {
+		return path;
+	}
+
+	// Snapshot edge IDs, one per hop; edges[i] leads from path[i] to path[i + 1]
+	public int[] getEdges() {
+		return edges;
+	}
+
+	public double getDistance() {
+		return distance;
+	}
+
+	public double getCost() {
+		return cost;
+	}
+
+	public double getTrafficTime() {
+		return trafficTime;
+	}
+
+	public double getTotal(RouteMetric metric) {
+		switch (metric) {
+		case DISTANCE:
+			return distance;
+		case COST:
+			return cost;
+		default:
+			return trafficTime;
+		}
+	}
+
+	// Joins this route with one that starts where this one ends
+	public RouteResult append(RouteResult next) {
+		List<String> joined = new ArrayList<>(path);
+		joined.addAll(next.path.subList(1, next.path.size()));
+		int[] joinedEdges = Arrays.copyOf(edges, edges.length + next.edges.length);
+		System.arraycopy(next.edges, 0, joinedEdges, edges.length, next.edges.length);
+		return new RouteResult(vehicleType, joined, joinedEdges, distance + next.distance, cost + next.cost,
+				trafficTime + next.trafficTime);
+	}
+
+	@Override
+	public String toString() {
+		return "RouteResult{" + "vehicleType='" + vehicleType + '\'' + ", path=" + path + ", distance=" + distance
+				+ ", cost=" + cost + ", trafficTime=" + trafficTime + '}';
+	}
+}
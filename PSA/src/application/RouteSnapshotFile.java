@@ -0,0 +1,288 @@
+package application;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+// Binary copy of the route database, so startup does not have to parse JSON. The file
+// holds a header, one string table for station and vehicle type names, the distinct
+// traffic profiles, and per vehicle type the CSR offsets and targets followed by the
+// distance, cost and traffic time columns, each section aligned to 8 bytes.
+//
+// routesdatabase.json stays the database and the import/export format; the snapshot
+// records the size and modification time of the JSON file it was written for and is
+// ignored once they differ. It is read through a read-only mapping and the columns are
+// bulk-copied into the RouteGraph arrays without any parsing. The search code indexes
+// plain arrays, so every process holds its own heap copy; only the file's pages in the
+// OS page cache are shared. The route map is not rebuilt either: its lists read their
+// routes from the snapshots until the first change calls makeMutable.
+final class RouteSnapshotFile {
+	private static final int FILE_MAGIC = 0x52475331; // "RGS1"
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_BYTES = 48;
+
+	// What a snapshot file holds: the route map and a CSR snapshot per vehicle type
+	static final class Contents {
+		final Map<String, Map<String, List<Route>>> routes;
+		final Map<String, RouteGraph> snapshots;
+
+		private Contents(Map<String, Map<String, List<Route>>> routes, Map<String, RouteGraph> snapshots) {
+			this.routes = routes;
+			this.snapshots = snapshots;
+		}
+	}
+
+	private RouteSnapshotFile() {
+	}
+
+	// Writes the snapshots of one route map. They must all come from the same map state,
+	// which numbers its keyStationCount keys first; source is the JSON file they match.
+	static void write(File file, File source, int keyStationCount, Collection<RouteGraph> snapshots)
+			throws IOException {
+		if (snapshots.isEmpty())
+			throw new IllegalArgumentException("Route snapshot needs at least one vehicle type");
+		RouteGraph first = snapshots.iterator().next();
+		int stationCount = first.getStationCount();
+		List<String> strings = new ArrayList<>(stationCount + snapshots.size());
+		for (int station = 0; station < stationCount; station++) {
+			strings.add(first.getStationName(station));
+		}
+		Map<TrafficProfile, Integer> profileIds = new LinkedHashMap<>();
+		for (RouteGraph snapshot : snapshots) {
+			if (snapshot.getStationCount() != stationCount)
+				throw new IllegalArgumentException("Route snapshots were built from different route maps");
+			strings.add(snapshot.getVehicleType());
+			for (int edge = 0; snapshot.hasTrafficProfiles() && edge < snapshot.getEdgeCount(); edge++) {
+				TrafficProfile profile = snapshot.getTrafficProfile(edge);
+				if (profile != null)
+					profileIds.putIfAbsent(profile, profileIds.size());
+			}
+		}
+		byte[][] encoded = new byte[strings.size()][];
+		int stringBytes = 0;
+		for (int i = 0; i < encoded.length; i++) {
+			encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+			stringBytes += encoded[i].length;
+		}
+
+		File temp = new File(file.getPath() + ".tmp");
+		try (FileOutputStream stream = new FileOutputStream(temp)) {
+			AlignedOutput out = new AlignedOutput(new BufferedOutputStream(stream, 1 << 16));
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeLong(source.length());
+			out.writeLong(source.lastModified());
+			out.writeInt(stationCount);
+			out.writeInt(keyStationCount);
+			out.writeInt(snapshots.size());
+			out.writeInt(profileIds.size());
+			out.writeInt(stringBytes);
+			out.align();
+
+			int offset = 0;
+			out.writeInt(0);
+			for (byte[] bytes : encoded) {
+				out.writeInt(offset += bytes.length);
+			}
+			for (byte[] bytes : encoded) {
+				out.write(bytes);
+			}
+			out.align();
+
+			for (TrafficProfile profile : profileIds.keySet()) {
+				int breakpoints = profile.getBreakpointCount();
+				out.writeInt(breakpoints);
+				out.align();
+				for (int i = 0; i < breakpoints; i++) {
+					out.writeDouble(profile.getBreakpointHour(i));
+				}
+				for (int i = 0; i < breakpoints; i++) {
+					out.writeDouble(profile.getBreakpointTravelTime(i));
+				}
+			}
+
+			for (RouteGraph snapshot : snapshots) {
+				int edgeCount = snapshot.getEdgeCount();
+				out.writeInt(edgeCount);
+				out.writeInt(snapshot.hasTrafficProfiles() ? 1 : 0);
+				for (int station = 0; station <= stationCount; station++) {
+					out.writeInt(station < stationCount ? snapshot.edgeStart(station) : edgeCount);
+				}
+				for (int edge = 0; edge < edgeCount; edge++) {
+					out.writeInt(snapshot.getTarget(edge));
+				}
+				out.align();
+				for (RouteMetric metric : RouteMetric.values()) {
+					for (double weight : snapshot.getWeights(metric)) {
+						out.writeDouble(weight);
+					}
+				}
+				if (snapshot.hasTrafficProfiles()) {
+					for (int edge = 0; edge < edgeCount; edge++) {
+						TrafficProfile profile = snapshot.getTrafficProfile(edge);
+						out.writeInt(profile == null ? -1 : profileIds.get(profile));
+					}
+					out.align();
+				}
+			}
+			out.flush();
+			stream.getFD().sync();
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// Reads a snapshot written for the current state of source; returns null if there is
+	// none or it was written for an older version of the JSON file
+	static Contents read(File file, File source) throws IOException {
+		if (!file.exists())
+			return null;
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file.toPath())) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Route snapshot exceeds 2 GB: " + file);
+			// The mapping stays valid after the channel is closed
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != FILE_MAGIC || buffer.getInt(4) != FORMAT_VERSION
+				|| buffer.getLong(8) != source.length() || buffer.getLong(16) != source.lastModified())
+			return null;
+		int stationCount = buffer.getInt(24);
+		int keyStationCount = buffer.getInt(28);
+		int vehicleTypeCount = buffer.getInt(32);
+		int profileCount = buffer.getInt(36);
+		int stringBytes = buffer.getInt(40);
+
+		buffer.position(HEADER_BYTES);
+		int[] stringOffsets = readInts(buffer, stationCount + vehicleTypeCount + 1);
+		byte[] bytes = new byte[stringBytes];
+		buffer.get(bytes);
+		align(buffer);
+		String[] strings = new String[stationCount + vehicleTypeCount];
+		for (int i = 0; i < strings.length; i++) {
+			strings[i] = new String(bytes, stringOffsets[i], stringOffsets[i + 1] - stringOffsets[i],
+					StandardCharsets.UTF_8);
+		}
+		String[] stationNames = Arrays.copyOf(strings, stationCount);
+		Map<String, Integer> stationIds = new HashMap<>(stationCount * 4 / 3 + 1);
+		for (int station = 0; station < stationCount; station++) {
+			stationIds.put(stationNames[station], station);
+		}
+
+		TrafficProfile[] profiles = new TrafficProfile[profileCount];
+		for (int i = 0; i < profileCount; i++) {
+			int breakpoints = buffer.getInt();
+			align(buffer);
+			double[] hours = readDoubles(buffer, breakpoints);
+			profiles[i] = TrafficProfile.of(hours, readDoubles(buffer, breakpoints));
+		}
+
+		// Stations keep the order of the original map, so snapshots built from it later number them the same way
+		Map<String, Map<String, List<Route>>> routes = new LinkedHashMap<>(keyStationCount * 4 / 3 + 1);
+		for (int station = 0; station < keyStationCount; station++) {
+			routes.put(stationNames[station], new HashMap<>());
+		}
+		Map<String, RouteGraph> snapshots = new HashMap<>();
+		for (int type = 0; type < vehicleTypeCount; type++) {
+			String vehicleType = strings[stationCount + type];
+			int edgeCount = buffer.getInt();
+			boolean hasProfiles = buffer.getInt() != 0;
+			int[] offsets = readInts(buffer, stationCount + 1);
+			int[] targets = readInts(buffer, edgeCount);
+			align(buffer);
+			double[] distance = readDoubles(buffer, edgeCount);
+			double[] cost = readDoubles(buffer, edgeCount);
+			double[] leastTrafficTime = readDoubles(buffer, edgeCount);
+			TrafficProfile[] trafficProfiles = null;
+			if (hasProfiles) {
+				trafficProfiles = new TrafficProfile[edgeCount];
+				int[] profileIndexes = readInts(buffer, edgeCount);
+				align(buffer);
+				for (int edge = 0; edge < edgeCount; edge++) {
+					if (profileIndexes[edge] >= 0)
+						trafficProfiles[edge] = profiles[profileIndexes[edge]];
+				}
+			}
+			RouteGraph snapshot = RouteGraph.fromColumns(vehicleType, stationIds, stationNames, offsets, targets,
+					distance, cost, leastTrafficTime, trafficProfiles);
+			snapshots.put(vehicleType, snapshot);
+
+			for (int station = 0; station < keyStationCount; station++) {
+				if (offsets[station] < offsets[station + 1])
+					routes.get(stationNames[station]).put(vehicleType, new MappedRoutes(snapshot, station));
+			}
+		}
+		return new Contents(routes, snapshots);
+	}
+
+	// Replaces the route lists of a map returned by read with ArrayLists, so it can be changed
+	static void makeMutable(Map<String, Map<String, List<Route>>> routes) {
+		for (Map<String, List<Route>> vehicleRoutes : routes.values()) {
+			vehicleRoutes.replaceAll(
+					(vehicleType, list) -> list instanceof MappedRoutes ? new ArrayList<>(list) : list);
+		}
+	}
+
+	// Read-only routes of one station and vehicle type, created from the snapshot's columns on access
+	private static final class MappedRoutes extends AbstractList<Route> implements RandomAccess {
+		private final RouteGraph snapshot;
+		private final int station;
+
+		MappedRoutes(RouteGraph snapshot, int station) {
+			this.snapshot = snapshot;
+			this.station = station;
+		}
+
+		@Override
+		public Route get(int index) {
+			Objects.checkIndex(index, size());
+			int edge = snapshot.edgeStart(station) + index;
+			return new Route(snapshot.getStationName(station), snapshot.getStationName(snapshot.getTarget(edge)),
+					snapshot.getWeights(RouteMetric.DISTANCE)[edge], snapshot.getVehicleType(),
+					snapshot.getWeights(RouteMetric.COST)[edge],
+					snapshot.getWeights(RouteMetric.LEAST_TRAFFIC_TIME)[edge], snapshot.getTrafficProfile(edge));
+		}
+
+		@Override
+		public int size() {
+			return snapshot.edgeEnd(station) - snapshot.edgeStart(station);
+		}
+	}
+
+	private static int[] readInts(ByteBuffer buffer, int count) {
+		int[] values = new int[count];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + count * Integer.BYTES);
+		return values;
+	}
+
+	private static double[] readDoubles(ByteBuffer buffer, int count) {
+		double[] values = new double[count];
+		buffer.asDoubleBuffer().get(values);
+		buffer.position(buffer.position() + count * Double.BYTES);
+		return values;
+	}
+
+	private static void align(ByteBuffer buffer) {
+		buffer.position((buffer.position() + 7) & ~7);
+	}
+
+	// DataOutputStream that can pad to the next 8-byte boundary, so every column of the
+	// mapped file starts aligned
+	private static final class AlignedOutput extends DataOutputStream {
+		AlignedOutput(OutputStream out) {
+			super(out);
+		}
+
+		void align() throws IOException {
+			while ((written & 7) != 0) {
+				writeByte(0);
+			}
+		}
+	}
+}
@@ -0,0 +1,534 @@
+package application;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+// Coordinator of a routing cluster for one vehicle type. The network is split into
+// partitions and each partition is served by a RoutingWorker in its own JVM, talking
+// over a loopback socket. The coordinator keeps only the boundary overlay: the stations
+// with a route into or out of another partition, the routes between partitions, and
+// every worker's table of distances between its boundary stations.
+//
+// A query asks the source's and target's workers for their distances to and from their
+// boundary, searches the overlay, then has the workers expand each partition-internal
+// hop into stations and joins the pieces. Requests to a worker are pipelined, so the
+// workers involved in a step answer in parallel.
+final class RoutingCluster implements AutoCloseable {
+	// Marks an overlay hop that runs inside a partition; routes between partitions use their index
+	private static final int INSIDE_PARTITION = -2;
+	private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+	// Connection to one worker process; replies arrive in request order
+	private static final class Worker {
+		final Process process;
+		Socket socket;
+		BufferedReader in;
+		Writer out;
+		// Requests whose reply has not been read yet
+		int pending;
+		// Set once reading or writing failed, after which the request order is lost
+		boolean failed;
+
+		Worker(Process process) {
+			this.process = process;
+		}
+
+		void connect(int port) throws IOException {
+			socket = new Socket(InetAddress.getLoopbackAddress(), port);
+			socket.setTcpNoDelay(true);
+			in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+		}
+
+		void send(RoutingWorker.Request request) throws IOException {
+			try {
+				out.write(RoutingWorker.GSON.toJson(request));
+				out.write('\n');
+				out.flush();
+			} catch (IOException e) {
+				failed = true;
+				throw e;
+			}
+			pending++;
+		}
+
+		RoutingWorker.Reply receive() throws IOException {
+			String line = readLine();
+			RoutingWorker.Reply reply = RoutingWorker.GSON.fromJson(line, RoutingWorker.Reply.class);
+			if (reply.error != null)
+				throw new IOException("Routing worker failed: " + reply.error);
+			return reply;
+		}
+
+		// Reads and drops the replies a failed query left unread, so the next query gets its own
+		void drain() throws IOException {
+			while (pending > 0) {
+				readLine();
+			}
+		}
+
+		private String readLine() throws IOException {
+			if (failed)
+				throw new IOException("Routing worker connection failed earlier");
+			String line;
+			try {
+				line = in.readLine();
+			} catch (IOException e) {
+				failed = true;
+				throw e;
+			}
+			if (line == null) {
+				failed = true;
+				throw new EOFException("Routing worker closed the connection");
+			}
+			pending--;
+			return line;
+		}
+	}
+
+	private final String vehicleType;
+	private final Worker[] workers;
+	private final Map<String, Integer> partitionOf;
+	private final int[] partitionSizes;
+	// Boundary stations of all partitions, numbered partition by partition
+	private final String[] boundaryNames;
+	private final int[] boundaryPartition;
+	private final int[] boundaryOffsets;
+	// Routes between partitions, grouped by their boundary station of origin; weights per metric ordinal
+	private final int[] cutOffsets;
+	private final int[] cutTargets;
+	private final double[][] cutWeights;
+	// tables[metric ordinal][partition][from][to]: distances inside the partition between its boundary stations
+	private final double[][][][] tables;
+	// Set when a worker connection failed; queries are refused until the cluster is restarted
+	private boolean broken;
+	// False once the routes the cluster was started from have changed
+	private BooleanSupplier current = () -> true;
+
+	private RoutingCluster(String vehicleType, Worker[] workers, Map<String, Integer> partitionOf,
+			int[] partitionSizes, String[] boundaryNames, int[] boundaryPartition, int[] boundaryOffsets,
+			int[] cutOffsets, int[] cutTargets, double[][] cutWeights) {
+		this.vehicleType = vehicleType;
+		this.workers = workers;
+		this.partitionOf = partitionOf;
+		this.partitionSizes = partitionSizes;
+		this.boundaryNames = boundaryNames;
+		this.boundaryPartition = boundaryPartition;
+		this.boundaryOffsets = boundaryOffsets;
+		this.cutOffsets = cutOffsets;
+		this.cutTargets = cutTargets;
+		this.cutWeights = cutWeights;
+		this.tables = new double[RouteMetric.values().length][workers.length][][];
+	}
+
+	// Splits the snapshot into at most workerCount partitions, starts a worker process
+	// for each and loads its partition and boundary tables. Workers that were started
+	// are stopped again if anything fails.
+	static RoutingCluster start(RouteGraph snapshot, int workerCount) throws IOException {
+		if (workerCount < 1)
+			throw new IllegalArgumentException("A routing cluster needs at least one worker: " + workerCount);
+		int stationCount = snapshot.getStationCount();
+		int[] partition = assignPartitions(snapshot, workerCount);
+		int partitionCount = 0;
+		for (int station = 0; station < stationCount; station++) {
+			partitionCount = Math.max(partitionCount, partition[station] + 1);
+		}
+
+		// Boundary stations have a route crossing into or out of their partition
+		boolean[] isBoundary = new boolean[stationCount];
+		for (int station = 0; station < stationCount; station++) {
+			for (int edge = snapshot.edgeStart(station); edge < snapshot.edgeEnd(station); edge++) {
+				int target = snapshot.getTarget(edge);
+				if (partition[target] != partition[station]) {
+					isBoundary[station] = true;
+					isBoundary[target] = true;
+				}
+			}
+		}
+		int[] boundaryOffsets = new int[partitionCount + 1];
+		for (int station = 0; station < stationCount; station++) {
+			if (isBoundary[station])
+				boundaryOffsets[partition[station] + 1]++;
+		}
+		for (int p = 0; p < partitionCount; p++) {
+			boundaryOffsets[p + 1] += boundaryOffsets[p];
+		}
+		int boundaryCount = boundaryOffsets[partitionCount];
+		String[] boundaryNames = new String[boundaryCount];
+		int[] boundaryPartition = new int[boundaryCount];
+		int[] boundaryId = new int[stationCount];
+		int[] next = Arrays.copyOf(boundaryOffsets, partitionCount);
+		for (int station = 0; station < stationCount; station++) {
+			if (isBoundary[station]) {
+				int id = next[partition[station]]++;
+				boundaryId[station] = id;
+				boundaryNames[id] = snapshot.getStationName(station);
+				boundaryPartition[id] = partition[station];
+			}
+		}
+
+		// Each partition's own routes go to its worker, the routes between partitions stay here
+		List<Map<String, Map<String, List<Route>>>> partitionRoutes = new ArrayList<>();
+		for (int p = 0; p < partitionCount; p++) {
+			partitionRoutes.add(new HashMap<>());
+		}
+		Map<String, Integer> partitionOf = new HashMap<>();
+		int[] partitionSizes = new int[partitionCount];
+		double[] distances = snapshot.getWeights(RouteMetric.DISTANCE);
+		double[] costs = snapshot.getWeights(RouteMetric.COST);
+		double[] trafficTimes = snapshot.getWeights(RouteMetric.LEAST_TRAFFIC_TIME);
+		String vehicleType = snapshot.getVehicleType();
+		int[] cutOffsets = new int[boundaryCount + 1];
+		List<Integer> cutEdges = new ArrayList<>();
+		for (int station = 0; station < stationCount; station++) {
+			String name = snapshot.getStationName(station);
+			partitionOf.put(name, partition[station]);
+			partitionSizes[partition[station]]++;
+			List<Route> routes = new ArrayList<>();
+			partitionRoutes.get(partition[station]).put(name, new HashMap<>(Map.of(vehicleType, routes)));
+			for (int edge = snapshot.edgeStart(station); edge < snapshot.edgeEnd(station); edge++) {
+				int target = snapshot.getTarget(edge);
+				if (partition[target] == partition[station]) {
+					routes.add(new Route(name, snapshot.getStationName(target), distances[edge], vehicleType,
+							costs[edge], trafficTimes[edge]));
+				} else {
+					cutOffsets[boundaryId[station] + 1]++;
+				}
+			}
+		}
+		for (int id = 0; id < boundaryCount; id++) {
+			cutOffsets[id + 1] += cutOffsets[id];
+		}
+		int[] cutTargets = new int[cutOffsets[boundaryCount]];
+		double[][] cutWeights = new double[RouteMetric.values().length][cutTargets.length];
+		// Boundary IDs follow station order within a partition, so filling in station order keeps the groups
+		int[] nextCut = Arrays.copyOf(cutOffsets, boundaryCount);
+		for (int station = 0; station < stationCount; station++) {
+			for (int edge = snapshot.edgeStart(station); edge < snapshot.edgeEnd(station); edge++) {
+				int target = snapshot.getTarget(edge);
+				if (partition[target] != partition[station]) {
+					int cut = nextCut[boundaryId[station]]++;
+					cutTargets[cut] = boundaryId[target];
+					cutWeights[RouteMetric.DISTANCE.ordinal()][cut] = distances[edge];
+					cutWeights[RouteMetric.COST.ordinal()][cut] = costs[edge];
+					cutWeights[RouteMetric.LEAST_TRAFFIC_TIME.ordinal()][cut] = trafficTimes[edge];
+				}
+			}
+		}
+
+		Worker[] workers = new Worker[partitionCount];
+		RoutingCluster cluster = new RoutingCluster(vehicleType, workers, partitionOf, partitionSizes, boundaryNames,
+				boundaryPartition, boundaryOffsets, cutOffsets, cutTargets, cutWeights);
+		try {
+			// All JVMs boot at the same time; then each is connected and loaded
+			for (int p = 0; p < partitionCount; p++) {
+				workers[p] = launch();
+			}
+			for (Worker worker : workers) {
+				worker.connect(readPort(worker.process));
+			}
+			for (int p = 0; p < partitionCount; p++) {
+				RoutingWorker.Request load = new RoutingWorker.Request("load");
+				load.vehicleType = vehicleType;
+				load.routes = partitionRoutes.get(p);
+				load.boundary = Arrays.asList(boundaryNames).subList(boundaryOffsets[p], boundaryOffsets[p + 1]);
+				workers[p].send(load);
+			}
+			for (Worker worker : workers) {
+				worker.receive();
+			}
+			for (RouteMetric metric : RouteMetric.values()) {
+				for (Worker worker : workers) {
+					RoutingWorker.Request table = new RoutingWorker.Request("table");
+					table.metric = metric;
+					worker.send(table);
+				}
+			}
+			for (RouteMetric metric : RouteMetric.values()) {
+				for (int p = 0; p < partitionCount; p++) {
+					cluster.tables[metric.ordinal()][p] = workers[p].receive().table;
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			cluster.close();
+			throw e;
+		}
+		return cluster;
+	}
+
+	// Balances whole cells over the partitions, largest cell first onto the smallest partition
+	private static int[] assignPartitions(RouteGraph snapshot, int workerCount) {
+		int stationCount = snapshot.getStationCount();
+		int[] cells = GraphPartition.cluster(snapshot, Math.max(1, (stationCount + workerCount - 1) / workerCount));
+		int cellCount = 0;
+		for (int cell : cells) {
+			cellCount = Math.max(cellCount, cell + 1);
+		}
+		int[] cellSizes = new int[cellCount];
+		for (int cell : cells) {
+			cellSizes[cell]++;
+		}
+		Integer[] order = new Integer[cellCount];
+		for (int cell = 0; cell < cellCount; cell++) {
+			order[cell] = cell;
+		}
+		Arrays.sort(order, (a, b) -> Integer.compare(cellSizes[b], cellSizes[a]));
+
+		int partitionCount = Math.min(workerCount, cellCount);
+		int[] partitionSizes = new int[partitionCount];
+		int[] partitionOfCell = new int[cellCount];
+		for (int cell : order) {
+			int smallest = 0;
+			for (int p = 1; p < partitionCount; p++) {
+				if (partitionSizes[p] < partitionSizes[smallest])
+					smallest = p;
+			}
+			partitionOfCell[cell] = smallest;
+			partitionSizes[smallest] += cellSizes[cell];
+		}
+		int[] partition = new int[stationCount];
+		for (int station = 0; station < stationCount; station++) {
+			partition[station] = partitionOfCell[cells[station]];
+		}
+		return partition;
+	}
+
+	// Starts a worker JVM with this JVM's class path
+	private static Worker launch() throws IOException {
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		String classPath = System.getProperty("java.class.path", "");
+		// Launched as a module, the application and Gson are on the module path instead
+		String modulePath = System.getProperty("jdk.module.path", "");
+		if (!modulePath.isEmpty()) {
+			classPath = classPath.isEmpty() ? modulePath : classPath + File.pathSeparator + modulePath;
+		}
+		Process process = new ProcessBuilder(java, "-cp", classPath, RoutingWorker.class.getName())
+				.redirectError(ProcessBuilder.Redirect.INHERIT).start();
+		return new Worker(process);
+	}
+
+	private static int readPort(Process process) throws IOException {
+		BufferedReader out = new BufferedReader(
+				new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+		String line = out.readLine();
+		if (line == null || !line.startsWith("PORT "))
+			throw new IOException("Routing worker did not start: " + line);
+		return Integer.parseInt(line.substring("PORT ".length()).trim());
+	}
+
+	// Lets the owner of the routes tell the cluster when its partitions no longer match them
+	void setCurrentCheck(BooleanSupplier current) {
+		this.current = current;
+	}
+
+	// Best route between two stations, or null if there is none, a worker failed or the
+	// routes changed since the cluster was started
+	public synchronized RouteOption findRoute(String start, String destination, RouteMetric metric) {
+		if (!current.getAsBoolean()) {
+			System.out.println("Error: Routes for vehicle type: " + vehicleType
+					+ " changed since the routing cluster was started; start a new cluster");
+			return null;
+		}
+		if (broken) {
+			System.out.println("Error: Routing cluster for vehicle type: " + vehicleType
+					+ " lost a worker connection and must be restarted");
+			return null;
+		}
+		Integer sourcePartition = partitionOf.get(start);
+		Integer targetPartition = partitionOf.get(destination);
+		if (sourcePartition == null || targetPartition == null) {
+			System.out.println("Error: Invalid start or destination for vehicle type: " + vehicleType);
+			return null;
+		}
+		try {
+			RoutingWorker.Request from = new RoutingWorker.Request("from");
+			from.from = start;
+			from.to = sourcePartition.equals(targetPartition) ? destination : null;
+			from.metric = metric;
+			RoutingWorker.Request to = new RoutingWorker.Request("to");
+			to.to = destination;
+			to.metric = metric;
+			workers[sourcePartition].send(from);
+			workers[targetPartition].send(to);
+			RoutingWorker.Reply fromReply = workers[sourcePartition].receive();
+			RoutingWorker.Reply toReply = workers[targetPartition].receive();
+
+			SearchWorkspace search = searchOverlay(sourcePartition, targetPartition, fromReply, toReply, metric);
+			int source = boundaryNames.length;
+			int target = source + 1;
+			if (!search.isSettled(target)) {
+				System.out.println("No valid path found from " + start + " to " + destination + " for vehicle type: "
+						+ vehicleType);
+				return null;
+			}
+			List<int[]> hops = new ArrayList<>();
+			for (int at = target; at != source; at = search.getPrevious(at)) {
+				hops.add(new int[] { search.getPrevious(at), at, search.getPreviousEdge(at) });
+			}
+			Collections.reverse(hops);
+			return stitch(hops, start, destination, sourcePartition, targetPartition, metric);
+		} catch (IOException | RuntimeException e) {
+			e.printStackTrace();
+			recover();
+			return null;
+		}
+	}
+
+	// Called after a failed query: the replies it did not read would otherwise be taken as
+	// the answers to the next query's requests
+	private void recover() {
+		for (Worker worker : workers) {
+			try {
+				worker.drain();
+			} catch (IOException e) {
+				broken = true;
+			}
+		}
+		if (broken) {
+			System.out.println("Error: Routing cluster for vehicle type: " + vehicleType
+					+ " lost a worker connection and must be restarted");
+		}
+	}
+
+	// Dijkstra over the boundary stations plus the query's source (ID boundaryCount) and
+	// target (boundaryCount + 1). Hops inside a partition come from the workers' tables
+	// and replies, hops between partitions are the routes kept by the coordinator.
+	private SearchWorkspace searchOverlay(int sourcePartition, int targetPartition, RoutingWorker.Reply fromReply,
+			RoutingWorker.Reply toReply, RouteMetric metric) {
+		int source = boundaryNames.length;
+		int target = source + 1;
+		double[][][] partitionTables = tables[metric.ordinal()];
+		double[] weights = cutWeights[metric.ordinal()];
+		boolean positiveOnly = metric.requiresPositiveWeight();
+		SearchWorkspace workspace = SearchWorkspace.acquire(boundaryNames.length + 2);
+		IndexedHeap heap = workspace.heap;
+		workspace.reach(source, 0.0, -1, -1);
+		heap.insertOrDecrease(source, 0.0);
+
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			workspace.settle(current);
+			if (current == target)
+				break;
+
+			double currentDistance = workspace.getDistance(current);
+			if (current == source) {
+				int first = boundaryOffsets[sourcePartition];
+				for (int i = 0; i < fromReply.distances.length; i++) {
+					relax(workspace, source, first + i, INSIDE_PARTITION, fromReply.distances[i]);
+				}
+				if (sourcePartition == targetPartition)
+					relax(workspace, source, target, INSIDE_PARTITION, fromReply.distance);
+				continue;
+			}
+
+			int partition = boundaryPartition[current];
+			int first = boundaryOffsets[partition];
+			double[] row = partitionTables[partition][current - first];
+			for (int j = 0; j < row.length; j++) {
+				relax(workspace, current, first + j, INSIDE_PARTITION, currentDistance + row[j]);
+			}
+			if (partition == targetPartition)
+				relax(workspace, current, target, INSIDE_PARTITION, currentDistance + toReply.distances[current - first]);
+			for (int cut = cutOffsets[current]; cut < cutOffsets[current + 1]; cut++) {
+				if (positiveOnly && weights[cut] <= 0)
+					continue;
+				relax(workspace, current, cutTargets[cut], cut, currentDistance + weights[cut]);
+			}
+		}
+		return workspace;
+	}
+
+	private static void relax(SearchWorkspace workspace, int from, int to, int hop, double newDistance) {
+		if (newDistance < workspace.getDistance(to) && !workspace.isSettled(to)) {
+			workspace.reach(to, newDistance, from, hop);
+			workspace.heap.insertOrDecrease(to, newDistance);
+		}
+	}
+
+	// Has the workers expand the hops inside partitions, all requests sent before any reply is read
+	private RouteOption stitch(List<int[]> hops, String start, String destination, int sourcePartition,
+			int targetPartition, RouteMetric metric) throws IOException {
+		int source = boundaryNames.length;
+		int target = source + 1;
+		List<Integer> askedWorkers = new ArrayList<>();
+		for (int[] hop : hops) {
+			if (hop[2] != INSIDE_PARTITION)
+				continue;
+			int worker = hop[0] == source ? sourcePartition
+					: hop[1] == target ? targetPartition : boundaryPartition[hop[0]];
+			RoutingWorker.Request path = new RoutingWorker.Request("path");
+			path.from = hop[0] == source ? start : boundaryNames[hop[0]];
+			path.to = hop[1] == target ? destination : boundaryNames[hop[1]];
+			path.metric = metric;
+			workers[worker].send(path);
+			askedWorkers.add(worker);
+		}
+
+		List<String> stations = new ArrayList<>();
+		stations.add(start);
+		double[] totals = new double[3];
+		int reply = 0;
+		for (int[] hop : hops) {
+			if (hop[2] == INSIDE_PARTITION) {
+				RoutingWorker.Reply piece = workers[askedWorkers.get(reply++)].receive();
+				if (piece.path == null)
+					throw new IOException("Routing worker found no path for a hop of its own table");
+				stations.addAll(piece.path.subList(1, piece.path.size()));
+				for (int i = 0; i < totals.length; i++) {
+					totals[i] += piece.totals[i];
+				}
+			} else {
+				stations.add(boundaryNames[hop[1]]);
+				totals[0] += cutWeights[RouteMetric.DISTANCE.ordinal()][hop[2]];
+				totals[1] += cutWeights[RouteMetric.COST.ordinal()][hop[2]];
+				totals[2] += cutWeights[RouteMetric.LEAST_TRAFFIC_TIME.ordinal()][hop[2]];
+			}
+		}
+		return new RouteOption(stations, totals[0], totals[1], totals[2]);
+	}
+
+	public String getVehicleType() {
+		return vehicleType;
+	}
+
+	public int getWorkerCount() {
+		return workers.length;
+	}
+
+	// Asks every worker to exit and waits for it, killing workers that do not respond
+	@Override
+	public synchronized void close() {
+		for (Worker worker : workers) {
+			if (worker == null)
+				continue;
+			try {
+				if (worker.socket != null) {
+					worker.send(new RoutingWorker.Request("shutdown"));
+					worker.receive();
+					worker.socket.close();
+				}
+				if (!worker.process.waitFor(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS))
+					worker.process.destroyForcibly();
+			} catch (IOException e) {
+				worker.process.destroyForcibly();
+			} catch (InterruptedException e) {
+				worker.process.destroyForcibly();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "RoutingCluster{" + "vehicleType='" + vehicleType + '\'' + ", stationsPerWorker="
+				+ Arrays.toString(partitionSizes) + ", boundaryStations=" + boundaryNames.length + ", routesBetween="
+				+ cutTargets.length + '}';
+	}
+}
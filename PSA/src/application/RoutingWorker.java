@@ -0,0 +1,181 @@
+package application;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// One partition of a RoutingCluster, run in its own JVM. It listens on a loopback port,
+// prints "PORT <n>" on stdout for the coordinator that started it, then answers the
+// coordinator's requests, one JSON object per line, until it is told to shut down or the
+// connection closes. The partition arrives as a route map in the same format as
+// routesdatabase.json, holding only the routes between the partition's own stations.
+public class RoutingWorker {
+	// An orphaned worker whose coordinator never connects gives up after this long
+	private static final int ACCEPT_TIMEOUT_MS = 30_000;
+
+	// Unreachable stations are sent as Infinity, which plain JSON has no literal for
+	static final Gson GSON = new GsonBuilder().serializeSpecialFloatingPointValues().create();
+
+	// A coordinator request; which fields are set depends on op
+	static final class Request {
+		String op;
+		String vehicleType;
+		Map<String, Map<String, List<Route>>> routes;
+		List<String> boundary;
+		RouteMetric metric;
+		String from;
+		String to;
+
+		Request(String op) {
+			this.op = op;
+		}
+	}
+
+	static final class Reply {
+		String error;
+		// "table": distances inside the partition between every pair of boundary stations
+		double[][] table;
+		// "from" / "to": distances from or to every boundary station, in boundary order
+		double[] distances;
+		// "from" with a target in the partition: the distance to it
+		double distance;
+		// "path": the stations of the path and its distance, cost and traffic totals
+		List<String> path;
+		double[] totals;
+	}
+
+	private RouteGraph graph;
+	private int[] boundary;
+
+	public static void main(String[] args) {
+		try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			server.setSoTimeout(ACCEPT_TIMEOUT_MS);
+			System.out.println("PORT " + server.getLocalPort());
+			System.out.flush();
+			try (Socket socket = server.accept()) {
+				socket.setTcpNoDelay(true);
+				new RoutingWorker().serve(socket);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	private void serve(Socket socket) throws IOException {
+		BufferedReader in = new BufferedReader(
+				new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+		Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+		String line;
+		while ((line = in.readLine()) != null) {
+			Request request = GSON.fromJson(line, Request.class);
+			Reply reply;
+			try {
+				reply = handle(request);
+			} catch (RuntimeException e) {
+				reply = new Reply();
+				reply.error = e.toString();
+			}
+			out.write(GSON.toJson(reply));
+			out.write('\n');
+			out.flush();
+			if ("shutdown".equals(request.op))
+				return;
+		}
+	}
+
+	private Reply handle(Request request) {
+		Reply reply = new Reply();
+		switch (request.op) {
+		case "load":
+			// Every station of the partition is a key of the route map, so all of them get IDs
+			graph = RouteGraph.build(request.routes, request.vehicleType);
+			boundary = new int[request.boundary.size()];
+			for (int i = 0; i < boundary.length; i++) {
+				boundary[i] = stationId(request.boundary.get(i));
+			}
+			break;
+		case "table":
+			reply.table = boundaryTable(request.metric);
+			break;
+		case "from": {
+			SearchWorkspace search = DijkstraSearch.run(graph, stationId(request.from), -1, request.metric);
+			reply.distances = boundaryDistances(search);
+			if (request.to != null)
+				reply.distance = search.getDistance(stationId(request.to));
+			break;
+		}
+		case "to":
+			reply.distances = boundaryDistances(DijkstraSearch.runBackward(graph, stationId(request.to), request.metric));
+			break;
+		case "path":
+			path(stationId(request.from), stationId(request.to), request.metric, reply);
+			break;
+		case "shutdown":
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown request: " + request.op);
+		}
+		return reply;
+	}
+
+	private int stationId(String station) {
+		int id = graph.getStationId(station);
+		if (id < 0)
+			throw new IllegalArgumentException("Station not in this partition: " + station);
+		return id;
+	}
+
+	private double[][] boundaryTable(RouteMetric metric) {
+		boolean[] isBoundary = new boolean[graph.getStationCount()];
+		for (int station : boundary) {
+			isBoundary[station] = true;
+		}
+		double[][] table = new double[boundary.length][];
+		for (int i = 0; i < boundary.length; i++) {
+			table[i] = boundaryDistances(
+					DijkstraSearch.runToTargets(graph, boundary[i], isBoundary, boundary.length, metric));
+		}
+		return table;
+	}
+
+	private double[] boundaryDistances(SearchWorkspace search) {
+		double[] distances = new double[boundary.length];
+		for (int i = 0; i < boundary.length; i++) {
+			distances[i] = search.getDistance(boundary[i]);
+		}
+		return distances;
+	}
+
+	// Leaves the path null if the target cannot be reached inside the partition
+	private void path(int from, int to, RouteMetric metric, Reply reply) {
+		SearchWorkspace search = DijkstraSearch.run(graph, from, to, metric);
+		if (!search.isSettled(to))
+			return;
+		double[] distances = graph.getWeights(RouteMetric.DISTANCE);
+		double[] costs = graph.getWeights(RouteMetric.COST);
+		double[] trafficTimes = graph.getWeights(RouteMetric.LEAST_TRAFFIC_TIME);
+		List<String> path = new ArrayList<>();
+		double[] totals = new double[3];
+		for (int at = to; at != from; at = search.getPrevious(at)) {
+			int edge = search.getPreviousEdge(at);
+			path.add(graph.getStationName(at));
+			totals[0] += distances[edge];
+			totals[1] += costs[edge];
+			totals[2] += trafficTimes[edge];
+		}
+		path.add(graph.getStationName(from));
+		Collections.reverse(path);
+		reply.path = path;
+		reply.totals = totals;
+	}
+}
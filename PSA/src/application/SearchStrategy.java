@@ -0,0 +1,15 @@
+package application;
+
+// Point-to-point search engines RouteManager can answer route queries with
+public enum SearchStrategy {
+	// Bidirectional Dijkstra, needs no preprocessing
+	BIDIRECTIONAL,
+	// A* guided by precomputed landmark (ALT) lower bounds
+	LANDMARKS,
+	// Upward/downward search over a Contraction Hierarchy, rebuilt in the background after changes
+	CONTRACTION_HIERARCHIES,
+	// Next-hop walk over a precomputed, memory-mapped all-pairs matrix
+	TRAVEL_MATRIX,
+	// Multi-level Dijkstra over partition cell overlays; a weight change only re-customizes the cells it touches
+	CUSTOMIZABLE_ROUTE_PLANNING
+}
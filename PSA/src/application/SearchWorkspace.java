@@ -0,0 +1,94 @@
+package application;
+
+import java.util.Arrays;
+
+// Reusable per-thread scratch state for route searches. Distances and
+// predecessors are stamped with a generation counter, so starting a new search
+// is O(1) instead of refilling arrays sized to the whole network.
+final class SearchWorkspace {
+	private static final ThreadLocal<SearchWorkspace> CURRENT = ThreadLocal.withInitial(SearchWorkspace::new);
+	private static final ThreadLocal<SearchWorkspace> BACKWARD = ThreadLocal.withInitial(SearchWorkspace::new);
+
+	private int generation;
+	private int[] reachedStamp = new int[0];
+	private int[] settledStamp = new int[0];
+	private double[] distances = new double[0];
+	private int[] previousNodes = new int[0];
+	private int[] previousEdges = new int[0];
+	private int settledCount;
+	final IndexedHeap heap = new IndexedHeap(0);
+
+	// Returns this thread's workspace, reset for a search over stationCount stations.
+	// The result is only valid until the next search on the same thread.
+	static SearchWorkspace acquire(int stationCount) {
+		SearchWorkspace workspace = CURRENT.get();
+		workspace.reset(stationCount);
+		return workspace;
+	}
+
+	// Returns this thread's second workspace, used by the backward half of bidirectional searches
+	static SearchWorkspace acquireBackward(int stationCount) {
+		SearchWorkspace workspace = BACKWARD.get();
+		workspace.reset(stationCount);
+		return workspace;
+	}
+
+	private void reset(int stationCount) {
+		if (stationCount > distances.length) {
+			reachedStamp = Arrays.copyOf(reachedStamp, stationCount);
+			settledStamp = Arrays.copyOf(settledStamp, stationCount);
+			distances = new double[stationCount];
+			previousNodes = new int[stationCount];
+			previousEdges = new int[stationCount];
+			heap.ensureCapacity(stationCount);
+		}
+		heap.clear();
+		settledCount = 0;
+
+		// On wrap-around the stale stamps could collide with the new generation
+		if (++generation == 0) {
+			Arrays.fill(reachedStamp, 0);
+			Arrays.fill(settledStamp, 0);
+			generation = 1;
+		}
+	}
+
+	public double getDistance(int node) {
+		return reachedStamp[node] == generation ? distances[node] : Double.POSITIVE_INFINITY;
+	}
+
+	// Returns the predecessor on the best known path, or -1 for the source and unreached stations
+	public int getPrevious(int node) {
+		return reachedStamp[node] == generation ? previousNodes[node] : -1;
+	}
+
+	// Returns the CSR edge used to reach the station, or -1
+	public int getPreviousEdge(int node) {
+		return reachedStamp[node] == generation ? previousEdges[node] : -1;
+	}
+
+	public boolean isSettled(int node) {
+		return settledStamp[node] == generation;
+	}
+
+	public int getSettledCount() {
+		return settledCount;
+	}
+
+	void reach(int node, double distance, int previousNode, int previousEdge) {
+		reachedStamp[node] = generation;
+		distances[node] = distance;
+		previousNodes[node] = previousNode;
+		previousEdges[node] = previousEdge;
+	}
+
+	void settle(int node) {
+		settledStamp[node] = generation;
+		settledCount++;
+	}
+
+	// Adds stations settled by another workspace that cooperated on the same query
+	void addSettledCount(int count) {
+		settledCount += count;
+	}
+}
@@ -0,0 +1,183 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// Full single-source shortest-path trees for popular origins, one per vehicle
+// type and metric. A query from a cached origin is a walk up the tree instead of
+// a search. Trees take 16 bytes per station; when the budget is exceeded the
+// tree of the least popular origin goes first.
+final class ShortestPathTreeCache {
+	static final long DEFAULT_BUDGET_BYTES = 64L * 1024 * 1024;
+	// An origin gets a tree once it has been searched from this many times
+	private static final int HOT_THRESHOLD = 2;
+	// Popularity counts are halved every this many lookups so old favourites fade
+	private static final int AGING_INTERVAL = 10_000;
+
+	// Distances and predecessors of one search, detached from the thread's workspace.
+	// Route weight updates repair a tree in place, so reads and repairs lock the tree.
+	static final class Tree {
+		private volatile RouteGraph graph;
+		private final RouteMetric metric;
+		private final int source;
+		private final double[] distances;
+		private final int[] previousNodes;
+		private final int[] previousEdges;
+
+		private Tree(RouteGraph graph, RouteMetric metric, int source, SearchWorkspace search) {
+			this.graph = graph;
+			this.metric = metric;
+			this.source = source;
+			int stationCount = graph.getStationCount();
+			distances = new double[stationCount];
+			previousNodes = new int[stationCount];
+			previousEdges = new int[stationCount];
+			for (int station = 0; station < stationCount; station++) {
+				distances[station] = search.getDistance(station);
+				previousNodes[station] = search.getPrevious(station);
+				previousEdges[station] = search.getPreviousEdge(station);
+			}
+		}
+
+		private long bytes() {
+			return (long) distances.length * (Double.BYTES + 2 * Integer.BYTES);
+		}
+
+		// Copies the branch from source to target into the calling thread's workspace
+		// so it reads like a DijkstraSearch result; only that branch is touched
+		synchronized SearchWorkspace walk(int target) {
+			SearchWorkspace workspace = SearchWorkspace.acquire(graph.getStationCount());
+			if (distances[target] == Double.POSITIVE_INFINITY)
+				return workspace;
+			for (int at = target; at != -1; at = previousNodes[at]) {
+				workspace.reach(at, distances[at], previousNodes[at], previousEdges[at]);
+				if (at == source)
+					break;
+			}
+			workspace.settle(target);
+			return workspace;
+		}
+
+		// Moves the tree to newGraph, where one edge has a different weight than in the
+		// tree's current graph, touching only the stations whose distance changes
+		synchronized int repair(RouteGraph newGraph, int edge, int from) {
+			double oldWeight = graph.getWeights(metric)[edge];
+			int touched = ShortestPathTreeRepair.repair(newGraph, metric, distances, previousNodes, previousEdges,
+					edge, from, oldWeight);
+			graph = newGraph;
+			return touched;
+		}
+	}
+
+	private final long budgetBytes;
+	private final Map<String, Tree> trees = new HashMap<>();
+	private final Map<String, Integer> popularity = new HashMap<>();
+	private long usedBytes;
+	private int lookups;
+	private long hits;
+	private long builds;
+	private long evictions;
+	private long repairs;
+	private long repairedStations;
+
+	ShortestPathTreeCache(long budgetBytes) {
+		this.budgetBytes = budgetBytes;
+	}
+
+	private static String key(RouteGraph graph, int source, RouteMetric metric) {
+		return graph.getVehicleType() + "|" + metric.name() + "|" + graph.getStationName(source);
+	}
+
+	// Returns the tree for source if it is cached, building it first when the origin
+	// has become popular enough; null means the caller should run a normal search
+	Tree get(RouteGraph graph, int source, RouteMetric metric) {
+		String key = key(graph, source, metric);
+		synchronized (this) {
+			Tree tree = trees.get(key);
+			int count = popularity.merge(key, 1, Integer::sum);
+			if (++lookups % AGING_INTERVAL == 0) {
+				popularity.replaceAll((origin, uses) -> uses / 2);
+				popularity.values().removeIf(uses -> uses == 0);
+			}
+			if (tree != null && tree.graph == graph) {
+				hits++;
+				return tree;
+			}
+			if (count < HOT_THRESHOLD || graph.getStationCount() * 16L > budgetBytes)
+				return null;
+		}
+
+		// Built outside the lock; afterwards a tree only changes through repair
+		Tree tree = new Tree(graph, metric, source, DijkstraSearch.run(graph, source, -1, metric));
+		synchronized (this) {
+			Tree previous = trees.put(key, tree);
+			if (previous != null)
+				usedBytes -= previous.bytes();
+			usedBytes += tree.bytes();
+			builds++;
+			evictLeastPopular(key);
+		}
+		return tree;
+	}
+
+	private void evictLeastPopular(String keep) {
+		while (usedBytes > budgetBytes && trees.size() > 1) {
+			String coldest = null;
+			int coldestUses = Integer.MAX_VALUE;
+			for (String origin : trees.keySet()) {
+				int uses = popularity.getOrDefault(origin, 0);
+				if (!origin.equals(keep) && uses < coldestUses) {
+					coldest = origin;
+					coldestUses = uses;
+				}
+			}
+			usedBytes -= trees.remove(coldest).bytes();
+			evictions++;
+		}
+	}
+
+	// Carries every tree built on oldGraph over to newGraph, which differs only in the
+	// weights of edge (from -> its target). Trees of other vehicle types are left alone,
+	// and trees of older snapshots of this one are dropped.
+	void repair(RouteGraph oldGraph, RouteGraph newGraph, int edge, int from) {
+		List<Tree> repairable = new ArrayList<>();
+		synchronized (this) {
+			Iterator<Tree> iterator = trees.values().iterator();
+			while (iterator.hasNext()) {
+				Tree tree = iterator.next();
+				if (!tree.graph.getVehicleType().equals(oldGraph.getVehicleType()))
+					continue;
+				if (tree.graph == oldGraph) {
+					repairable.add(tree);
+				} else {
+					usedBytes -= tree.bytes();
+					iterator.remove();
+				}
+			}
+		}
+		int touched = 0;
+		for (Tree tree : repairable) {
+			touched += tree.repair(newGraph, edge, from);
+		}
+		synchronized (this) {
+			repairs += repairable.size();
+			repairedStations += touched;
+		}
+	}
+
+	// Drops every tree after the graph changed; popularity is kept so hot origins are rebuilt on their next use
+	synchronized void clear() {
+		trees.clear();
+		usedBytes = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ShortestPathTreeCache{" + "trees=" + trees.size() + ", usedBytes=" + usedBytes + ", budgetBytes="
+				+ budgetBytes + ", hits=" + hits + ", builds=" + builds + ", evictions=" + evictions + ", repairs=" + repairs
+				+ ", repairedStations=" + repairedStations + '}';
+	}
+}
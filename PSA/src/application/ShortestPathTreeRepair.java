@@ -0,0 +1,171 @@
+package application;
+
+import java.util.Arrays;
+
+// Ramalingam-Reps style repair of a single-source shortest-path tree after one
+// edge weight changed. Only stations whose distance really changes are updated:
+// a decrease propagates outwards from the edge's head while it keeps improving,
+// and an increase first finds the stations that lose their shortest path and then
+// re-runs Dijkstra among just those.
+final class ShortestPathTreeRepair {
+
+	private ShortestPathTreeRepair() {
+	}
+
+	// Repairs distances / previousNodes / previousEdges (a full tree from one source)
+	// for graph, which already carries the new weight of edge (from -> head). Returns
+	// the number of stations whose entry was examined or changed.
+	static int repair(RouteGraph graph, RouteMetric metric, double[] distances, int[] previousNodes,
+			int[] previousEdges, int edge, int from, double oldWeight) {
+		double newWeight = weight(graph.getWeights(metric), metric, edge);
+		if (metric.requiresPositiveWeight() && oldWeight <= 0)
+			oldWeight = Double.POSITIVE_INFINITY;
+		if (newWeight < oldWeight)
+			return decrease(graph, metric, distances, previousNodes, previousEdges, edge, from);
+		if (newWeight > oldWeight)
+			return increase(graph, metric, distances, previousNodes, previousEdges, edge);
+		return 0;
+	}
+
+	private static double weight(double[] weights, RouteMetric metric, int edge) {
+		double weight = weights[edge];
+		return metric.requiresPositiveWeight() && weight <= 0 ? Double.POSITIVE_INFINITY : weight;
+	}
+
+	private static int decrease(RouteGraph graph, RouteMetric metric, double[] distances, int[] previousNodes,
+			int[] previousEdges, int edge, int from) {
+		double[] weights = graph.getWeights(metric);
+		int head = graph.getTarget(edge);
+		double candidate = distances[from] + weight(weights, metric, edge);
+		if (!(candidate < distances[head]))
+			return 0;
+
+		SearchWorkspace workspace = SearchWorkspace.acquire(graph.getStationCount());
+		IndexedHeap heap = workspace.heap;
+		distances[head] = candidate;
+		previousNodes[head] = from;
+		previousEdges[head] = edge;
+		heap.insertOrDecrease(head, candidate);
+
+		int touched = 0;
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			touched++;
+			for (int out = graph.edgeStart(current), end = graph.edgeEnd(current); out < end; out++) {
+				int neighbor = graph.getTarget(out);
+				double newDistance = distances[current] + weight(weights, metric, out);
+				if (newDistance < distances[neighbor]) {
+					distances[neighbor] = newDistance;
+					previousNodes[neighbor] = current;
+					previousEdges[neighbor] = out;
+					heap.insertOrDecrease(neighbor, newDistance);
+				}
+			}
+		}
+		return touched;
+	}
+
+	private static int increase(RouteGraph graph, RouteMetric metric, double[] distances, int[] previousNodes,
+			int[] previousEdges, int edge) {
+		int head = graph.getTarget(edge);
+		// Only the subtree hanging off the edge can get longer
+		if (previousEdges[head] != edge)
+			return 0;
+
+		double[] weights = graph.getWeights(metric);
+		SearchWorkspace workspace = SearchWorkspace.acquire(graph.getStationCount());
+		IndexedHeap heap = workspace.heap;
+
+		// Phase 1: walk the subtree in order of old distance. A station keeps its
+		// distance if some incoming edge from a station known to be unaffected is still
+		// tight; it is re-parented there and its subtree is skipped. Otherwise it is
+		// affected (marked settled in the workspace) and its tree children are queued.
+		// Queued stations count as reached and in the heap until they are decided.
+		int[] affected = new int[16];
+		int affectedCount = 0;
+		workspace.reach(head, 0.0, -1, -1);
+		heap.insertOrDecrease(head, distances[head]);
+		int touched = 0;
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			touched++;
+			if (reparent(graph, metric, weights, workspace, distances, previousNodes, previousEdges, current))
+				continue;
+
+			workspace.settle(current);
+			if (affectedCount == affected.length)
+				affected = Arrays.copyOf(affected, affectedCount * 2);
+			affected[affectedCount++] = current;
+			for (int out = graph.edgeStart(current), end = graph.edgeEnd(current); out < end; out++) {
+				int child = graph.getTarget(out);
+				if (previousEdges[child] == out && workspace.getDistance(child) == Double.POSITIVE_INFINITY) {
+					workspace.reach(child, 0.0, -1, -1);
+					heap.insertOrDecrease(child, distances[child]);
+				}
+			}
+		}
+
+		// Phase 2: affected stations start from their best edge out of the unaffected
+		// part, then Dijkstra runs among the affected stations only
+		for (int i = 0; i < affectedCount; i++) {
+			int station = affected[i];
+			distances[station] = Double.POSITIVE_INFINITY;
+			previousNodes[station] = -1;
+			previousEdges[station] = -1;
+		}
+		for (int i = 0; i < affectedCount; i++) {
+			int station = affected[i];
+			for (int slot = graph.reverseEdgeStart(station); slot < graph.reverseEdgeEnd(station); slot++) {
+				int source = graph.getReverseSource(slot);
+				if (workspace.isSettled(source))
+					continue;
+				int in = graph.getReverseEdge(slot);
+				double candidate = distances[source] + weight(weights, metric, in);
+				if (candidate < distances[station]) {
+					distances[station] = candidate;
+					previousNodes[station] = source;
+					previousEdges[station] = in;
+				}
+			}
+			if (distances[station] < Double.POSITIVE_INFINITY)
+				heap.insertOrDecrease(station, distances[station]);
+		}
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			touched++;
+			for (int out = graph.edgeStart(current), end = graph.edgeEnd(current); out < end; out++) {
+				int neighbor = graph.getTarget(out);
+				if (!workspace.isSettled(neighbor))
+					continue;
+				double newDistance = distances[current] + weight(weights, metric, out);
+				if (newDistance < distances[neighbor]) {
+					distances[neighbor] = newDistance;
+					previousNodes[neighbor] = current;
+					previousEdges[neighbor] = out;
+					heap.insertOrDecrease(neighbor, newDistance);
+				}
+			}
+		}
+		return touched;
+	}
+
+	// Moves station onto another tight incoming edge from an unaffected station, if there is one
+	private static boolean reparent(RouteGraph graph, RouteMetric metric, double[] weights,
+			SearchWorkspace workspace, double[] distances, int[] previousNodes, int[] previousEdges, int station) {
+		for (int slot = graph.reverseEdgeStart(station); slot < graph.reverseEdgeEnd(station); slot++) {
+			int source = graph.getReverseSource(slot);
+			// Affected or still undecided sources cannot vouch for the distance
+			if (workspace.isSettled(source) || workspace.heap.contains(source))
+				continue;
+			// A zero-weight edge could come from the station's own subtree and close a cycle
+			int in = graph.getReverseEdge(slot);
+			double weight = weight(weights, metric, in);
+			if (weight > 0 && distances[source] + weight == distances[station]) {
+				previousNodes[station] = source;
+				previousEdges[station] = in;
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,42 @@
+package application;
+
+// Dijkstra over time-of-day travel times. A station's label is the time spent
+// travelling since departure, and each edge is priced at the hour the search
+// enters it. Because every TrafficProfile is FIFO, arriving at a station earlier
+// never makes the rest of the trip later, so settling in label order stays exact.
+final class TimeDependentSearch {
+
+	private TimeDependentSearch() {
+	}
+
+	// Searches from source, leaving at departureHour, until target is settled (or the
+	// whole reachable network when target is -1). Distances in the returned workspace
+	// are travel times in hours; it belongs to the calling thread.
+	static SearchWorkspace run(RouteGraph graph, int source, int target, double departureHour) {
+		SearchWorkspace workspace = SearchWorkspace.acquire(graph.getStationCount());
+		IndexedHeap heap = workspace.heap;
+
+		workspace.reach(source, 0.0, -1, -1);
+		heap.insertOrDecrease(source, 0.0);
+
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			workspace.settle(current);
+
+			if (current == target)
+				break;
+
+			double elapsed = workspace.getDistance(current);
+			double hour = departureHour + elapsed;
+			for (int edge = graph.edgeStart(current), end = graph.edgeEnd(current); edge < end; edge++) {
+				int neighbor = graph.getTarget(edge);
+				double newElapsed = elapsed + graph.getTrafficTime(edge, hour);
+				if (newElapsed < workspace.getDistance(neighbor) && !workspace.isSettled(neighbor)) {
+					workspace.reach(neighbor, newElapsed, current, edge);
+					heap.insertOrDecrease(neighbor, newElapsed);
+				}
+			}
+		}
+		return workspace;
+	}
+}
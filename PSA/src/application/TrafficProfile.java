@@ -0,0 +1,229 @@
+package application;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+// Travel time of a route over the day as a periodic piecewise-linear function:
+// breakpoints are (hour of day, travel time in hours) and the value between two
+// breakpoints is interpolated, wrapping from the last breakpoint to the first.
+//
+// Profiles are immutable and interned, so the thousands of routes that share a
+// rush-hour shape share one instance. The pool holds them weakly, so a profile no
+// route uses any more, e.g. after a reload, is collected. Routes without a profile
+// keep using their constant leastTrafficTime and carry no profile at all.
+//
+// Every profile satisfies FIFO: leaving later never gets you there earlier, i.e.
+// the travel time never falls faster than the clock advances. That is what lets
+// a plain label-setting search answer time-dependent queries exactly.
+@JsonAdapter(TrafficProfile.Adapter.class)
+final class TrafficProfile {
+	static final double HOURS_PER_DAY = 24.0;
+
+	// Guarded by itself; the value is weak too, as a strong one would keep its own key alive
+	private static final Map<TrafficProfile, WeakReference<TrafficProfile>> POOL = new WeakHashMap<>();
+
+	private final double[] hours;
+	private final double[] travelTimes;
+	private final double minimum;
+	private final int hash;
+
+	private TrafficProfile(double[] hours, double[] travelTimes) {
+		this.hours = hours;
+		this.travelTimes = travelTimes;
+		double lowest = Double.POSITIVE_INFINITY;
+		for (double travelTime : travelTimes) {
+			lowest = Math.min(lowest, travelTime);
+		}
+		this.minimum = lowest;
+		this.hash = 31 * Arrays.hashCode(hours) + Arrays.hashCode(travelTimes);
+	}
+
+	// Returns the shared profile for the given breakpoints. Hours must be strictly
+	// increasing within [0, 24) and travel times finite and non-negative. Breakpoints
+	// that would let a later departure arrive earlier are raised just enough to
+	// restore FIFO, with a warning.
+	static TrafficProfile of(double[] hours, double[] travelTimes) {
+		if (hours.length == 0 || hours.length != travelTimes.length)
+			throw new IllegalArgumentException("Traffic profile needs matching, non-empty hours and travel times");
+		for (int i = 0; i < hours.length; i++) {
+			if (!(hours[i] >= 0 && hours[i] < HOURS_PER_DAY) || (i > 0 && hours[i] <= hours[i - 1]))
+				throw new IllegalArgumentException("Traffic profile hours must increase within [0, 24): "
+						+ Arrays.toString(hours));
+			if (!(travelTimes[i] >= 0) || Double.isInfinite(travelTimes[i]))
+				throw new IllegalArgumentException("Traffic profile travel times must be finite and non-negative: "
+						+ Arrays.toString(travelTimes));
+		}
+
+		double[] fifoTimes = travelTimes.clone();
+		if (enforceFifo(hours, fifoTimes))
+			System.out.println("Warning: Traffic profile raised to keep FIFO: " + Arrays.toString(travelTimes)
+					+ " -> " + Arrays.toString(fifoTimes));
+
+		TrafficProfile profile = new TrafficProfile(hours.clone(), fifoTimes);
+		synchronized (POOL) {
+			WeakReference<TrafficProfile> reference = POOL.get(profile);
+			TrafficProfile shared = reference == null ? null : reference.get();
+			if (shared != null)
+				return shared;
+			POOL.put(profile, new WeakReference<>(profile));
+			return profile;
+		}
+	}
+
+	// Raises breakpoints until the value drops by at most the elapsed time between
+	// neighbours, going round the day twice so the wrap-around segment settles too
+	private static boolean enforceFifo(double[] hours, double[] travelTimes) {
+		boolean changed = false;
+		int count = hours.length;
+		for (int step = 1; step < 2 * count + 1; step++) {
+			int previous = (step - 1) % count;
+			int current = step % count;
+			double gap = hours[current] - hours[previous];
+			if (gap <= 0)
+				gap += HOURS_PER_DAY;
+			double lowest = travelTimes[previous] - gap;
+			if (travelTimes[current] < lowest) {
+				travelTimes[current] = lowest;
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	// Travel time when entering the route at the given hour (any real number; taken modulo a day)
+	double travelTime(double departureHour) {
+		if (hours.length == 1)
+			return travelTimes[0];
+		double hour = departureHour % HOURS_PER_DAY;
+		if (hour < 0)
+			hour += HOURS_PER_DAY;
+
+		int next = Arrays.binarySearch(hours, hour);
+		if (next >= 0)
+			return travelTimes[next];
+		next = -next - 1;
+		int previous = next - 1;
+		double startHour;
+		double endHour;
+		if (next == hours.length) {
+			next = 0;
+			startHour = hours[previous];
+			endHour = hours[0] + HOURS_PER_DAY;
+		} else if (previous < 0) {
+			previous = hours.length - 1;
+			startHour = hours[previous] - HOURS_PER_DAY;
+			endHour = hours[next];
+		} else {
+			startHour = hours[previous];
+			endHour = hours[next];
+		}
+		double fraction = (hour - startHour) / (endHour - startHour);
+		return travelTimes[previous] + fraction * (travelTimes[next] - travelTimes[previous]);
+	}
+
+	// Smallest travel time over the day; a valid lower bound for any departure
+	double getMinimum() {
+		return minimum;
+	}
+
+	int getBreakpointCount() {
+		return hours.length;
+	}
+
+	double getBreakpointHour(int breakpoint) {
+		return hours[breakpoint];
+	}
+
+	double getBreakpointTravelTime(int breakpoint) {
+		return travelTimes[breakpoint];
+	}
+
+	// Number of distinct profiles currently shared between routes
+	static int getSharedCount() {
+		synchronized (POOL) {
+			return POOL.size();
+		}
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof TrafficProfile))
+			return false;
+		TrafficProfile other = (TrafficProfile) o;
+		return hash == other.hash && Arrays.equals(hours, other.hours)
+				&& Arrays.equals(travelTimes, other.travelTimes);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("TrafficProfile{");
+		for (int i = 0; i < hours.length; i++) {
+			if (i > 0)
+				builder.append(", ");
+			builder.append(hours[i]).append("h=").append(travelTimes[i]);
+		}
+		return builder.append('}').toString();
+	}
+
+	// Stored in the route database as [[hour, travelTime], ...]; reading interns the profile
+	static final class Adapter extends TypeAdapter<TrafficProfile> {
+		@Override
+		public void write(JsonWriter out, TrafficProfile profile) throws IOException {
+			if (profile == null) {
+				out.nullValue();
+				return;
+			}
+			out.beginArray();
+			for (int i = 0; i < profile.hours.length; i++) {
+				out.beginArray().value(profile.hours[i]).value(profile.travelTimes[i]).endArray();
+			}
+			out.endArray();
+		}
+
+		@Override
+		public TrafficProfile read(JsonReader in) throws IOException {
+			if (in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				return null;
+			}
+			List<double[]> breakpoints = new ArrayList<>();
+			in.beginArray();
+			while (in.hasNext()) {
+				in.beginArray();
+				breakpoints.add(new double[] { in.nextDouble(), in.nextDouble() });
+				in.endArray();
+			}
+			in.endArray();
+
+			double[] hours = new double[breakpoints.size()];
+			double[] travelTimes = new double[breakpoints.size()];
+			for (int i = 0; i < hours.length; i++) {
+				hours[i] = breakpoints.get(i)[0];
+				travelTimes[i] = breakpoints.get(i)[1];
+			}
+			// A broken profile should not stop the whole database from loading; the route keeps its constant time
+			try {
+				return of(hours, travelTimes);
+			} catch (IllegalArgumentException e) {
+				System.out.println("Warning: Ignoring traffic profile at " + in.getPath() + ": " + e.getMessage());
+				return null;
+			}
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package application;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// What it takes to switch vehicle type at a station during a multi-modal search,
+// in units of the metric being optimised (km, cost or hours). Pairs without an
+// explicit penalty use the default; an infinite penalty forbids the direct switch.
+// Switching through a third type at the same station pays both penalties.
+public class TransferPenalties {
+	private final double defaultPenalty;
+	private final Map<String, Double> penalties = new HashMap<>();
+
+	public TransferPenalties(double defaultPenalty) {
+		if (!(defaultPenalty >= 0))
+			throw new IllegalArgumentException("Transfer penalty must be non-negative: " + defaultPenalty);
+		this.defaultPenalty = defaultPenalty;
+	}
+
+	public TransferPenalties setPenalty(String fromVehicleType, String toVehicleType, double penalty) {
+		if (!(penalty >= 0))
+			throw new IllegalArgumentException("Transfer penalty must be non-negative: " + penalty);
+		penalties.put(fromVehicleType + "->" + toVehicleType, penalty);
+		return this;
+	}
+
+	public TransferPenalties forbid(String fromVehicleType, String toVehicleType) {
+		return setPenalty(fromVehicleType, toVehicleType, Double.POSITIVE_INFINITY);
+	}
+
+	public double getPenalty(String fromVehicleType, String toVehicleType) {
+		if (fromVehicleType.equals(toVehicleType))
+			return 0.0;
+		return penalties.getOrDefault(fromVehicleType + "->" + toVehicleType, defaultPenalty);
+	}
+
+	// Dense penalty table for the given modes, indexed [from][to]
+	double[][] toMatrix(List<String> vehicleTypes) {
+		double[][] matrix = new double[vehicleTypes.size()][vehicleTypes.size()];
+		for (int from = 0; from < matrix.length; from++) {
+			for (int to = 0; to < matrix.length; to++) {
+				matrix[from][to] = getPenalty(vehicleTypes.get(from), vehicleTypes.get(to));
+			}
+		}
+		return matrix;
+	}
+}
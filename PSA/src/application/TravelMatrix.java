@@ -0,0 +1,274 @@
+package application;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Precomputed all-pairs distances and next hops for one vehicle type and metric,
+// kept in a memory-mapped file. A route is answered by following next hops, so a
+// query costs O(path length). Meant for regional networks of a few thousand
+// stations: the file holds 12 bytes per station pair.
+final class TravelMatrix {
+	private static final int FILE_MAGIC = 0x544D5831; // "TMX1"
+	private static final int HEADER_BYTES = 32;
+	private static final double TIGHT_EPSILON = 1e-9;
+
+	private final File file;
+	private final RouteMetric metric;
+	private RouteGraph graph;
+	private MappedByteBuffer buffer;
+	private int stationCount;
+	// Station pairs whose routes changed since the last refresh
+	private final List<String[]> changedRoutes = new ArrayList<>();
+	private boolean allChanged;
+
+	private TravelMatrix(File file, RouteGraph graph, RouteMetric metric) {
+		this.file = file;
+		this.graph = graph;
+		this.metric = metric;
+	}
+
+	// Maps an existing matrix file if it was built for exactly this snapshot, otherwise returns null
+	static TravelMatrix open(File file, RouteGraph graph, RouteMetric metric) {
+		if (!file.exists())
+			return null;
+		TravelMatrix matrix = new TravelMatrix(file, graph, metric);
+		try {
+			matrix.map(graph.getStationCount(), false);
+		} catch (IOException | IllegalStateException e) {
+			System.out.println("Warning: Ignoring unreadable travel matrix " + file + ": " + e);
+			return null;
+		}
+		ByteBuffer header = matrix.buffer;
+		if (header.getInt(0) != FILE_MAGIC || header.getInt(4) != metric.ordinal()
+				|| header.getInt(8) != graph.getStationCount() || header.getLong(16) != graph.getFingerprint()) {
+			return null;
+		}
+		return matrix;
+	}
+
+	// Computes every row from scratch and stores the matrix in the file
+	static TravelMatrix build(File file, RouteGraph graph, RouteMetric metric) {
+		TravelMatrix matrix = new TravelMatrix(file, graph, metric);
+		try {
+			matrix.map(graph.getStationCount(), true);
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot create travel matrix " + file, e);
+		}
+		matrix.computeRows(IntStream.range(0, graph.getStationCount()));
+		matrix.writeHeader();
+		return matrix;
+	}
+
+	// Maps the file read-write; create resizes it for the given station count
+	private void map(int stations, boolean create) throws IOException {
+		long size = HEADER_BYTES + (long) stations * stations * (Double.BYTES + Integer.BYTES);
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Travel matrix for " + stations + " stations exceeds 2 GB");
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			if (create) {
+				raf.setLength(size);
+			} else if (raf.length() != size) {
+				throw new IllegalStateException("Travel matrix has an unexpected size");
+			}
+			// The mapping stays valid after the channel is closed
+			buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+		stationCount = stations;
+	}
+
+	// Runs one full single-source search per row on the common ForkJoinPool and
+	// writes the distance and next-hop rows straight into the mapping
+	private void computeRows(IntStream sources) {
+		RouteGraph current = graph;
+		MappedByteBuffer target = buffer;
+		sources.parallel().forEach(source -> {
+			SearchWorkspace search = DijkstraSearch.run(current, source, -1, metric);
+			ByteBuffer rows = target.duplicate();
+			int[] nextHop = new int[stationCount];
+			Arrays.fill(nextHop, -2);
+			for (int station = 0; station < stationCount; station++) {
+				rows.putDouble((int) distanceOffset(source, station), search.getDistance(station));
+				int hop = resolveNextHop(search, source, station, nextHop);
+				rows.putInt((int) nextHopOffset(source, station), hop);
+			}
+		});
+	}
+
+	// The first hop towards station is shared along its whole branch of the tree,
+	// so it is resolved once per branch and cached in nextHop (-2 = unresolved)
+	private static int resolveNextHop(SearchWorkspace search, int source, int station, int[] nextHop) {
+		if (station == source)
+			return source;
+		if (nextHop[station] != -2)
+			return nextHop[station];
+		if (search.getDistance(station) == Double.POSITIVE_INFINITY)
+			return nextHop[station] = -1;
+
+		// Walk up until a station with a known hop, or a child of the source
+		int at = station;
+		while (nextHop[at] == -2 && search.getPrevious(at) != source) {
+			at = search.getPrevious(at);
+		}
+		int hop = nextHop[at] != -2 ? nextHop[at] : at;
+		for (int fill = station; fill != at; fill = search.getPrevious(fill)) {
+			nextHop[fill] = hop;
+		}
+		nextHop[at] = hop;
+		return hop;
+	}
+
+	private void writeHeader() {
+		buffer.putInt(0, FILE_MAGIC);
+		buffer.putInt(4, metric.ordinal());
+		buffer.putInt(8, stationCount);
+		buffer.putLong(16, graph.getFingerprint());
+		buffer.force();
+	}
+
+	private long distanceOffset(int source, int target) {
+		return HEADER_BYTES + ((long) source * stationCount + target) * Double.BYTES;
+	}
+
+	private long nextHopOffset(int source, int target) {
+		return HEADER_BYTES + (long) stationCount * stationCount * Double.BYTES
+				+ ((long) source * stationCount + target) * Integer.BYTES;
+	}
+
+	public double getDistance(int source, int target) {
+		return buffer.getDouble((int) distanceOffset(source, target));
+	}
+
+	// The station after source on the best path to target, or -1 if unreachable
+	public int getNextHop(int source, int target) {
+		return buffer.getInt((int) nextHopOffset(source, target));
+	}
+
+	public boolean matches(RouteGraph snapshot) {
+		return snapshot.getFingerprint() == graph.getFingerprint() && !allChanged && changedRoutes.isEmpty();
+	}
+
+	// Remembers a route whose weights changed or that was added
+	synchronized void markChanged(String source, String destination) {
+		changedRoutes.add(new String[] { source, destination });
+	}
+
+	// The whole graph was replaced, so every row has to be recomputed
+	synchronized void markAllChanged() {
+		allChanged = true;
+	}
+
+	// Brings the matrix up to date with a newer snapshot. If the stations are the
+	// same, only the rows of sources whose best paths can change are recomputed.
+	synchronized void refresh(RouteGraph snapshot) {
+		RouteGraph previous = graph;
+		graph = snapshot;
+		int rowsRecomputed;
+		if (allChanged || !sameStations(previous, snapshot)) {
+			try {
+				map(snapshot.getStationCount(), true);
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot resize travel matrix " + file, e);
+			}
+			computeRows(IntStream.range(0, stationCount));
+			rowsRecomputed = stationCount;
+		} else {
+			BitSet affected = affectedSources(previous, snapshot);
+			computeRows(affected.stream());
+			rowsRecomputed = affected.cardinality();
+		}
+		writeHeader();
+		changedRoutes.clear();
+		allChanged = false;
+		System.out.println("Travel matrix " + file.getName() + " refreshed: " + rowsRecomputed + " of "
+				+ stationCount + " rows recomputed");
+	}
+
+	private static boolean sameStations(RouteGraph a, RouteGraph b) {
+		if (a.getStationCount() != b.getStationCount())
+			return false;
+		for (int station = 0; station < a.getStationCount(); station++) {
+			if (!a.getStationName(station).equals(b.getStationName(station)))
+				return false;
+		}
+		return true;
+	}
+
+	// A source is affected by a changed route u -> v if it reaches u and either the
+	// new weight shortens its path to v, or the old route was tight on its path to v
+	private BitSet affectedSources(RouteGraph previous, RouteGraph snapshot) {
+		BitSet affected = new BitSet(stationCount);
+		for (String[] route : changedRoutes) {
+			int from = snapshot.getStationId(route[0]);
+			int to = snapshot.getStationId(route[1]);
+			double oldWeight = cheapestEdge(previous, from, to);
+			double newWeight = cheapestEdge(snapshot, from, to);
+			for (int source = 0; source < stationCount; source++) {
+				double toFrom = getDistance(source, from);
+				if (toFrom == Double.POSITIVE_INFINITY)
+					continue;
+				double toTo = getDistance(source, to);
+				if (toFrom + newWeight < toTo || toFrom + oldWeight <= toTo + TIGHT_EPSILON)
+					affected.set(source);
+			}
+		}
+		return affected;
+	}
+
+	// Weight of the cheapest usable edge between two stations, or infinity
+	private double cheapestEdge(RouteGraph snapshot, int from, int to) {
+		double[] weights = snapshot.getWeights(metric);
+		double best = Double.POSITIVE_INFINITY;
+		for (int edge = snapshot.edgeStart(from); edge < snapshot.edgeEnd(from); edge++) {
+			if (snapshot.getTarget(edge) != to || (metric.requiresPositiveWeight() && weights[edge] <= 0))
+				continue;
+			best = Math.min(best, weights[edge]);
+		}
+		return best;
+	}
+
+	// Lays the stored path into the calling thread's workspace so it reads like a
+	// DijkstraSearch result; the target is settled only if it is reachable
+	SearchWorkspace lookup(RouteGraph snapshot, int source, int target) {
+		SearchWorkspace workspace = SearchWorkspace.acquire(snapshot.getStationCount());
+		if (getNextHop(source, target) == -1)
+			return workspace;
+
+		// The hops of a path come from the rows of different stations, i.e. from different
+		// search trees. With zero-weight ties those trees can disagree and send the walk in
+		// a circle, so it is bounded by the station count and falls back to a search.
+		double[] weights = snapshot.getWeights(metric);
+		workspace.reach(source, 0.0, -1, -1);
+		int hops = 0;
+		for (int at = source; at != target;) {
+			int next = getNextHop(at, target);
+			int edge = next < 0 ? -1 : cheapestEdgeId(snapshot, at, next, weights);
+			if (edge < 0 || ++hops >= snapshot.getStationCount())
+				return DijkstraSearch.run(snapshot, source, target, metric);
+			workspace.reach(next, workspace.getDistance(at) + weights[edge], at, edge);
+			at = next;
+		}
+		workspace.settle(target);
+		return workspace;
+	}
+
+	private int cheapestEdgeId(RouteGraph snapshot, int from, int to, double[] weights) {
+		int best = -1;
+		for (int edge = snapshot.edgeStart(from); edge < snapshot.edgeEnd(from); edge++) {
+			if (snapshot.getTarget(edge) != to || (metric.requiresPositiveWeight() && weights[edge] <= 0))
+				continue;
+			if (best == -1 || weights[edge] < weights[best])
+				best = edge;
+		}
+		return best;
+	}
+}
@@ -0,0 +1,201 @@
+package application;
+
+import java.util.Arrays;
+
+// Chooses the order in which to visit intermediate stops. Stop 0 is the start,
+// the last stop is the destination and everything in between may be visited in
+// any order. The matrix may be asymmetric; infinite entries mean unreachable.
+final class WaypointOrder {
+	// Up to this many waypoints the order is solved exactly with Held-Karp (2^n * n^2 steps)
+	static final int EXACT_LIMIT = 12;
+	private static final double IMPROVEMENT_EPSILON = 1e-9;
+
+	private WaypointOrder() {
+	}
+
+	// Returns stop indices in visiting order, from 0 to matrix.length - 1
+	static int[] solve(double[][] matrix) {
+		int waypoints = matrix.length - 2;
+		if (waypoints <= 0) {
+			return matrix.length == 1 ? new int[] { 0 } : new int[] { 0, 1 };
+		}
+		return waypoints <= EXACT_LIMIT ? heldKarp(matrix) : improve(matrix, nearestNeighbour(matrix));
+	}
+
+	static double pathCost(double[][] matrix, int[] order) {
+		double total = 0.0;
+		for (int i = 0; i < order.length - 1; i++) {
+			total += matrix[order[i]][order[i + 1]];
+		}
+		return total;
+	}
+
+	// best[mask][j]: cheapest way to leave the start, visit exactly the waypoints in
+	// mask and stop at waypoint j (waypoint j is stop j + 1)
+	private static int[] heldKarp(double[][] matrix) {
+		int waypoints = matrix.length - 2;
+		int destination = matrix.length - 1;
+		int subsets = 1 << waypoints;
+		double[][] best = new double[subsets][waypoints];
+		int[][] previous = new int[subsets][waypoints];
+		for (double[] row : best) {
+			Arrays.fill(row, Double.POSITIVE_INFINITY);
+		}
+		for (int j = 0; j < waypoints; j++) {
+			best[1 << j][j] = matrix[0][j + 1];
+			previous[1 << j][j] = -1;
+		}
+
+		for (int mask = 1; mask < subsets; mask++) {
+			for (int last = 0; last < waypoints; last++) {
+				double cost = best[mask][last];
+				if ((mask & (1 << last)) == 0 || cost == Double.POSITIVE_INFINITY)
+					continue;
+				for (int next = 0; next < waypoints; next++) {
+					if ((mask & (1 << next)) != 0)
+						continue;
+					int extended = mask | (1 << next);
+					double candidate = cost + matrix[last + 1][next + 1];
+					if (candidate < best[extended][next]) {
+						best[extended][next] = candidate;
+						previous[extended][next] = last;
+					}
+				}
+			}
+		}
+
+		// Close the path at the destination and walk the choices back
+		int full = subsets - 1;
+		int last = 0;
+		double bestTotal = Double.POSITIVE_INFINITY;
+		for (int j = 0; j < waypoints; j++) {
+			double total = best[full][j] + matrix[j + 1][destination];
+			if (total < bestTotal) {
+				bestTotal = total;
+				last = j;
+			}
+		}
+		int[] order = new int[matrix.length];
+		order[0] = 0;
+		order[destination] = destination;
+		if (bestTotal == Double.POSITIVE_INFINITY) {
+			// No order reaches every stop; keep the given one so the caller reports the broken leg
+			for (int stop = 1; stop < destination; stop++) {
+				order[stop] = stop;
+			}
+			return order;
+		}
+		for (int position = waypoints, mask = full; position >= 1; position--) {
+			order[position] = last + 1;
+			int before = previous[mask][last];
+			mask &= ~(1 << last);
+			last = before;
+		}
+		return order;
+	}
+
+	// Greedy starting tour: always go to the closest stop not visited yet
+	private static int[] nearestNeighbour(double[][] matrix) {
+		int destination = matrix.length - 1;
+		boolean[] visited = new boolean[matrix.length];
+		int[] order = new int[matrix.length];
+		order[destination] = destination;
+		int at = 0;
+		for (int position = 1; position < destination; position++) {
+			int closest = -1;
+			for (int stop = 1; stop < destination; stop++) {
+				if (!visited[stop] && (closest == -1 || matrix[at][stop] < matrix[at][closest]))
+					closest = stop;
+			}
+			visited[closest] = true;
+			order[position] = closest;
+			at = closest;
+		}
+		return order;
+	}
+
+	// Local search with 2-opt (reverse a section) and or-opt (move a run of up to
+	// three stops elsewhere) until neither finds an improvement. The first and last
+	// stops never move.
+	private static int[] improve(double[][] matrix, int[] order) {
+		boolean improved = true;
+		while (improved) {
+			improved = twoOpt(matrix, order) | orOpt(matrix, order);
+		}
+		return order;
+	}
+
+	private static boolean twoOpt(double[][] matrix, int[] order) {
+		boolean improved = false;
+		int last = order.length - 2;
+		for (int i = 1; i < last; i++) {
+			for (int j = i + 1; j <= last; j++) {
+				// Costs inside the section change too because the matrix can be asymmetric
+				double before = sectionCost(matrix, order, i - 1, j + 1);
+				reverse(order, i, j);
+				double after = sectionCost(matrix, order, i - 1, j + 1);
+				if (after < before - IMPROVEMENT_EPSILON) {
+					improved = true;
+				} else {
+					reverse(order, i, j);
+				}
+			}
+		}
+		return improved;
+	}
+
+	private static boolean orOpt(double[][] matrix, int[] order) {
+		boolean improved = false;
+		int last = order.length - 2;
+		for (int length = 1; length <= 3; length++) {
+			for (int i = 1; i + length - 1 <= last; i++) {
+				int j = i + length - 1;
+				// Cost saved by cutting order[i..j] out and closing the gap
+				double removed = matrix[order[i - 1]][order[i]] + matrix[order[j]][order[j + 1]]
+						- matrix[order[i - 1]][order[j + 1]];
+				for (int gap = 0; gap <= last; gap++) {
+					if (gap >= i - 1 && gap <= j)
+						continue;
+					// Insert between order[gap] and order[gap + 1]
+					double added = matrix[order[gap]][order[i]] + matrix[order[j]][order[gap + 1]]
+							- matrix[order[gap]][order[gap + 1]];
+					if (added < removed - IMPROVEMENT_EPSILON) {
+						move(order, i, j, gap);
+						improved = true;
+						break;
+					}
+				}
+			}
+		}
+		return improved;
+	}
+
+	private static double sectionCost(double[][] matrix, int[] order, int from, int to) {
+		double total = 0.0;
+		for (int i = from; i < to; i++) {
+			total += matrix[order[i]][order[i + 1]];
+		}
+		return total;
+	}
+
+	private static void reverse(int[] order, int i, int j) {
+		for (; i < j; i++, j--) {
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+	}
+
+	// Moves order[i..j] so it sits right after the stop currently at position gap
+	private static void move(int[] order, int i, int j, int gap) {
+		int[] segment = Arrays.copyOfRange(order, i, j + 1);
+		int length = segment.length;
+		if (gap > j) {
+			System.arraycopy(order, j + 1, order, i, gap - j);
+			System.arraycopy(segment, 0, order, gap - length + 1, length);
+		} else {
+			System.arraycopy(order, gap + 1, order, gap + 1 + length, i - gap - 1);
+			System.arraycopy(segment, 0, order, gap + 1, length);
+		}
+	}
+}